@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import de.dentrassi.maven.osgi.dp.builder.BuildLog;
+
+/**
+ * A set of synthetic bundles, shared by all iterations of a benchmark
+ */
+@State(Scope.Benchmark)
+public class BundleState {
+
+    public static final BuildLog LOG = new BuildLog() {
+    };
+
+    /**
+     * The number of bundles
+     */
+    @Param({ "10", "100", "1000", "5000" })
+    public int bundles;
+
+    /**
+     * The payload size of each bundle, in bytes
+     */
+    @Param({ "65536" })
+    public int size;
+
+    @Param({ "JAR", "RANDOM", "TEXT" })
+    public SyntheticBundles.Content content;
+
+    public Path directory;
+
+    public List<Path> locations;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("osgi-dp-bench-");
+        this.locations = SyntheticBundles.generate(this.directory.resolve("bundles"), this.bundles, this.size,
+                this.content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticBundles.delete(this.directory);
+    }
+}
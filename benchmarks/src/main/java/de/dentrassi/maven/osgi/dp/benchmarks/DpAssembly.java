@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.benchmarks;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+import de.dentrassi.maven.osgi.dp.builder.EntryCompression;
+import de.dentrassi.maven.osgi.dp.internal.JarWriter;
+import de.dentrassi.maven.osgi.dp.internal.ManifestWriter;
+
+/**
+ * The steps of the DP assembly, as performed by the mojos
+ */
+final class DpAssembly {
+
+    private DpAssembly() {
+    }
+
+    static byte[] makeManifest(final List<BundleInfo> bundles) {
+        final Manifest dpmf = new Manifest();
+        dpmf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1");
+        dpmf.getMainAttributes().putValue("DeploymentPackage-SymbolicName", "bench");
+        dpmf.getMainAttributes().putValue("DeploymentPackage-Version", "1.0.0");
+
+        final List<String> order = new ArrayList<>(bundles.size());
+        for (final BundleInfo bundle : bundles) {
+            final Attributes attrs = new Attributes();
+            attrs.putValue("Bundle-SymbolicName", bundle.getSymbolicName());
+            attrs.putValue("Bundle-Version", bundle.getVersion());
+            dpmf.getEntries().put(bundle.getEntryName(), attrs);
+            order.add(bundle.getEntryName());
+        }
+
+        return ManifestWriter.write(dpmf, order);
+    }
+
+    static long write(final Path out, final byte[] manifest, final List<BundleInfo> bundles,
+            final EntryCompression compression) throws IOException {
+
+        try (JarWriter jar = new JarWriter(FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+
+            jar.addEntry(JarFile.MANIFEST_NAME, manifest, ZipEntry.DEFLATED, 0L);
+
+            for (final BundleInfo bundle : bundles) {
+                final Path p = bundle.getLocation();
+                jar.addFile(bundle.getEntryName(), p, bundle.getSize(), bundle.getCrc(),
+                        compression.method(p, bundle.getSize()), Files.getLastModifiedTime(p).toMillis());
+            }
+        }
+
+        return Files.size(out);
+    }
+}
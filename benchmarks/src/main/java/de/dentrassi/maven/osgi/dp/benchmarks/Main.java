@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks
+ * <p>
+ * This accepts all JMH options. Unless a result format is given, the results
+ * are written as JSON, to a file named after the benchmarked plugin version.
+ * </p>
+ */
+public final class Main {
+
+    private Main() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final CommandLineOptions cmd = new CommandLineOptions(args);
+
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+
+        if (!cmd.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+            options.result(String.format("jmh-result-%s.json", pluginVersion()));
+        }
+
+        new Runner(options.build()).run();
+    }
+
+    private static String pluginVersion() throws IOException {
+        final Properties p = new Properties();
+        try (InputStream in = Main.class.getResourceAsStream("/benchmarks.properties")) {
+            p.load(in);
+        }
+        return p.getProperty("osgi-dp.version", "unknown");
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+import de.dentrassi.maven.osgi.dp.internal.BundleManifest;
+import de.dentrassi.maven.osgi.dp.internal.ManifestReader;
+
+/**
+ * Reading the manifest of bundles with many entries, using {@link JarFile}
+ * and using the manifest reader of the plugin
+ * <p>
+ * Real world bundles can be used instead of the synthetic ones, using
+ * {@code -p directory=<path>}. All JAR files of the directory and its
+ * sub-directories are read, and the other parameters have no effect.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ManifestBenchmark {
+
+    public enum Reader {
+        /**
+         * Open a {@link JarFile} and get its manifest
+         */
+        JAR_FILE,
+        /**
+         * Use the manifest reader
+         */
+        READER
+    }
+
+    /**
+     * The number of entries of each synthetic bundle
+     */
+    @Param({ "1000", "20000" })
+    public int entries;
+
+    /**
+     * Whether the manifest is the first or the last entry of the synthetic
+     * bundles
+     */
+    @Param({ "true", "false" })
+    public boolean manifestFirst;
+
+    @Param({ "JAR_FILE", "READER" })
+    public Reader reader;
+
+    /**
+     * A directory of real world bundles, empty for synthetic bundles
+     */
+    @Param({ "" })
+    public String directory;
+
+    private Path temporary;
+
+    private List<Path> locations;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if (!this.directory.isEmpty()) {
+            try (Stream<Path> files = Files.walk(Paths.get(this.directory))) {
+                this.locations = files.filter(p -> p.toString().endsWith(".jar")).sorted()
+                        .collect(Collectors.toList());
+            }
+            return;
+        }
+
+        this.temporary = Files.createTempDirectory("osgi-dp-bench-");
+        this.locations = SyntheticBundles.generateLarge(this.temporary, 20, this.entries, !this.manifestFirst);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticBundles.delete(this.temporary);
+    }
+
+    /**
+     * Read the same headers as the bundle scanner
+     */
+    @Benchmark
+    public void read(final Blackhole blackhole) throws IOException {
+        for (final Path location : this.locations) {
+            if (this.reader == Reader.JAR_FILE) {
+                try (JarFile jar = new JarFile(location.toFile())) {
+                    final Manifest mf = jar.getManifest();
+                    if (mf != null) {
+                        final Attributes main = mf.getMainAttributes();
+                        blackhole.consume(main.getValue("Bundle-SymbolicName"));
+                        blackhole.consume(main.getValue("Bundle-Version"));
+                        for (final String header : BundleInfo.HEADERS) {
+                            blackhole.consume(main.getValue(header));
+                        }
+                    }
+                }
+            } else {
+                final BundleManifest mf = ManifestReader.read(location);
+                if (mf != null) {
+                    blackhole.consume(mf.getValue("Bundle-SymbolicName"));
+                    blackhole.consume(mf.getValue("Bundle-Version"));
+                    for (final String header : BundleInfo.HEADERS) {
+                        blackhole.consume(mf.getValue(header));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.dentrassi.maven.osgi.dp.builder.EntryCompression;
+import de.dentrassi.maven.osgi.dp.server.BundleRepository;
+import de.dentrassi.maven.osgi.dp.server.DpServer;
+
+/**
+ * Load test of the DP server
+ * <p>
+ * Several clients request DPs of randomly selected bundles at the same time.
+ * The number of clients can be changed using the {@code -t} option.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(8)
+public class ServeBenchmark {
+
+    /**
+     * The number of bundles in each requested DP
+     */
+    @Param({ "10", "100" })
+    public int perRequest;
+
+    /**
+     * Whether to request fix-packs, with half of the bundles in the baseline
+     */
+    @Param({ "false", "true" })
+    public boolean fixPack;
+
+    @Param({ "STORED", "DEFLATED" })
+    public EntryCompression compression;
+
+    private DpServer server;
+
+    private String base;
+
+    @Setup(Level.Trial)
+    public void setup(final BundleState state) throws IOException {
+        final BundleRepository repository = new BundleRepository(state.directory.resolve("bundles"),
+                Long.MAX_VALUE, 0, BundleState.LOG);
+
+        this.server = new DpServer(repository, new InetSocketAddress("localhost", 0))
+                .threads(0)
+                .compression(this.compression);
+        this.server.start();
+
+        this.base = String.format("http://localhost:%s/dp/bench", this.server.getAddress().getPort());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.server.close();
+    }
+
+    @Benchmark
+    public long request(final BundleState state) throws IOException {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int count = Math.min(this.perRequest, state.bundles);
+        final int first = random.nextInt(state.bundles - count + 1);
+
+        final StringBuilder url = new StringBuilder(this.base).append("?version=1.0.0");
+        final StringBuilder baseline = new StringBuilder();
+        baseline.append("Manifest-Version: 1\r\n");
+        baseline.append("DeploymentPackage-SymbolicName: bench\r\n");
+        baseline.append("DeploymentPackage-Version: 0.9.0\r\n\r\n");
+
+        for (int i = first; i < first + count; i++) {
+            url.append("&bundle=bench.bundle").append(i);
+            if (i % 2 == 0) {
+                baseline.append(String.format("Name: bundle-%05d.jar\r\n", i));
+                baseline.append("Bundle-SymbolicName: bench.bundle").append(i).append("\r\n");
+                baseline.append("Bundle-Version: 1.0.0.v20260101\r\n\r\n");
+            }
+        }
+
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url.toString()).openConnection();
+        if (this.fixPack) {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(baseline.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        if (connection.getResponseCode() != 200) {
+            throw new IOException("Request failed: " + connection.getResponseCode());
+        }
+
+        long total = 0;
+        final byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = connection.getInputStream()) {
+            int rc;
+            while ((rc = in.read(buffer)) > 0) {
+                total += rc;
+            }
+        }
+        return total;
+    }
+}
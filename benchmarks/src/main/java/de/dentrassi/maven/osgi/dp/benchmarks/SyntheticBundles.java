@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Generate synthetic bundles
+ */
+public final class SyntheticBundles {
+
+    /**
+     * The content of the generated bundles
+     */
+    public enum Content {
+        /**
+         * Random data, the bundle does not compress at all
+         */
+        RANDOM,
+        /**
+         * Text, deflated inside the bundle, like most real world bundles
+         */
+        JAR,
+        /**
+         * Text, stored inside the bundle, the bundle compresses well
+         */
+        TEXT
+    }
+
+    private static final int ENTRIES = 8;
+
+    private static final String[] WORDS = { "bundle", "package", "import", "export", "service", "component",
+            "version", "require", "capability", "deployment", "framework", "resource" };
+
+    private SyntheticBundles() {
+    }
+
+    /**
+     * Generate bundles
+     *
+     * @param directory
+     *            the target directory
+     * @param count
+     *            the number of bundles
+     * @param size
+     *            the approximate payload size of each bundle
+     * @param content
+     *            the type of content
+     * @return the list of generated bundles
+     */
+    public static List<Path> generate(final Path directory, final int count, final int size, final Content content)
+            throws IOException {
+
+        Files.createDirectories(directory);
+
+        // use a fixed seed, so that all runs use the same data
+        final Random random = new Random(count * 31L + size);
+
+        final List<Path> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Path file = directory.resolve(String.format("bundle-%05d.jar", i));
+            writeBundle(file, "bench.bundle" + i, size, content, random);
+            result.add(file);
+        }
+        return result;
+    }
+
+    private static void writeBundle(final Path file, final String bsn, final int size, final Content content,
+            final Random random) throws IOException {
+
+        final Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().putValue("Bundle-ManifestVersion", "2");
+        mf.getMainAttributes().putValue("Bundle-SymbolicName", bsn + ";singleton:=true");
+        mf.getMainAttributes().putValue("Bundle-Version", "1.0.0.v20260101");
+        mf.getMainAttributes().putValue("Export-Package", bsn + ";version=\"1.0.0\"");
+        mf.getMainAttributes().putValue("Import-Package", "org.osgi.framework;version=\"[1.8,2)\"");
+
+        try (OutputStream out = Files.newOutputStream(file); JarOutputStream jar = new JarOutputStream(out, mf)) {
+            final int entrySize = Math.max(1, size / ENTRIES);
+            for (int i = 0; i < ENTRIES; i++) {
+                final byte[] data = makeData(entrySize, content, random);
+
+                final JarEntry entry = new JarEntry(String.format("%s/Data%d.class", bsn.replace('.', '/'), i));
+                if (content == Content.TEXT) {
+                    final CRC32 crc = new CRC32();
+                    crc.update(data);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(data.length);
+                    entry.setCompressedSize(data.length);
+                    entry.setCrc(crc.getValue());
+                }
+                jar.putNextEntry(entry);
+                jar.write(data);
+                jar.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Generate bundles with many small entries
+     *
+     * @param directory
+     *            the target directory
+     * @param count
+     *            the number of bundles
+     * @param entries
+     *            the number of entries of each bundle
+     * @param manifestLast
+     *            whether to write the manifest as the last entry, instead of
+     *            the first one
+     * @return the list of generated bundles
+     */
+    public static List<Path> generateLarge(final Path directory, final int count, final int entries,
+            final boolean manifestLast) throws IOException {
+
+        Files.createDirectories(directory);
+
+        final Random random = new Random(count * 31L + entries);
+
+        final List<Path> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Path file = directory.resolve(String.format("large-%05d.jar", i));
+            writeLargeBundle(file, "bench.large" + i, entries, manifestLast, random);
+            result.add(file);
+        }
+        return result;
+    }
+
+    private static void writeLargeBundle(final Path file, final String bsn, final int entries,
+            final boolean manifestLast, final Random random) throws IOException {
+
+        final Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().putValue("Bundle-ManifestVersion", "2");
+        mf.getMainAttributes().putValue("Bundle-SymbolicName", bsn + ";singleton:=true");
+        mf.getMainAttributes().putValue("Bundle-Version", "1.0.0.v20260101");
+
+        // a long header, like the package imports of real world bundles
+        final StringBuilder imports = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) {
+                imports.append(',');
+            }
+            imports.append(String.format("org.example.%s.p%d;version=\"[1.0,2)\"", WORDS[i % WORDS.length], i));
+        }
+        mf.getMainAttributes().putValue("Import-Package", imports.toString());
+        mf.getMainAttributes().putValue("Export-Package", bsn + ";version=\"1.0.0\"");
+
+        try (OutputStream out = Files.newOutputStream(file); JarOutputStream jar = new JarOutputStream(out)) {
+            if (!manifestLast) {
+                jar.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+                mf.write(jar);
+                jar.closeEntry();
+            }
+
+            final String prefix = bsn.replace('.', '/');
+            for (int i = 0; i < entries; i++) {
+                jar.putNextEntry(new ZipEntry(String.format("%s/p%d/Class%d.class", prefix, i / 100, i)));
+                jar.write(makeData(64, Content.JAR, random));
+                jar.closeEntry();
+            }
+
+            if (manifestLast) {
+                jar.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+                mf.write(jar);
+                jar.closeEntry();
+            }
+        }
+    }
+
+    private static byte[] makeData(final int size, final Content content, final Random random) {
+        if (content == Content.RANDOM) {
+            final byte[] data = new byte[size];
+            random.nextBytes(data);
+            return data;
+        }
+
+        final StringBuilder sb = new StringBuilder(size + 16);
+        while (sb.length() < size) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        sb.setLength(size);
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Delete a directory recursively
+     */
+    public static void delete(final Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+import de.dentrassi.maven.osgi.dp.builder.EntryCompression;
+import de.dentrassi.maven.osgi.dp.internal.BundleScanner;
+
+/**
+ * Writing the DP from already scanned bundles
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class WriteBenchmark {
+
+    @Param({ "STORED", "DEFLATED", "AUTO" })
+    public EntryCompression compression;
+
+    private List<BundleInfo> scanned;
+
+    @Setup(Level.Trial)
+    public void setup(final BundleState state) throws IOException {
+        this.scanned = new BundleScanner(0, null, BundleState.LOG).scan(state.locations);
+    }
+
+    @Benchmark
+    public long write(final BundleState state) throws IOException {
+        final Path out = state.directory.resolve("write.dp");
+        return DpAssembly.write(out, DpAssembly.makeManifest(this.scanned), this.scanned, this.compression);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Jens Reimann
+ * Copyright (c) 2018, 2026 Jens Reimann and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,8 +7,15 @@
  *
  * Contributors:
  *     Jens Reimann <jreimann@redhat.com> - initial API and implementation
+ *     agent <agent@local>
  *******************************************************************************/
 
+def log = new File(basedir, "build.log").text
+if (!log.contains("Feature walk: 3 bundles")) {
+    println("Missing feature walk summary")
+    return false
+}
+
 def zipFile = new java.util.zip.ZipFile(new File(basedir, "test1-feature1/target/test1.feature1_1.0.0-SNAPSHOT.dp"))
 
 def entries = new HashSet<String>();
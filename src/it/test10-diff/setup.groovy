@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+import java.util.jar.Attributes
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+import java.util.zip.ZipEntry
+
+// create two DPs, the bundles only need to be entries with some content
+
+def writeDp(file, version, bundles) {
+    def mf = new Manifest()
+    mf.mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1")
+    mf.mainAttributes.putValue("DeploymentPackage-SymbolicName", "test10")
+    mf.mainAttributes.putValue("DeploymentPackage-Version", version)
+
+    bundles.each { name, attrs ->
+        def section = new Attributes()
+        attrs.findAll { it.key != "content" }.each { k, v -> section.putValue(k, v) }
+        mf.entries.put(name, section)
+    }
+
+    new JarOutputStream(new FileOutputStream(file), mf).withCloseable { out ->
+        bundles.each { name, attrs ->
+            out.putNextEntry(new ZipEntry(name))
+            out.write(attrs.content.bytes)
+            out.closeEntry()
+        }
+    }
+}
+
+writeDp(new File(basedir, "old.dp"), "1.0.0", [
+    "a.jar": ["Bundle-SymbolicName": "a", "Bundle-Version": "1.0.0", content: "a"],
+    "b.jar": ["Bundle-SymbolicName": "b", "Bundle-Version": "1.0.0", content: "b"],
+    "c.jar": ["Bundle-SymbolicName": "c", "Bundle-Version": "1.0.0", content: "c1"],
+    "d.jar": ["Bundle-SymbolicName": "d", "Bundle-Version": "1.0.0", "SHA-256-Digest": "d1", content: "d1"],
+    "f_1.0.0.jar": ["Bundle-SymbolicName": "f", "Bundle-Version": "1.0.0", content: "f1"],
+    "f_2.0.0.jar": ["Bundle-SymbolicName": "f", "Bundle-Version": "2.0.0", content: "f2"],
+    "r.txt": ["Resource-Processor": "rp", content: "r"]
+])
+
+writeDp(new File(basedir, "new.dp"), "1.1.0", [
+    "b.jar": ["Bundle-SymbolicName": "b", "Bundle-Version": "1.1.0", content: "b"],
+    "c.jar": ["Bundle-SymbolicName": "c", "Bundle-Version": "1.0.0", content: "c2"],
+    "d.jar": ["Bundle-SymbolicName": "d", "Bundle-Version": "1.0.0", "SHA-256-Digest": "d1", content: "d2"],
+    "e.jar": ["Bundle-SymbolicName": "e", "Bundle-Version": "1.0.0", content: "e"],
+    "f_2.0.0.jar": ["Bundle-SymbolicName": "f", "Bundle-Version": "2.0.0", content: "f2"],
+    "f_3.0.0.jar": ["Bundle-SymbolicName": "f", "Bundle-Version": "3.0.0", content: "f3"],
+    "r.txt": ["Resource-Processor": "rp", content: "r"]
+])
+
+return true
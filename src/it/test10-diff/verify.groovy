@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+def diff = new groovy.json.JsonSlurper().parse(new File(basedir, "target/diff.json"))
+println("Diff: " + diff)
+
+def changes = diff.changes.collect { it.kind + ":" + (it.symbolicName ?: it.resource) }
+
+if (changes != ["ADDED:e", "ADDED:f", "REMOVED:a", "REMOVED:f", "VERSION_CHANGED:b", "CONTENT_CHANGED:c"]) {
+    println("Unexpected changes: " + changes)
+    return false
+}
+
+// both DPs contain several versions of f, which are matched by version
+
+def f = diff.changes.findAll { it.symbolicName == "f" }.collect { it.kind + ":" + it.fromEntry + ":" + it.toEntry }
+if (f != ["ADDED:null:f_3.0.0.jar", "REMOVED:f_1.0.0.jar:null"]) {
+    println("Unexpected changes of f: " + f)
+    return false
+}
+
+if (diff.multipleVersions != [[symbolicName: "f", fromVersions: ["1.0.0", "2.0.0"], toVersions: ["2.0.0", "3.0.0"]]]) {
+    println("Unexpected multiple versions: " + diff.multipleVersions)
+    return false
+}
+
+// d has the same digest, f 2.0.0 and the resource the same CRC
+if (diff.summary.unchanged != 3 || diff.from.version != "1.0.0" || diff.to.version != "1.1.0") {
+    println("Unexpected summary")
+    return false
+}
+
+def log = new File(basedir, "build.log").text
+if (!log.contains("~ b 1.0.0 -> 1.1.0") || !log.contains("Multiple versions of f: 1.0.0, 2.0.0 -> 2.0.0, 3.0.0")
+        || !log.contains("2 added, 2 removed, 1 version changed, 1 content changed, 3 unchanged")) {
+    println("Missing text report")
+    return false
+}
+
+return true
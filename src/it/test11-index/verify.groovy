@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+import java.security.MessageDigest
+import java.util.jar.JarFile
+import java.util.zip.GZIPInputStream
+import javax.xml.parsers.DocumentBuilderFactory
+
+def target = new File(basedir, "target")
+
+def children(node, name) {
+    def result = []
+    def list = node.getElementsByTagName(name)
+    for (int i = 0; i < list.length; i++) {
+        if (list.item(i).parentNode == node) {
+            result << list.item(i)
+        }
+    }
+    return result
+}
+
+// the values of the attributes or directives of a capability or requirement, by name
+def values(node, type) {
+    return children(node, type).collectEntries { [(it.getAttribute("name")): it.getAttribute("value")] }
+}
+
+// the resources of an index, by symbolic name
+def readIndex(file) {
+    def input = new GZIPInputStream(new FileInputStream(file))
+    try {
+        def doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(input)
+        def resources = [:]
+        children(doc.documentElement, "resource").each { resource ->
+            def identity = children(resource, "capability").find { it.getAttribute("namespace") == "osgi.identity" }
+            resources[values(identity, "attribute")["osgi.identity"]] = resource
+        }
+        return resources
+    } finally {
+        input.close()
+    }
+}
+
+def capabilities(resource, namespace) {
+    return children(resource, "capability").findAll { it.getAttribute("namespace") == namespace }
+}
+
+def requirements(resource, namespace) {
+    return children(resource, "requirement").findAll { it.getAttribute("namespace") == namespace }
+}
+
+def resources = readIndex(new File(target, "test11_1.0.0-index.xml.gz"))
+
+println("Resources: " + resources.keySet())
+
+if (resources.keySet() != ["ch.qos.logback.classic", "ch.qos.logback.core", "slf4j.api"].toSet()) {
+    println("Unexpected resources in the index")
+    return false
+}
+
+// the content matches the bundles of the DP
+
+def jar = new JarFile(new File(target, "test11_1.0.0.dp"))
+try {
+    def content = values(capabilities(resources["slf4j.api"], "osgi.content")[0], "attribute")
+
+    def md = MessageDigest.getInstance("SHA-256")
+    md.update(jar.getInputStream(jar.getEntry(content["url"])).bytes)
+    if (content["osgi.content"] != md.digest().encodeHex().toString()) {
+        println("Unexpected content hash: " + content)
+        return false
+    }
+} finally {
+    jar.close()
+}
+
+// package wiring
+
+def exports = capabilities(resources["slf4j.api"], "osgi.wiring.package")
+        .collect { values(it, "attribute")["osgi.wiring.package"] }
+if (!exports.contains("org.slf4j")) {
+    println("Missing package export: " + exports)
+    return false
+}
+
+def filters = requirements(resources["ch.qos.logback.classic"], "osgi.wiring.package")
+        .collect { values(it, "directive")["filter"] }
+if (!filters.contains("(&(osgi.wiring.package=ch.qos.logback.core)(version>=1.1.0)(!(version>=2.0.0)))")) {
+    println("Missing package import: " + filters)
+    return false
+}
+
+def optional = requirements(resources["ch.qos.logback.classic"], "osgi.wiring.package")
+        .find { values(it, "directive")["filter"] == "(osgi.wiring.package=javax.jms)" }
+if (values(optional, "directive")["resolution"] != "optional") {
+    println("Missing optional resolution")
+    return false
+}
+
+// generic requirements
+
+def ee = requirements(resources["ch.qos.logback.classic"], "osgi.ee")
+if (ee.size() != 1 || values(ee[0], "directive")["filter"] != "(&(osgi.ee=JavaSE)(version=1.6))") {
+    println("Missing execution environment requirement")
+    return false
+}
+
+// the variant has its own index, and both are attached
+
+if (readIndex(new File(target, "test11_1.0.0-api-index.xml.gz")).keySet() != ["slf4j.api"].toSet()) {
+    println("Unexpected resources in the variant index")
+    return false
+}
+
+def repo = new File(basedir, "../../local-repo/test11/test11/1.0.0")
+for (classifier in ["index", "api-index"]) {
+    if (!new File(repo, "test11-1.0.0-" + classifier + ".xml.gz").isFile()) {
+        println("Index not installed: " + classifier)
+        return false
+    }
+}
+
+return true
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+def log = new File(basedir, "build.log").text
+
+def unresolved = log.readLines().findAll { it.contains("Unresolved requirement - ") }
+        .collect { it.substring(it.indexOf(" - ") + 3) }.toSet()
+
+println("Unresolved: " + unresolved)
+
+def expected = [
+    "ch.qos.logback.classic:1.1.7: Import-Package org.slf4j.event [1.7.0,2.0.0)",
+    "ch.qos.logback.classic:1.1.7: Import-Package org.slf4j.helpers [1.7.0,2.0.0)"
+].toSet()
+
+if (unresolved != expected) {
+    println("Unexpected unresolved requirements")
+    return false
+}
+
+if (!log.contains("- 2 unresolved (")) {
+    println("Missing resolution summary")
+    return false
+}
+
+// in mode WARN the DP is still built
+
+if (!new File(basedir, "target/test12_1.0.0.dp").isFile()) {
+    println("DP not built")
+    return false
+}
+
+return true
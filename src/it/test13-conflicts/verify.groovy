@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+import java.util.jar.JarFile
+
+def jar = new JarFile(new File(basedir, "target/test13_1.0.0.dp"))
+def entries
+try {
+    entries = jar.entries().collect { it.name }.findAll { it != "META-INF/MANIFEST.MF" }.toSet()
+} finally {
+    jar.close()
+}
+
+println("Entries: " + entries)
+
+// only the highest version is added
+
+if (entries != ["slf4j.api_1.7.21.jar"].toSet()) {
+    println("Unexpected content of the DP")
+    return false
+}
+
+def log = new File(basedir, "build.log").text
+
+// the same artifact, as dependency and as additional dependency, is only read once
+
+if (!log.contains("Skipped 1 duplicate candidates")) {
+    println("Duplicate candidate not skipped")
+    return false
+}
+
+if (!log.contains("Conflict: slf4j.api - keeping version 1.7.21 instead of 1.7.20")) {
+    println("Conflict not reported")
+    return false
+}
+
+if (log.count("Added: ") != 1) {
+    println("Unexpected number of added bundles")
+    return false
+}
+
+return true
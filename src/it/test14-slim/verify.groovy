@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.time.LocalDateTime
+import java.time.ZoneId
+import java.util.jar.JarFile
+import java.util.zip.ZipInputStream
+
+def original(path) {
+    return new File(localRepositoryPath, path)
+}
+
+def jar = new JarFile(new File(basedir, "target/test14_1.0.0.dp"))
+try {
+    // Maven metadata is removed, and the entries are recompressed
+
+    def classic = jar.getEntry("ch.qos.logback.classic_1.1.7.jar")
+    if (classic == null) {
+        println("Missing bundle: ch.qos.logback.classic")
+        return false
+    }
+    if (classic.size >= original("ch/qos/logback/logback-classic/1.1.7/logback-classic-1.1.7.jar").length()) {
+        println("Bundle not slimmed: " + classic.size)
+        return false
+    }
+
+    // only the MS-DOS timestamp is written, which is read in the local time zone
+    def normalized = LocalDateTime.of(1980, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+
+    def names = []
+    def zin = new ZipInputStream(jar.getInputStream(classic))
+    try {
+        def entry
+        while ((entry = zin.nextEntry) != null) {
+            names << entry.name
+            if (entry.time != normalized) {
+                println("Timestamp not normalized: " + entry.name + " - " + entry.lastModifiedTime)
+                return false
+            }
+        }
+    } finally {
+        zin.close()
+    }
+
+    if (names.any { it.startsWith("META-INF/maven/") }) {
+        println("Maven metadata not removed")
+        return false
+    }
+    if (names.take(2) != ["META-INF/", "META-INF/MANIFEST.MF"]) {
+        println("Manifest not in front: " + names.take(2))
+        return false
+    }
+    if (!names.contains("ch/qos/logback/classic/Logger.class")) {
+        println("Classes got removed")
+        return false
+    }
+
+    // signed bundles are added as they are
+
+    def osgi = jar.getEntry("org.eclipse.osgi_3.13.0.v20171204-1916.jar")
+    def signed = original("org/eclipse/tycho/org.eclipse.osgi/3.13.0.v20171204-1916/"
+            + "org.eclipse.osgi-3.13.0.v20171204-1916.jar")
+    if (osgi == null || osgi.size != signed.length()) {
+        println("Signed bundle got changed")
+        return false
+    }
+} finally {
+    jar.close()
+}
+
+def log = new File(basedir, "build.log").text
+
+if (!log.contains("Not slimming signed bundle: org.eclipse.osgi")) {
+    println("Signed bundle not reported")
+    return false
+}
+
+if (!log.contains("Slimmed: ch.qos.logback.classic")) {
+    println("Slimmed bundle not reported")
+    return false
+}
+
+// the second build takes the slimmed bundles from the cache
+
+if (!log.contains("0 cache hits, 2 misses") || !log.contains("2 cache hits, 0 misses")) {
+    println("Slimming cache not used")
+    return false
+}
+
+return true
@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+// a self-signed key for signing the DP
+
+def keytool = new File(System.getProperty("java.home"), "bin/keytool").absolutePath
+def keystore = new File(basedir, "keystore.p12")
+keystore.delete()
+
+def process = [keytool, "-genkeypair", "-keystore", keystore.absolutePath, "-storetype", "PKCS12",
+        "-storepass", "secret", "-keypass", "secret", "-alias", "signer", "-keyalg", "RSA", "-keysize", "2048",
+        "-validity", "365", "-dname", "CN=osgi-dp test"].execute()
+process.consumeProcessOutput(System.out, System.err)
+
+return process.waitFor() == 0
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.util.jar.JarFile
+
+def dp = new File(basedir, "target/test16_1.0.0.dp")
+
+if (new File(basedir, "target/test16_1.0.0.dp.tmp").exists()) {
+    println("Temporary file not removed")
+    return false
+}
+
+def jar = new JarFile(dp)
+try {
+    def names = jar.entries().collect { it.name }
+    if (names != ["META-INF/MANIFEST.MF", "slf4j.api_1.7.21.jar", "ch.qos.logback.classic_1.1.7.jar"]) {
+        println("Unexpected entries: " + names)
+        return false
+    }
+
+    if (jar.manifest.getAttributes("slf4j.api_1.7.20.jar") != null) {
+        println("Old bundle still in the manifest")
+        return false
+    }
+
+    // read the copied bundle, which checks its CRC
+
+    def classic = jar.getEntry("ch.qos.logback.classic_1.1.7.jar")
+    def original = new File(localRepositoryPath, "ch/qos/logback/logback-classic/1.1.7/logback-classic-1.1.7.jar")
+    if (!Arrays.equals(jar.getInputStream(classic).bytes, original.bytes)) {
+        println("Copied bundle differs from the original")
+        return false
+    }
+} finally {
+    jar.close()
+}
+
+def log = new File(basedir, "build.log").text
+
+// the first build writes the DP from scratch, the second build only writes the changed bundle
+
+if (log.count("Writing to: ") != 3 || log.count("Reused ") != 1 || !log.contains("Reused 1 of 2 bundles")) {
+    println("DP not updated")
+    return false
+}
+
+// the third build must not copy bundles compressed with the previous level
+
+if (!log.contains("Compression of the previous DP changed or is unknown, writing it from scratch")) {
+    println("DP not written from scratch after changing the compression level")
+    return false
+}
+
+def fingerprint = new Properties()
+new File(basedir, "target/test16_1.0.0.dp.fingerprint").withInputStream { fingerprint.load(it) }
+if (!fingerprint.getProperty("attribute.compression", "").endsWith(":1")) {
+    println("Compression settings not recorded: " + fingerprint)
+    return false
+}
+
+return true
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.util.jar.JarFile
+
+def check(version, fixPack, contained, missing) {
+    def jar = new JarFile(new File(basedir, "target/test17_" + version + ".dp"))
+    try {
+        def mf = jar.manifest
+        if (mf.mainAttributes.getValue("DeploymentPackage-FixPack") != fixPack) {
+            println(version + ": unexpected fix-pack range: " + mf.mainAttributes.getValue("DeploymentPackage-FixPack"))
+            return false
+        }
+
+        def names = jar.entries().collect { it.name } - "META-INF/MANIFEST.MF"
+        if (names != contained) {
+            println(version + ": unexpected entries: " + names)
+            return false
+        }
+
+        def marked = mf.entries.findAll { it.value.getValue("DeploymentPackage-Missing") == "true" }.keySet() as List
+        if (marked != missing) {
+            println(version + ": unexpected missing bundles: " + marked)
+            return false
+        }
+    } finally {
+        jar.close()
+    }
+    return true
+}
+
+// only the changed bundle is contained in the first fix-pack
+
+if (!check("2.0.0", "[1.0.0,1.0.0]", ["slf4j.api_1.7.21.jar"], ["ch.qos.logback.classic_1.1.7.jar"])) {
+    return false
+}
+
+// the content of the bundle missing in the baseline is unknown, so it must be contained again
+
+if (!check("3.0.0", "[2.0.0,2.0.0]", ["ch.qos.logback.classic_1.1.7.jar"], ["slf4j.api_1.7.21.jar"])) {
+    return false
+}
+
+return true
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+def target = new File(basedir, "target")
+
+// only the parts are written, not the complete DP
+
+if (new File(target, "test18_1.0.0.dp").exists()) {
+    println("Complete DP written")
+    return false
+}
+
+def index = new groovy.json.JsonSlurper().parse(new File(target, "test18_1.0.0-parts.json"))
+if (index.parts.size() != 2) {
+    println("Expected two parts: " + index)
+    return false
+}
+
+for (def part : index.parts) {
+    if (!new File(target, part.file).isFile()) {
+        println("Missing part: " + part.file)
+        return false
+    }
+}
+
+def report = new groovy.json.JsonSlurper().parse(new File(target, "osgi-dp-metrics.json"))
+if (!report.upToDate) {
+    println("Parts not up to date in the second build")
+    return false
+}
+
+def log = new File(basedir, "build.log").text
+
+if (log.contains("Writing to: ") || log.count("Writing part 1 of 2") != 1 || log.count("DP is up to date: ") != 1) {
+    println("Unexpected build")
+    return false
+}
+
+return true
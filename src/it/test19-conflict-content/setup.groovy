@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipInputStream
+import java.util.zip.ZipOutputStream
+
+// a rebuilt copy of a bundle, with the same symbolic name and version, but different content
+
+def original = new File(localRepositoryPath, "org/slf4j/slf4j-api/1.7.21/slf4j-api-1.7.21.jar")
+def rebuilt = new File(localRepositoryPath, "test19/rebuilt-slf4j/1.7.21/rebuilt-slf4j-1.7.21.jar")
+rebuilt.parentFile.mkdirs()
+
+def zin = new ZipInputStream(new FileInputStream(original))
+def zout = new ZipOutputStream(new FileOutputStream(rebuilt))
+try {
+    def entry
+    while ((entry = zin.nextEntry) != null) {
+        zout.putNextEntry(new ZipEntry(entry.name))
+        zout << zin
+        zout.closeEntry()
+    }
+    zout.putNextEntry(new ZipEntry("rebuilt.txt"))
+    zout << "rebuilt"
+    zout.closeEntry()
+} finally {
+    zin.close()
+    zout.close()
+}
+
+return true
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.util.jar.JarFile
+import java.util.jar.JarInputStream
+
+def jar = new JarFile(new File(basedir, "target/test19_1.0.0.dp"))
+try {
+    def names = jar.entries().collect { it.name }
+    // the last of the conflicting bundles is added, at the position of the first one
+
+    if (names != ["META-INF/MANIFEST.MF", "slf4j.api_1.7.21.jar", "ch.qos.logback.classic_1.1.7.jar"]) {
+        println("Unexpected entries: " + names)
+        return false
+    }
+
+    def bundle = new JarInputStream(jar.getInputStream(jar.getEntry("slf4j.api_1.7.21.jar")))
+    def rebuilt = false
+    try {
+        def entry
+        while ((entry = bundle.nextEntry) != null) {
+            rebuilt |= entry.name == "rebuilt.txt"
+        }
+    } finally {
+        bundle.close()
+    }
+    if (!rebuilt) {
+        println("The first of the conflicting bundles got added")
+        return false
+    }
+} finally {
+    jar.close()
+}
+
+def log = new File(basedir, "build.log").text
+
+if (!log.contains("different content in") || !log.contains("rebuilt-slf4j-1.7.21.jar, using the latter")) {
+    println("Conflict not reported")
+    return false
+}
+
+return true
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.net.HttpURLConnection
+import java.net.InetSocketAddress
+import java.nio.file.Files
+import java.util.jar.JarInputStream
+
+import de.dentrassi.maven.osgi.dp.builder.BuildLog
+import de.dentrassi.maven.osgi.dp.server.BundleRepository
+import de.dentrassi.maven.osgi.dp.server.DpServer
+
+// a repository with two versions of slf4j and logback classic
+
+def bundles = new File(basedir, "bundles")
+bundles.mkdirs()
+for (def path : ["org/slf4j/slf4j-api/1.7.20/slf4j-api-1.7.20.jar", "org/slf4j/slf4j-api/1.7.21/slf4j-api-1.7.21.jar",
+        "ch/qos/logback/logback-classic/1.1.7/logback-classic-1.1.7.jar"]) {
+    def source = new File(localRepositoryPath, path)
+    Files.copy(source.toPath(), new File(bundles, source.name).toPath())
+}
+
+def request(base, method, query, byte[] body) {
+    def connection = (HttpURLConnection) new URL(base + query).openConnection()
+    connection.requestMethod = method
+    if (body != null) {
+        connection.doOutput = true
+        connection.outputStream.withStream { it.write(body) }
+    }
+    def status = connection.responseCode
+    def data = (status == 200 ? connection.inputStream : connection.errorStream).bytes
+    connection.disconnect()
+    return [status, data]
+}
+
+def read(byte[] data) {
+    def result = [:]
+    def jar = new JarInputStream(new ByteArrayInputStream(data))
+    try {
+        result.manifest = jar.manifest
+        result.entries = []
+        def entry
+        while ((entry = jar.nextJarEntry) != null) {
+            result.entries << entry.name
+        }
+    } finally {
+        jar.close()
+    }
+    return result
+}
+
+def repository = new BundleRepository(bundles.toPath(), 5000, 0, new BuildLog() {})
+def server = new DpServer(repository, new InetSocketAddress("localhost", 0))
+server.start()
+try {
+    def base = "http://localhost:" + server.address.port + "/dp/"
+
+    // a complete DP, with the highest version of slf4j
+
+    def (status, dp) = request(base, "GET", "test20?version=1.0.0&bundle=slf4j.api&bundle=ch.qos.logback.classic",
+            null)
+    if (status != 200) {
+        println("GET failed: " + status + " - " + new String(dp))
+        return false
+    }
+
+    def full = read(dp)
+    def main = full.manifest.mainAttributes
+    if (main.getValue("DeploymentPackage-SymbolicName") != "test20"
+            || main.getValue("DeploymentPackage-Version") != "1.0.0"
+            || main.getValue("DeploymentPackage-FixPack") != null) {
+        println("Unexpected main section: " + main)
+        return false
+    }
+    if (full.entries != ["slf4j.api_1.7.21.jar", "ch.qos.logback.classic_1.1.7.jar"]) {
+        println("Unexpected bundles: " + full.entries)
+        return false
+    }
+    if (full.manifest.getAttributes("slf4j.api_1.7.21.jar").getValue("SHA-256-Digest") == null) {
+        println("Missing digests")
+        return false
+    }
+
+    // a fix-pack for this DP, with a different version of slf4j
+
+    def fixPackQuery = "test20?version=1.1.0&bundle=slf4j.api:1.7.20&bundle=ch.qos.logback.classic"
+
+    def (fixStatus, fixData) = request(base, "POST", fixPackQuery, dp)
+    if (fixStatus != 200) {
+        println("POST failed: " + fixStatus + " - " + new String(fixData))
+        return false
+    }
+
+    def fix = read(fixData)
+    if (fix.manifest.mainAttributes.getValue("DeploymentPackage-FixPack") != "[1.0.0,1.0.0]") {
+        println("Unexpected fix-pack range: " + fix.manifest.mainAttributes.getValue("DeploymentPackage-FixPack"))
+        return false
+    }
+    if (fix.entries != ["slf4j.api_1.7.20.jar"]) {
+        println("Unexpected bundles of the fix-pack: " + fix.entries)
+        return false
+    }
+    if (fix.manifest.getAttributes("ch.qos.logback.classic_1.1.7.jar")?.getValue("DeploymentPackage-Missing") != "true"
+            || fix.manifest.getAttributes("slf4j.api_1.7.20.jar")?.getValue("DeploymentPackage-Missing") != null) {
+        println("Unexpected missing bundles of the fix-pack")
+        return false
+    }
+
+    // the manifest alone works as baseline as well
+
+    def manifest = new ByteArrayOutputStream()
+    full.manifest.write(manifest)
+    def (mfStatus, mfData) = request(base, "POST", fixPackQuery, manifest.toByteArray())
+    if (mfStatus != 200 || read(mfData).entries != ["slf4j.api_1.7.20.jar"]) {
+        println("Unexpected fix-pack for a manifest baseline: " + mfStatus)
+        return false
+    }
+
+    // errors
+
+    def errors = [
+        ["GET", "test20?bundle=slf4j.api", null, 400],
+        ["GET", "test20?version=1.0.0", null, 400],
+        ["GET", "test20?version=a.b&bundle=slf4j.api", null, 400],
+        ["GET", "test20?version=1.0.0&bundle=unknown", null, 404],
+        ["GET", "test20?version=1.0.0&bundle=slf4j.api:2.0.0", null, 404],
+        ["GET", "?version=1.0.0&bundle=slf4j.api", null, 404],
+        ["GET", "test20/other?version=1.0.0&bundle=slf4j.api", null, 404],
+        ["DELETE", "test20?version=1.0.0&bundle=slf4j.api", null, 405],
+        ["POST", "test20?version=1.1.0&bundle=slf4j.api", new byte[0], 400],
+        ["POST", "other?version=1.1.0&bundle=slf4j.api", dp, 400],
+    ]
+    for (def error : errors) {
+        def (errorStatus, errorData) = request(base, error[0], error[1], error[2])
+        if (errorStatus != error[3]) {
+            println("Unexpected status of " + error[0] + " " + error[1] + ": " + errorStatus + " - "
+                    + new String(errorData))
+            return false
+        }
+    }
+} finally {
+    server.close()
+}
+
+return true
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.util.jar.JarFile
+
+def entries(name) {
+    def result = [:]
+    new File(basedir, "target/" + name).eachFileMatch(~/.*\.properties/) { file ->
+        def p = new Properties()
+        file.withInputStream { p.load(it) }
+        if (p.getProperty("bsn") != null) {
+            result[p.getProperty("bsn")] = p
+        }
+    }
+    return result
+}
+
+def scanned = entries("cache1")
+def fingerprinted = entries("cache2")
+
+if (scanned.size() != 2 || fingerprinted.size() != 2) {
+    println("Unexpected cache entries: " + scanned.keySet() + " / " + fingerprinted.keySet())
+    return false
+}
+
+// nothing required the digests in the first build
+
+if (scanned.values().any { it.getProperty("digest") != null || it.getProperty("crc") != null }) {
+    println("Digests calculated while scanning: " + scanned)
+    return false
+}
+
+if (fingerprinted.values().any { it.getProperty("digest") == null || it.getProperty("crc") == null }) {
+    println("Digests not added to the cache: " + fingerprinted)
+    return false
+}
+
+// reading all entries checks the CRCs calculated while writing
+
+def jar = new JarFile(new File(basedir, "target/test21_1.0.0.dp"))
+try {
+    def names = jar.entries().collect { entry ->
+        jar.getInputStream(entry).bytes
+        entry.name
+    }
+    if (names != ["META-INF/MANIFEST.MF", "slf4j.api_1.7.21.jar", "ch.qos.logback.classic_1.1.7.jar"]) {
+        println("Unexpected entries: " + names)
+        return false
+    }
+} finally {
+    jar.close()
+}
+
+// the metrics report is only written if requested
+
+if (new File(basedir, "target/osgi-dp-metrics.json").exists()) {
+    println("Unexpected metrics report")
+    return false
+}
+
+return true
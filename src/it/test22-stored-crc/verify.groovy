@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.jar.JarFile
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+
+import de.dentrassi.maven.osgi.dp.internal.JarWriter
+
+def content = new byte[200000]
+new Random(22).nextBytes(content)
+
+def file = new File(basedir, "target/bundle.jar")
+file.parentFile.mkdirs()
+file.bytes = content
+
+def crc = new CRC32()
+crc.update(content)
+
+def write(out, name, expected) {
+    new JarWriter(FileChannel.open(out.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)).withCloseable { jar ->
+        jar.addFile(name, new File(basedir, "target/bundle.jar").toPath(), 200000, expected, ZipEntry.STORED, 0L)
+    }
+}
+
+// a matching CRC, and an unknown one, which gets calculated
+
+for (expected in [crc.value, -1L]) {
+    def out = new File(basedir, "target/good.jar")
+    write(out, "bundle.jar", expected)
+    def jar = new JarFile(out)
+    try {
+        if (!Arrays.equals(jar.getInputStream(jar.getEntry("bundle.jar")).bytes, content)) {
+            println("Unexpected content for CRC " + expected)
+            return false
+        }
+    } finally {
+        jar.close()
+    }
+}
+
+// the same size, but a different content than scanned
+
+try {
+    write(new File(basedir, "target/bad.jar"), "bundle.jar", crc.value ^ 1)
+    println("Changed content not detected")
+    return false
+} catch (IOException e) {
+    if (!e.message.contains("changed while building the DP")) {
+        println("Unexpected error: " + e)
+        return false
+    }
+}
+
+return true
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.util.jar.JarFile
+
+def jar = new JarFile(new File(basedir, "target/test23_2.0.0.dp"))
+try {
+    def mf = jar.manifest
+
+    // both versions of the bundle are unchanged, so none must be contained
+
+    def names = jar.entries().collect { it.name } - "META-INF/MANIFEST.MF"
+    if (!names.isEmpty()) {
+        println("Unexpected entries: " + names)
+        return false
+    }
+
+    def marked = mf.entries.findAll { it.value.getValue("DeploymentPackage-Missing") == "true" }.keySet().sort()
+    if (marked != ["slf4j.api_1.7.20.jar", "slf4j.api_1.7.21.jar"]) {
+        println("Unexpected missing bundles: " + marked)
+        return false
+    }
+} finally {
+    jar.close()
+}
+
+return true
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+import java.util.jar.JarFile
+import java.util.zip.ZipInputStream
+
+def dp = new File(basedir, "target/test24_1.0.0.dp")
+
+// the signature files follow the manifest, before any bundle
+
+def names = []
+def zin = new ZipInputStream(new FileInputStream(dp))
+try {
+    def entry
+    while ((entry = zin.nextEntry) != null) {
+        names << entry.name
+    }
+} finally {
+    zin.close()
+}
+
+println("Entries: " + names)
+
+if (names.take(3) != ["META-INF/MANIFEST.MF", "META-INF/SIGNER.SF", "META-INF/SIGNER.EC"]) {
+    println("Unexpected order of the entries")
+    return false
+}
+
+// the signer info uses ecdsa-with-SHA256 without parameters, followed by the signature
+
+def block = new JarFile(dp).withCloseable { it.getInputStream(it.getJarEntry("META-INF/SIGNER.EC")).bytes }
+def algorithm = [0x30, 0x0A, 0x06, 0x08, 0x2A, 0x86, 0x48, 0xCE, 0x3D, 0x04, 0x03, 0x02] as byte[]
+def tail = (block.length - 2..algorithm.length).find {
+    block[it] == 0x04 && (block[it + 1] & 0xFF) == block.length - it - 2
+}
+
+if (tail == null || Arrays.copyOfRange(block, tail - algorithm.length, tail) != algorithm) {
+    println("Unexpected signature algorithm")
+    return false
+}
+
+// all bundles are signed
+
+def jar = new JarFile(dp, true)
+try {
+    for (def name : ["slf4j.api_1.7.21.jar", "ch.qos.logback.classic_1.1.7.jar"]) {
+        def entry = jar.getJarEntry(name)
+        if (entry == null) {
+            println("Missing bundle: " + name)
+            return false
+        }
+
+        // the signature is verified while reading the entry
+        def in = jar.getInputStream(entry)
+        try {
+            in.bytes
+        } finally {
+            in.close()
+        }
+
+        def signers = entry.codeSigners
+        if (signers == null || signers.length != 1) {
+            println("Bundle not signed: " + name)
+            return false
+        }
+        def subject = signers[0].signerCertPath.certificates[0].subjectX500Principal.name
+        if (subject != "CN=osgi-dp test") {
+            println("Unexpected signer: " + subject)
+            return false
+        }
+    }
+} finally {
+    jar.close()
+}
+
+// and the JDK tool agrees
+
+def jarsigner = new File(System.getProperty("java.home"), "bin/jarsigner").absolutePath
+def process = [jarsigner, "-verify", dp.absolutePath].execute()
+def output = process.text
+process.waitFor()
+
+println(output)
+
+if (!output.contains("jar verified.")) {
+    println("DP not verified by jarsigner")
+    return false
+}
+
+return true
@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+
+def log = new File(basedir, "build.log").text
+
+for (def level : ["-1", "10"]) {
+    if (!log.contains("Invalid compression level: " + level + ", must be from 0 to 9")) {
+        println("Compression level not rejected: " + level)
+        return false
+    }
+}
+
+if (!new File(basedir, "target/test25_0.0.1-SNAPSHOT.dp").isFile()) {
+    println("DP not built with the default compression level")
+    return false
+}
+
+return true
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+def dp = new File(basedir, "target/test6_0.0.1.dp")
+if (!dp.isFile()) {
+    println("Missing DP: " + dp)
+    return false
+}
+
+if (!new File(basedir, "target/test6_0.0.1.dp.fingerprint").isFile()) {
+    println("Missing fingerprint")
+    return false
+}
+
+def metrics = new File(basedir, "target/osgi-dp-metrics.json")
+if (!metrics.isFile()) {
+    println("Missing metrics report")
+    return false
+}
+
+def report = new groovy.json.JsonSlurper().parse(metrics)
+if (!report.upToDate || report.bundles.size() != 1 || report.phases.scanMillis == null) {
+    println("Unexpected metrics report: " + metrics.text)
+    return false
+}
+
+def log = new File(basedir, "build.log").text
+
+def written = log.count("Writing to: ")
+def upToDate = log.count("DP is up to date: ")
+
+println("Written: " + written + ", up to date: " + upToDate)
+
+return written == 1 && upToDate == 1;
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+def expected = [
+    "test7-dp1": [ "slf4j.api_1.7.21.jar" ],
+    "test7-dp2": [ "ch.qos.logback.classic_1.1.7.jar" ],
+    "test7-dp3": [ "slf4j.api_1.7.21.jar", "ch.qos.logback.core_1.1.7.jar" ],
+    "test7-dp4": [ "slf4j.api_1.7.21.jar", "ch.qos.logback.classic_1.1.7.jar", "ch.qos.logback.core_1.1.7.jar" ]
+]
+
+def log = new File(basedir, "build.log").text
+
+if (log.contains("not marked as @threadSafe") && log.contains("de.dentrassi.maven:osgi-dp")) {
+    println("Mojos are not marked thread safe")
+    return false
+}
+
+def result = true
+
+expected.each { module, bundles ->
+    def zipFile = new java.util.zip.ZipFile(new File(basedir, module + "/target/" + module + "_1.0.0.dp"))
+    try {
+        def entries = zipFile.entries().collect { it.name }.toSet()
+        def manifest = new java.util.jar.JarFile(new File(basedir, module + "/target/" + module + "_1.0.0.dp")).manifest
+
+        println(module + ": " + entries)
+
+        if (entries != (["META-INF/MANIFEST.MF"] + bundles).toSet()) {
+            result = false
+        }
+        if (manifest.entries.keySet() != bundles.toSet()) {
+            result = false
+        }
+        if (manifest.mainAttributes.getValue("DeploymentPackage-SymbolicName") != module) {
+            result = false
+        }
+
+        // check the content of each bundle
+        bundles.each { name ->
+            def entry = zipFile.getEntry(name)
+            def jar = new java.util.jar.JarInputStream(zipFile.getInputStream(entry))
+            try {
+                if (!name.startsWith(jar.manifest.mainAttributes.getValue("Bundle-SymbolicName").split(";")[0] + "_")) {
+                    println("Unexpected content: " + name)
+                    result = false
+                }
+            } finally {
+                jar.close()
+            }
+        }
+    } finally {
+        zipFile.close()
+    }
+}
+
+return result;
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+import java.util.jar.JarFile
+
+def target = new File(basedir, "target")
+
+if (!new File(target, "test8_1.0.0.dp").isFile()) {
+    println("Missing DP")
+    return false
+}
+
+def index = new groovy.json.JsonSlurper().parse(new File(target, "test8_1.0.0-parts.json"))
+println("Index: " + index)
+
+if (index.parts.size() != 2) {
+    println("Expected two parts")
+    return false
+}
+
+// providers come first, the cycle between slf4j and logback classic stays together
+
+if (index.parts[0].bundles != ["ch.qos.logback.core_1.1.7.jar"]
+        || index.parts[1].bundles != ["ch.qos.logback.classic_1.1.7.jar", "slf4j.api_1.7.21.jar"]) {
+    println("Unexpected bundle order")
+    return false
+}
+
+def part1 = new JarFile(new File(target, "test8_1.0.0-part01.dp"))
+def part2 = new JarFile(new File(target, "test8_1.0.0-part02.dp"))
+
+def mf1 = part1.manifest
+def mf2 = part2.manifest
+
+if (mf1.mainAttributes.getValue("DeploymentPackage-Version") != "1.0.0.part01"
+        || mf1.mainAttributes.getValue("DeploymentPackage-FixPack") != null) {
+    println("Unexpected main section of part 1")
+    return false
+}
+
+if (mf2.mainAttributes.getValue("DeploymentPackage-Version") != "1.0.0.part02"
+        || mf2.mainAttributes.getValue("DeploymentPackage-FixPack") != "[1.0.0.part01,1.0.0.part01]") {
+    println("Unexpected main section of part 2")
+    return false
+}
+
+if (mf2.getAttributes("ch.qos.logback.core_1.1.7.jar")?.getValue("DeploymentPackage-Missing") != "true"
+        || part2.getEntry("ch.qos.logback.core_1.1.7.jar") != null
+        || part2.getEntry("slf4j.api_1.7.21.jar") == null) {
+    println("Unexpected content of part 2")
+    return false
+}
+
+for (def part : index.parts) {
+    def file = new File(target, part.file)
+    if (file.length() > 500000 || file.length() != part.bytes) {
+        println("Unexpected size of " + file)
+        return false
+    }
+}
+
+part1.close()
+part2.close()
+
+return true
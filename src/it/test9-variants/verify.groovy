@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+
+import java.util.jar.JarFile
+
+def target = new File(basedir, "target")
+
+def bundles(file) {
+    def jar = new JarFile(file)
+    try {
+        return jar.entries().collect { it.name }.findAll { it != "META-INF/MANIFEST.MF" }.toSet()
+    } finally {
+        jar.close()
+    }
+}
+
+def full = bundles(new File(target, "test9_1.0.0.dp"))
+def logging = bundles(new File(target, "test9_1.0.0-logging.dp"))
+def api = bundles(new File(target, "test9_1.0.0-api.dp"))
+
+println("Full: " + full)
+println("Logging: " + logging)
+println("API: " + api)
+
+if (full != ["ch.qos.logback.classic_1.1.7.jar", "ch.qos.logback.core_1.1.7.jar", "slf4j.api_1.7.21.jar"].toSet()) {
+    println("Unexpected content of the DP")
+    return false
+}
+
+if (logging != ["ch.qos.logback.core_1.1.7.jar"].toSet()) {
+    println("Unexpected content of the logging variant")
+    return false
+}
+
+if (api != ["slf4j.api_1.7.21.jar"].toSet()) {
+    println("Unexpected content of the API variant")
+    return false
+}
+
+def mf = new JarFile(new File(target, "test9_1.0.0-api.dp")).manifest.mainAttributes
+if (mf.getValue("DeploymentPackage-SymbolicName") != "test9.api" || mf.getValue("DeploymentPackage-Version") != "1.0.0") {
+    println("Unexpected manifest of the API variant")
+    return false
+}
+
+// all bundles are only scanned once
+
+def log = new File(basedir, "build.log").text
+if (log.count("Added: ") != 3) {
+    println("Bundles were scanned more than once")
+    return false
+}
+
+// the variants are attached using their classifier
+
+def repo = new File(basedir, "../../local-repo/test9/test9/1.0.0")
+for (classifier in ["logging", "api"]) {
+    if (!new File(repo, "test9-1.0.0-" + classifier + ".dp").isFile()) {
+        println("Variant not installed: " + classifier)
+        return false
+    }
+}
+
+return true
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Jens Reimann
+ * Copyright (c) 2016, 2026 Jens Reimann and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,24 +8,51 @@
  * Contributors:
  *     Jens Reimann <jreimann@redhat.com> - initial API and implementation
  *     Cristiano De Alti <cristiano.dealti@eurotech.com>
+ *     agent <agent@local>
  *******************************************************************************/
 package de.dentrassi.maven.osgi.dp;
 
 import static java.lang.String.format;
 
-import com.google.common.io.ByteStreams;
-import de.dentrassi.maven.osgi.dp.internal.ArtifactWalker;
+import de.dentrassi.maven.osgi.dp.builder.ArtifactWalker;
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+import de.dentrassi.maven.osgi.dp.builder.ConflictPolicy;
+import de.dentrassi.maven.osgi.dp.builder.DpBuilder;
+import de.dentrassi.maven.osgi.dp.builder.DpPart;
+import de.dentrassi.maven.osgi.dp.builder.EntryCompression;
+import de.dentrassi.maven.osgi.dp.builder.PreparedDp;
+import de.dentrassi.maven.osgi.dp.builder.Signing;
+import de.dentrassi.maven.osgi.dp.builder.Slimming;
+import de.dentrassi.maven.osgi.dp.internal.BuildMetrics;
+import de.dentrassi.maven.osgi.dp.internal.DigestChannel;
+import de.dentrassi.maven.osgi.dp.internal.Digests;
+import de.dentrassi.maven.osgi.dp.internal.Fingerprint;
+import de.dentrassi.maven.osgi.dp.internal.JsonWriter;
+import de.dentrassi.maven.osgi.dp.internal.MavenBuildLog;
 import de.dentrassi.maven.osgi.dp.internal.ProjectWalker;
+import de.dentrassi.maven.osgi.dp.internal.ResolutionCheck;
 import de.dentrassi.maven.osgi.dp.internal.TychoWalker;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.cert.CertificateEncodingException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -33,12 +60,13 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
-import java.util.jar.Attributes;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-import java.util.jar.JarOutputStream;
-import java.util.jar.Manifest;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.AbstractMojo;
@@ -64,6 +92,11 @@ import org.osgi.framework.Version;
 
 public abstract class AbstractDpMojo extends AbstractMojo {
 
+    /**
+     * The default timestamp for reproducible builds: 1980-01-01T00:00:02Z
+     */
+    private static final long DEFAULT_REPRODUCIBLE_TIMESTAMP = 315532802000L;
+
     /**
      * The maven project
      */
@@ -104,7 +137,8 @@ public abstract class AbstractDpMojo extends AbstractMojo {
     @Component
     protected MavenProjectHelper projectHelper;
 
-    private final Set<String> tychoWalkerProjects = new HashSet<>(Arrays.asList("eclipse-feature"));
+    private static final Set<String> TYCHO_WALKER_PROJECTS = Collections
+            .unmodifiableSet(new HashSet<>(Arrays.asList("eclipse-feature")));
 
     @Component(role = TychoProject.class)
     private Map<String, TychoProject> projectTypes;
@@ -131,6 +165,439 @@ public abstract class AbstractDpMojo extends AbstractMojo {
     @Parameter(property = "versionPartsSubstitutions")
     private Properties versionPartsSubstitutions;
 
+    /**
+     * The number of threads used for reading the bundle manifests
+     * <p>
+     * A value of zero or less will use the number of available processors.
+     * The order of the entries in the resulting DP does not depend on this
+     * setting.
+     * </p>
+     */
+    @Parameter(defaultValue = "0", property = "osgi-dp.scanThreads")
+    protected int scanThreads;
+
+    /**
+     * Whether or not to share the bundles of included features between
+     * executions in the same build
+     * <p>
+     * When enabled, included features of Tycho features are only traversed
+     * once per build, and later executions reuse the result. Features are
+     * identified by ID, version and location, together with the target
+     * environments and the resolved target platform of the project.
+     * </p>
+     */
+    @Parameter(defaultValue = "true", property = "osgi-dp.featureCache")
+    protected boolean shareFeatureWalk = true;
+
+    /**
+     * Whether or not to cache the metadata of bundles
+     * <p>
+     * Cached entries are only used when path, size and last modification
+     * timestamp of the bundle file did not change.
+     * </p>
+     */
+    @Parameter(defaultValue = "true", property = "osgi-dp.metadataCache")
+    protected boolean useMetadataCache = true;
+
+    /**
+     * The location of the bundle metadata cache
+     * <p>
+     * The cache may be shared between projects and concurrent builds, e.g. by
+     * pointing to a location in the user's home directory.
+     * </p>
+     */
+    @Parameter(defaultValue = "${project.build.directory}/osgi-dp-cache", property = "osgi-dp.metadataCacheDirectory")
+    protected File metadataCacheDirectory;
+
+    /**
+     * Whether or not to verify the content digest of a bundle before using a
+     * cached entry
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.metadataCacheVerify")
+    protected boolean verifyMetadataCache = false;
+
+    /**
+     * Whether or not to skip writing the DP when all inputs are unchanged
+     * <p>
+     * A fingerprint of the bundles, their content, the DP manifest and the
+     * plugin configuration is stored next to the DP. If a later build results
+     * in the same fingerprint, the existing DP is kept and only attached again.
+     * </p>
+     */
+    @Parameter(defaultValue = "true", property = "osgi-dp.incremental")
+    protected boolean incremental = true;
+
+    /**
+     * Whether or not to update an existing DP, instead of writing it from
+     * scratch
+     * <p>
+     * Bundles which are unchanged since the previous build are copied from
+     * the existing DP, without compressing them again. Only the manifest and
+     * the changed bundles get written. This is intended for a fast turnaround
+     * during development. The compression settings are recorded next to the
+     * DP. If they changed, or are unknown, the DP is written from scratch.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.update")
+    protected boolean update = false;
+
+    /**
+     * The compression of the bundle entries in the DP
+     * <p>
+     * Bundles are JAR files, and so already compressed. Using {@code STORED}
+     * saves the effort of compressing them again, and of decompressing them
+     * on the target device. {@code AUTO} will only store those bundles which
+     * don't compress well. {@code DEFLATED} compresses all entries.
+     * </p>
+     */
+    @Parameter(defaultValue = "DEFLATED", property = "osgi-dp.compression")
+    protected EntryCompression compression = EntryCompression.DEFLATED;
+
+    /**
+     * The deflate level for compressed entries, from 0 to 9
+     * <p>
+     * The default level of 6 is the default level of the deflater.
+     * </p>
+     */
+    @Parameter(defaultValue = "6", property = "osgi-dp.compressionLevel")
+    protected int compressionLevel = 6;
+
+    /**
+     * The number of threads preparing bundle entries while the DP is written
+     * <p>
+     * Worker threads read and deflate the upcoming entries, while the DP gets
+     * written. A value of zero or less will use the number of available
+     * processors, a value of one disables preparing entries in parallel. The
+     * resulting DP does not depend on this setting.
+     * </p>
+     */
+    @Parameter(defaultValue = "0", property = "osgi-dp.writeThreads")
+    protected int writeThreads;
+
+    /**
+     * The maximum number of bytes used for buffering prepared entries
+     * <p>
+     * Bundles which are larger than this budget are written without being
+     * prepared in parallel.
+     * </p>
+     */
+    @Parameter(defaultValue = "67108864", property = "osgi-dp.writeBudget")
+    protected long writeBudget = 64L * 1024L * 1024L;
+
+    /**
+     * The maximum size of a part, in bytes, when splitting the DP
+     * <p>
+     * If set to a value greater than zero, the bundles of the DP are written
+     * into several parts, none of which exceeds this size, instead of a
+     * single DP. The first part is a complete DP, every following part is a
+     * fix-pack for the previous part. Bundles are placed after the bundles
+     * they import packages from or require, where possible. An index file
+     * lists the parts in install order.
+     * </p>
+     */
+    @Parameter(defaultValue = "0", property = "osgi-dp.splitSize")
+    protected long splitSize;
+
+    /**
+     * Whether or not to write the complete DP as well, when splitting the DP
+     * into parts
+     * <p>
+     * This reads and compresses every bundle twice. With the packaging type
+     * {@code dp}, the complete DP is always written, as it is the main
+     * artifact of the project.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.splitKeepFull")
+    protected boolean splitKeepFull;
+
+    /**
+     * A previous DP which is used as baseline for building a fix-pack
+     * <p>
+     * If a baseline is set, the resulting DP will be a fix-pack, which can
+     * only be applied to the baseline. Bundles which are contained in the
+     * baseline, with the same symbolic name, version and content, will only
+     * be listed in the manifest as missing, but not included in the DP.
+     * </p>
+     */
+    @Parameter(property = "osgi-dp.baseline")
+    protected File baseline;
+
+    /**
+     * The Maven coordinates of a previous DP which is used as baseline for
+     * building a fix-pack
+     * <p>
+     * The format is {@code groupId:artifactId:version}, or
+     * {@code groupId:artifactId:extension[:classifier]:version}. The
+     * extension defaults to {@code dp}. This is ignored if
+     * {@link #baseline} is set.
+     * </p>
+     */
+    @Parameter(property = "osgi-dp.baselineArtifact")
+    protected String baselineArtifact;
+
+    /**
+     * Whether or not to build a reproducible DP
+     * <p>
+     * In reproducible mode all entries of the DP get the same timestamp, and
+     * the {@code -SNAPSHOT} suffix of the version will be replaced with this
+     * timestamp instead of the build time. The timestamp is taken from
+     * {@link #outputTimestamp} and defaults to 1980-01-01T00:00:02Z.
+     * </p>
+     * <p>
+     * Reproducible mode is also active when {@link #outputTimestamp} is set.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.reproducible")
+    protected boolean reproducible = false;
+
+    /**
+     * The timestamp for reproducible output
+     * <p>
+     * Either in ISO 8601 format, or as number of seconds since the epoch.
+     * </p>
+     */
+    @Parameter(defaultValue = "${project.build.outputTimestamp}")
+    protected String outputTimestamp;
+
+    /**
+     * Whether or not to replace the {@code -SNAPSHOT} suffix of the version
+     * with a hash of the content of the DP
+     * <p>
+     * The DP will get the same version as long as the set of bundles and
+     * their content does not change. Note that such qualifiers do not
+     * increase from build to build.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.contentQualifier")
+    protected boolean contentQualifier = false;
+
+    /**
+     * Whether or not to add the SHA-256 digest of each bundle to the DP
+     * manifest
+     * <p>
+     * The digest will be added as {@code SHA-256-Digest} attribute to the
+     * section of each bundle, as defined by the JAR file specification.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.digests")
+    protected boolean includeDigests = false;
+
+    /**
+     * Whether or not to write a SHA-256 checksum file of the DP
+     * <p>
+     * The checksum file is written next to the DP, using the extension
+     * {@code .sha256}, in the format of the {@code sha256sum} tool. The
+     * checksum is calculated while writing the DP.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.checksumFile")
+    protected boolean writeChecksumFile = false;
+
+    /**
+     * Whether or not to write a report with timing and size metrics of the
+     * build
+     * <p>
+     * The report contains the time spent in each phase of the build, as well
+     * as size and time for each bundle. If enabled, a summary is logged as
+     * well, otherwise the summary is only logged at debug level.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.metrics")
+    protected boolean writeMetrics = false;
+
+    /**
+     * The location of the metrics report
+     */
+    @Parameter(defaultValue = "${project.build.directory}/osgi-dp-metrics.json", property = "osgi-dp.metricsFile")
+    protected File metricsFile;
+
+    /**
+     * Additional variants of the DP, each containing a subset of the bundles
+     * <p>
+     * All variants share the collected and scanned bundles of the DP. They
+     * are written at the same time as the DP, next to it, and attached using
+     * their classifier. Bundles can be selected by symbolic name, using
+     * {@code includes} and {@code excludes}, or by Maven group ID, using
+     * {@code includeGroups} and {@code excludeGroups}. Variants are never
+     * fix-packs, and are not split.
+     * </p>
+     */
+    @Parameter
+    protected Variant[] variants;
+
+    /**
+     * Whether or not to write an OSGi repository index of the DP
+     * <p>
+     * The index is an R5 {@code index.xml}, describing the identity,
+     * capabilities and requirements of each bundle of the DP. It is created
+     * from the metadata collected while scanning the bundles, without reading
+     * the bundles again, and is attached using the classifier {@code index}.
+     * Variants get an index too, using their classifier, followed by
+     * {@code -index}.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.index")
+    protected boolean writeIndex = false;
+
+    /**
+     * Whether or not to compress the repository index using GZIP
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.indexCompressed")
+    protected boolean indexCompressed = false;
+
+    /**
+     * How to handle several versions of a bundle with the same symbolic name
+     * <p>
+     * Bundles found several times, e.g. by the feature walk and by
+     * additional dependencies, are always only read and added once. Bundles
+     * with the same symbolic name, but different versions, can be reduced
+     * to the highest version ({@code HIGHEST}), fail the build
+     * ({@code FAIL}), or all be added ({@code KEEP_ALL}). Bundles with the
+     * same symbolic name and version, but different content, fail the build
+     * in mode {@code FAIL}, otherwise the last one is kept, at the position
+     * of the first one.
+     * </p>
+     */
+    @Parameter(defaultValue = "KEEP_ALL", property = "osgi-dp.conflictPolicy")
+    protected ConflictPolicy conflictPolicy = ConflictPolicy.KEEP_ALL;
+
+    /**
+     * Whether or not to check that the bundles of the DP can be resolved
+     * <p>
+     * The check looks up each mandatory {@code Import-Package},
+     * {@code Require-Bundle} and {@code Fragment-Host} requirement in an
+     * index of the bundles of the DP, the target platform and the system
+     * packages. Unresolved requirements are logged, and fail the build in
+     * mode {@code FAIL}. Possible values are {@code SKIP}, {@code WARN} and
+     * {@code FAIL}.
+     * </p>
+     */
+    @Parameter(defaultValue = "SKIP", property = "osgi-dp.resolve")
+    protected ResolutionCheck.Mode resolve = ResolutionCheck.Mode.SKIP;
+
+    /**
+     * The bundles which are already installed on the target, for the
+     * resolution check
+     * <p>
+     * Each entry may be a bundle, a directory containing bundles, or an OSGi
+     * repository index ({@code .xml} or {@code .xml.gz}), like the index of a
+     * previous DP.
+     * </p>
+     */
+    @Parameter
+    protected File[] targetPlatform;
+
+    /**
+     * The packages exported by the system bundle of the target, for the
+     * resolution check
+     * <p>
+     * The packages use the syntax of the {@code Export-Package} header. A
+     * package ending with {@code .*}, like {@code javax.*}, matches all
+     * packages starting with the prefix.
+     * </p>
+     */
+    @Parameter(property = "osgi-dp.systemPackages")
+    protected String systemPackages;
+
+    /**
+     * Whether or not to slim the bundles before adding them to the DP
+     * <p>
+     * Slimming removes the entries matching {@link #slimExcludes},
+     * recompresses all other entries using {@link #slimCompressionLevel}, and
+     * optionally normalizes their timestamps. Signed bundles are added
+     * unchanged, as are bundles which would not get smaller. The slimmed
+     * bundles are cached in the directory {@code slim} of the
+     * {@link #metadataCacheDirectory}, by the digest of the original bundle.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.slim")
+    protected boolean slim = false;
+
+    /**
+     * The patterns of entries to remove when slimming
+     * <p>
+     * Patterns may use {@code *}, matching within a path segment,
+     * {@code **}, matching across segments, and {@code ?} as wildcards.
+     * Defaults to {@code META-INF/maven/**} and {@code OSGI-OPT/src/**}.
+     * </p>
+     */
+    @Parameter(property = "osgi-dp.slimExcludes")
+    protected String[] slimExcludes;
+
+    /**
+     * The deflate level for the entries of slimmed bundles, from 0 to 9
+     */
+    @Parameter(defaultValue = "9", property = "osgi-dp.slimCompressionLevel")
+    protected int slimCompressionLevel = Deflater.BEST_COMPRESSION;
+
+    /**
+     * Whether or not to set the timestamps of the entries of slimmed bundles
+     * to the reproducible timestamp, or a fixed timestamp if there is none
+     */
+    @Parameter(defaultValue = "true", property = "osgi-dp.slimNormalizeTimestamps")
+    protected boolean slimNormalizeTimestamps = true;
+
+    /**
+     * Whether or not to sign the DP
+     * <p>
+     * The DP is signed while it gets written, using the key {@link #alias}
+     * from the {@link #keystore}. The signature file and the signature block
+     * are written right after the manifest, as required by the OSGi
+     * deployment admin specification. Signing implies
+     * {@link #includeDigests}, parts and variants are signed as well.
+     * </p>
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.sign")
+    protected boolean sign = false;
+
+    /**
+     * The keystore containing the signing key
+     */
+    @Parameter(property = "osgi-dp.keystore")
+    protected File keystore;
+
+    /**
+     * The type of the keystore, defaults to the default type of the JRE
+     */
+    @Parameter(property = "osgi-dp.storetype")
+    protected String storetype;
+
+    /**
+     * The password of the keystore
+     */
+    @Parameter(property = "osgi-dp.storepass")
+    protected String storepass;
+
+    /**
+     * The alias of the signing key
+     */
+    @Parameter(property = "osgi-dp.alias")
+    protected String alias;
+
+    /**
+     * The password of the signing key, defaults to the password of the
+     * keystore
+     */
+    @Parameter(property = "osgi-dp.keypass")
+    protected String keypass;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    private BuildMetrics metrics = new BuildMetrics();
+
+    private Signing signing;
+
+    /**
+     * The bundle candidates of the last execution
+     */
+    private List<Path> inputs = Collections.emptyList();
+
+    /**
+     * The Maven group IDs of the candidates, where known
+     */
+    private final Map<Path, String> groupIds = new HashMap<>();
+
     public AbstractDpMojo() {
         super();
     }
@@ -138,7 +605,7 @@ public abstract class AbstractDpMojo extends AbstractMojo {
     protected ArtifactWalker lookupDependencyWalker() {
         final String packaging = this.project.getPackaging();
 
-        if (!this.tychoWalkerProjects.contains(packaging)) {
+        if (!TYCHO_WALKER_PROJECTS.contains(packaging)) {
             return new ProjectWalker(this.project);
         }
 
@@ -147,7 +614,14 @@ public abstract class AbstractDpMojo extends AbstractMojo {
             throw new IllegalStateException(format("Unknown packaging '%s'", packaging));
         }
 
-        return new TychoWalker(facet.getDependencyWalker(this.project), getLog());
+        final String platformKey = this.shareFeatureWalk ? TychoWalker.platformKey(this.project) : null;
+        if (this.shareFeatureWalk && platformKey == null) {
+            getLog().debug("Target platform not resolved, not sharing the feature walk");
+        }
+
+        return new TychoWalker(facet.getDependencyWalker(this.project),
+                platformKey != null ? TychoWalker.sessionCache(this.repositorySession) : null, platformKey,
+                getLog());
     }
 
     public void setVersion(final String version) {
@@ -160,67 +634,695 @@ public abstract class AbstractDpMojo extends AbstractMojo {
             return;
         }
 
-        final String dpVersion = makeVersion(true);
+        if (this.compressionLevel < 0 || this.compressionLevel > 9) {
+            throw new MojoExecutionException(
+                    format("Invalid compression level: %s, must be from 0 to 9", this.compressionLevel));
+        }
+        if (this.slimCompressionLevel < 0 || this.slimCompressionLevel > 9) {
+            throw new MojoExecutionException(
+                    format("Invalid slim compression level: %s, must be from 0 to 9", this.slimCompressionLevel));
+        }
+
+        this.metrics = new BuildMetrics();
+        this.groupIds.clear();
+
+        final Long timestamp = makeReproducibleTimestamp();
+
+        try {
+            this.signing = makeSigning();
+
+            final List<Path> candidates = new ArrayList<>();
+
+            long start = System.nanoTime();
+            fillFromDependencies(candidates);
+            this.metrics.phase("collect", start);
+
+            this.inputs = Collections.unmodifiableList(candidates);
+
+            final DpBuilder builder = new DpBuilder(this.project.getArtifactId())
+                    .log(new MavenBuildLog(getLog()))
+                    .scanThreads(this.scanThreads)
+                    .metadataCache(this.useMetadataCache ? this.metadataCacheDirectory.toPath() : null,
+                            this.verifyMetadataCache)
+                    .compression(this.compression)
+                    .compressionLevel(this.compressionLevel)
+                    .writeThreads(this.writeThreads)
+                    .writeBudget(this.writeBudget)
+                    .timestamp(timestamp)
+                    .includeDigests(this.includeDigests)
+                    .conflictPolicy(this.conflictPolicy)
+                    .slimming(makeSlimming())
+                    .signing(this.signing)
+                    .bundles(candidates);
+
+            start = System.nanoTime();
+            try (PreparedDp dp = builder.prepare()) {
+                this.metrics.phase("scan", start);
+                build(dp, timestamp);
+            }
+
+        } catch (final IOException e) {
+            throw new MojoFailureException("Failed to process", e);
+        }
+    }
+
+    private Slimming makeSlimming() {
+        if (!this.slim) {
+            return null;
+        }
+
+        final Slimming result = new Slimming(new File(this.metadataCacheDirectory, "slim").toPath())
+                .level(this.slimCompressionLevel)
+                .normalizeTimestamps(this.slimNormalizeTimestamps);
+        if (this.slimExcludes != null && this.slimExcludes.length > 0) {
+            result.excludes(Arrays.asList(this.slimExcludes));
+        }
+        return result;
+    }
+
+    private Signing makeSigning() throws IOException, MojoExecutionException {
+        if (!this.sign) {
+            return null;
+        }
+
+        if (this.keystore == null || this.alias == null) {
+            throw new MojoExecutionException("Signing requires a 'keystore' and an 'alias'");
+        }
+
+        final Signing result = Signing.load(this.keystore.toPath(), this.storetype,
+                this.storepass != null ? this.storepass.toCharArray() : null, this.alias,
+                this.keypass != null ? this.keypass.toCharArray() : null);
+
+        getLog().info(format("Signing with: %s", result.getChain().get(0).getSubjectX500Principal()));
+
+        return result;
+    }
+
+    private void build(final PreparedDp dp, final Long timestamp) throws IOException, MojoExecutionException {
+        for (final Map.Entry<String, BundleInfo> entry : dp.getBundles().entrySet()) {
+            this.metrics.bundle(entry.getKey(), entry.getValue(), dp.getScanNanos(entry.getKey()));
+            this.metrics.slimmed(entry.getKey(), dp.getSavedBytes(entry.getKey()));
+        }
+
+        checkResolution(dp.getBundles().values());
+
+        long start = System.nanoTime();
+
+        // select the bundles of the variants, before the DP gets turned into a fix-pack
+        final List<VariantOutput> variants = makeVariants(dp, timestamp);
+
+        final String dpVersion = makeVersion(true, timestamp, dp);
 
         getLog().info("Building DP - Version: " + dpVersion);
 
-        final Manifest dpmf = new Manifest();
-        dpmf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1");
-        dpmf.getMainAttributes().putValue("DeploymentPackage-SymbolicName", this.project.getArtifactId());
-        dpmf.getMainAttributes().putValue("DeploymentPackage-Version", dpVersion);
+        dp.setVersion(dpVersion);
+
+        final Path baselineLocation = resolveBaseline();
+        if (baselineLocation != null) {
+            dp.applyBaseline(baselineLocation);
+        }
+
+        final byte[] manifest = dp.getManifestBytes();
+
+        final String dpName = String.format("%s_%s.dp", this.project.getArtifactId(),
+                makeVersion(false, timestamp, dp));
+        final Path out = Paths.get(this.project.getBuild().getDirectory(), dpName);
+
+        final SplitParts parts = this.splitSize > 0 ? new SplitParts(out, dp.split(this.splitSize)) : null;
+
+        // the parts replace the complete DP, unless it is required as well
+        final boolean full = parts == null || this.splitKeepFull || isFullDpRequired();
+        final Path fingerprinted = full ? out : parts.index;
+        this.metrics.setOutput(full ? out : null, dpVersion);
+
+        // an update requires the compression settings, which are stored with the fingerprint
+        final Fingerprint fingerprint = this.incremental || this.update
+                ? makeFingerprint(manifest, timestamp, dp.getBundles()) : null;
+
+        this.metrics.phase("manifest", start);
+
+        final Map<String, Path> indexes = new LinkedHashMap<>();
+
+        final ExecutorService executor = variants.isEmpty() ? null
+                : Executors.newFixedThreadPool(Math.min(variants.size(), Runtime.getRuntime().availableProcessors()),
+                        new ThreadFactoryBuilder().setNameFormat("osgi-dp-variant-%d").setDaemon(true).build());
 
         try {
-            final Map<String, File> files = new LinkedHashMap<>();
+            // write the variants in the background, while writing the DP
+            final List<Future<?>> futures = new ArrayList<>(variants.size());
+            for (final VariantOutput variant : variants) {
+                if (variant.isUpToDate()) {
+                    getLog().info(format("Variant '%s' is up to date: %s", variant.classifier, variant.out));
+                } else {
+                    futures.add(executor.submit(() -> {
+                        variant.write();
+                        return null;
+                    }));
+                }
+            }
 
-            fillFromDependencies(dpmf, files);
+            if (this.incremental && fingerprint.isUpToDate(fingerprinted)
+                    && (parts == null || parts.isComplete())) {
+                getLog().info("DP is up to date: " + fingerprinted);
+                this.metrics.setUpToDate(true);
+            } else {
+                if (full) {
+                    start = System.nanoTime();
+
+                    getLog().info("Writing to: " + out);
+                    writeDp(dp, out, this.metrics::written);
+
+                    this.metrics.phase("write", start);
+                } else {
+                    // don't leave a complete DP of a previous build behind
+                    Fingerprint.invalidate(out);
+                    Files.deleteIfExists(out);
+                    Files.deleteIfExists(out.resolveSibling(out.getFileName() + ".sha256"));
+                }
 
-            final String dpName = String.format("%s_%s.dp", this.project.getArtifactId(), makeVersion(false));
-            final Path out = Paths.get(this.project.getBuild().getDirectory(), dpName);
+                if (parts != null) {
+                    start = System.nanoTime();
+                    Fingerprint.invalidate(parts.index);
+                    parts.write(dpVersion, full ? null : this.metrics::written);
+                    this.metrics.phase("split", start);
+                }
 
-            getLog().info("Writing to: " + out);
+                if (fingerprint != null) {
+                    fingerprint.store(fingerprinted);
+                }
+            }
 
-            Files.createDirectories(out.getParent());
+            if (this.writeIndex) {
+                start = System.nanoTime();
+                indexes.put("index", writeIndex(dp, out));
+                for (final VariantOutput variant : variants) {
+                    indexes.put(variant.classifier + "-index", writeIndex(variant.dp, variant.out));
+                }
+                this.metrics.phase("index", start);
+            }
 
-            try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(out), dpmf)) {
+            if (!futures.isEmpty()) {
+                start = System.nanoTime();
+                await(futures);
+                this.metrics.phase("variants", start);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
 
-                for (final Map.Entry<String, File> entry : files.entrySet()) {
+        attachAndReport(full ? out : null, parts, variants, indexes);
+    }
 
-                    final Path p = entry.getValue().toPath();
-                    final JarEntry je = new JarEntry(entry.getKey());
+    /**
+     * Check that the bundles can be resolved, if enabled
+     */
+    private void checkResolution(final Collection<BundleInfo> bundles) throws IOException, MojoExecutionException {
+        if (this.resolve == ResolutionCheck.Mode.SKIP) {
+            return;
+        }
 
-                    je.setSize(Files.size(p));
-                    je.setLastModifiedTime(Files.getLastModifiedTime(p));
+        final long start = System.nanoTime();
 
-                    jar.putNextEntry(je);
-                    try (InputStream in = Files.newInputStream(p)) {
-                        ByteStreams.copy(in, jar);
-                    }
+        final ResolutionCheck check = new ResolutionCheck();
+        for (final BundleInfo bundle : bundles) {
+            check.addBundle(bundle.getSymbolicName(), bundle.getVersion(), bundle.getHeader("Export-Package"),
+                    bundle.getHeader("Fragment-Host") != null);
+        }
+        if (this.targetPlatform != null) {
+            for (final File location : this.targetPlatform) {
+                if (!location.exists()) {
+                    throw new MojoExecutionException(format("Target platform '%s' does not exist", location));
                 }
+                check.addTarget(location.toPath());
             }
+        }
+        check.addPackages(this.systemPackages);
 
-            attach(out);
+        final List<ResolutionCheck.Problem> problems = check.check(bundles);
 
-        } catch (final IOException e) {
-            throw new MojoFailureException("Failed to process", e);
+        final long nanos = System.nanoTime() - start;
+        this.metrics.phase("resolve", start);
+
+        for (final ResolutionCheck.Problem problem : problems) {
+            getLog().warn("Unresolved requirement - " + problem);
+        }
+
+        getLog().info(format("Resolution check: %s requirements of %s bundles, %s providers, %s packages"
+                + " - %s unresolved (%.1f ms)", check.getRequirements(), bundles.size(), check.getProviders(),
+                check.getPackages(), problems.size(), nanos / 1_000_000.0));
+
+        if (!problems.isEmpty() && this.resolve == ResolutionCheck.Mode.FAIL) {
+            throw new MojoExecutionException(
+                    format("The DP cannot be resolved: %s unresolved requirements", problems.size()));
         }
     }
 
-    protected abstract void attach(Path out);
+    /**
+     * @return the settings which affect the compressed data of the bundles
+     */
+    private String compressionSettings() {
+        return this.compression.name() + ":" + this.compressionLevel;
+    }
 
-    protected void fillFromDependencies(final Manifest manifest, final Map<String, File> files)
+    /**
+     * Write a DP, and its checksum file if enabled
+     */
+    private void writeDp(final PreparedDp dp, final Path out, final PreparedDp.EntryListener listener)
+            throws IOException {
+        Files.createDirectories(out.getParent());
+
+        // copied bundles keep their compression, so it must not have changed
+        boolean update = false;
+        if (this.update && Files.isRegularFile(out)) {
+            update = compressionSettings().equals(Fingerprint.readAttribute(out, "compression"));
+            if (!update) {
+                getLog().info("Compression of the previous DP changed or is unknown, writing it from scratch: " + out);
+            }
+        }
+
+        Fingerprint.invalidate(out);
+
+        final MessageDigest digest = this.writeChecksumFile ? Digests.create() : null;
+
+        // the manifest comes first and changes, so the DP is updated by copying it to a new file
+        final Path target = update ? out.resolveSibling(out.getFileName() + ".tmp") : out;
+
+        try {
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                final WritableByteChannel c = digest != null ? new DigestChannel(channel, digest) : channel;
+                if (update) {
+                    final int reused = dp.update(c, out, listener);
+                    getLog().info(format("Reused %s of %s bundles from the previous DP: %s", reused,
+                            dp.getBundles().size(), out));
+                } else {
+                    dp.write(c, listener);
+                }
+            }
+            if (update) {
+                Files.move(target, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            if (update) {
+                Files.deleteIfExists(target);
+            }
+        }
+
+        if (digest != null) {
+            writeChecksumFile(out, digest);
+        }
+    }
+
+    /**
+     * Write the repository index of a DP, next to it
+     *
+     * @return the index file
+     */
+    private Path writeIndex(final PreparedDp dp, final Path out) throws IOException {
+        final String name = out.getFileName().toString().replaceFirst("\\.dp$", "");
+        final Path index = out.resolveSibling(name + (this.indexCompressed ? "-index.xml.gz" : "-index.xml"));
+
+        getLog().info("Writing repository index to: " + index);
+        dp.writeIndex(index, this.indexCompressed);
+
+        return index;
+    }
+
+    private static void await(final List<Future<?>> futures) throws IOException {
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing variants", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Failed to write variants", e.getCause());
+        }
+    }
+
+    /**
+     * A variant of the DP
+     */
+    private class VariantOutput {
+        private final String classifier;
+
+        private final PreparedDp dp;
+
+        private final Path out;
+
+        private final Fingerprint fingerprint;
+
+        VariantOutput(final String classifier, final PreparedDp dp, final Path out, final Fingerprint fingerprint) {
+            this.classifier = classifier;
+            this.dp = dp;
+            this.out = out;
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isUpToDate() throws IOException {
+            return AbstractDpMojo.this.incremental && this.fingerprint.isUpToDate(this.out);
+        }
+
+        void write() throws IOException {
+            getLog().info(format("Writing variant '%s' to: %s", this.classifier, this.out));
+            writeDp(this.dp, this.out, null);
+            if (this.fingerprint != null) {
+                this.fingerprint.store(this.out);
+            }
+        }
+    }
+
+    private List<VariantOutput> makeVariants(final PreparedDp dp, final Long timestamp)
             throws IOException, MojoExecutionException {
+        if (this.variants == null || this.variants.length == 0) {
+            return Collections.emptyList();
+        }
+
+        final Set<String> classifiers = new HashSet<>();
+        final List<VariantOutput> result = new ArrayList<>(this.variants.length);
+
+        for (final Variant variant : this.variants) {
+            final String classifier = variant.getClassifier();
+            if (classifier == null || classifier.isEmpty()) {
+                throw new MojoExecutionException("A variant requires a classifier");
+            }
+            if (!classifiers.add(classifier)) {
+                throw new MojoExecutionException(format("Duplicate variant classifier: %s", classifier));
+            }
+
+            final String symbolicName = variant.getSymbolicName() != null ? variant.getSymbolicName()
+                    : dp.getSymbolicName();
+
+            final PreparedDp vdp = dp.select(symbolicName,
+                    bundle -> variant.matches(bundle, this.groupIds.get(bundle.getLocation())));
+
+            final String version = makeVersion(true, timestamp, vdp);
+            vdp.setVersion(version);
+
+            getLog().info(format("Building variant '%s' - Version: %s, %s bundles", classifier, version,
+                    vdp.getBundles().size()));
+            if (vdp.getBundles().isEmpty()) {
+                getLog().warn(format("Variant '%s' contains no bundles", classifier));
+            }
+
+            final String name = format("%s_%s-%s.dp", this.project.getArtifactId(),
+                    makeVersion(false, timestamp, vdp), classifier);
+            final Path out = Paths.get(this.project.getBuild().getDirectory(), name);
+
+            Fingerprint fingerprint = null;
+            if (this.incremental || this.update) {
+                fingerprint = makeFingerprint(vdp.getManifestBytes(), timestamp, vdp.getBundles());
+                fingerprint.put("variant", classifier);
+            }
+
+            result.add(new VariantOutput(classifier, vdp, out, fingerprint));
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the files the bundles of the last execution were taken from
+     *
+     * @return the candidates, in the order they were collected
+     */
+    protected List<Path> getInputs() {
+        return this.inputs;
+    }
+
+    /**
+     * Check if the complete DP must be written, even when splitting it into
+     * parts
+     *
+     * @return {@code true} if the complete DP is required, e.g. as the main
+     *         artifact of the project
+     */
+    protected boolean isFullDpRequired() {
+        return false;
+    }
+
+    protected abstract void attach(Path out);
+
+    /**
+     * Attach an additional output of the build
+     *
+     * @param file
+     *            the file to attach
+     * @param type
+     *            the type of the artifact
+     * @param classifier
+     *            the classifier of the artifact
+     */
+    protected void attach(final Path file, final String type, final String classifier) {
+        this.projectHelper.attachArtifact(this.project, type, classifier, file.toFile());
+    }
+
+    /**
+     * Attach the outputs, and report the metrics
+     *
+     * @param out
+     *            the complete DP, or {@code null} if only the parts were
+     *            written
+     */
+    private void attachAndReport(final Path out, final SplitParts parts, final List<VariantOutput> variants,
+            final Map<String, Path> indexes) throws IOException {
+        final long start = System.nanoTime();
+        if (out != null) {
+            attach(out);
+        }
+        if (parts != null) {
+            parts.attach();
+        }
+        for (final VariantOutput variant : variants) {
+            attach(variant.out, "dp", variant.classifier);
+        }
+        for (final Map.Entry<String, Path> index : indexes.entrySet()) {
+            attach(index.getValue(), this.indexCompressed ? "xml.gz" : "xml", index.getKey());
+        }
+        this.metrics.phase("attach", start);
+
+        this.metrics.finish();
+
+        if (this.writeMetrics) {
+            getLog().info("Build metrics: " + this.metrics.toSummary());
+            this.metrics.write(this.metricsFile.toPath());
+        } else if (getLog().isDebugEnabled()) {
+            getLog().debug("Build metrics: " + this.metrics.toSummary());
+        }
+    }
+
+    private static void writeChecksumFile(final Path out, final MessageDigest digest) throws IOException {
+        final Path file = out.resolveSibling(out.getFileName() + ".sha256");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(String.format("%s  %s%n", Digests.hex(digest.digest()), out.getFileName()));
+        }
+    }
+
+    private Path resolveBaseline() throws MojoExecutionException {
+        if (this.baseline != null) {
+            if (!this.baseline.isFile()) {
+                throw new MojoExecutionException(format("Baseline '%s' is not a file", this.baseline));
+            }
+            return this.baseline.toPath();
+        }
+
+        if (this.baselineArtifact == null || this.baselineArtifact.isEmpty()) {
+            return null;
+        }
+
+        final String[] toks = this.baselineArtifact.split(":");
+        final Artifact artifact;
+        try {
+            if (toks.length == 3) {
+                artifact = new DefaultArtifact(toks[0], toks[1], "dp", toks[2]);
+            } else {
+                artifact = new DefaultArtifact(this.baselineArtifact);
+            }
+        } catch (final IllegalArgumentException e) {
+            throw new MojoExecutionException(format("Invalid baseline artifact: %s", this.baselineArtifact), e);
+        }
+
+        try {
+            final ArtifactResult result = this.repoSystem.resolveArtifact(this.repositorySession,
+                    new ArtifactRequest(artifact, this.projectRepos, null));
+            return result.getArtifact().getFile().toPath();
+        } catch (final ArtifactResolutionException e) {
+            throw new MojoExecutionException("Failed to resolve baseline artifact", e);
+        }
+    }
+
+    /**
+     * The parts of a split DP
+     */
+    private class SplitParts {
+        private final List<DpPart> parts;
+
+        private final List<Path> files = new ArrayList<>();
+
+        private final Path index;
+
+        SplitParts(final Path out, final List<DpPart> parts) {
+            this.parts = parts;
+
+            final String name = out.getFileName().toString().replaceFirst("\\.dp$", "");
+
+            for (final DpPart part : parts) {
+                this.files.add(out.resolveSibling(format("%s-%s.dp", name, part.getName())));
+            }
+            this.index = out.resolveSibling(name + "-parts.json");
+
+            getLog().info(format("Splitting DP into %s parts of at most %s bytes", parts.size(),
+                    AbstractDpMojo.this.splitSize));
+        }
+
+        boolean isComplete() {
+            if (!Files.isRegularFile(this.index)) {
+                return false;
+            }
+            for (final Path file : this.files) {
+                if (!Files.isRegularFile(file)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Write the parts and the index
+         * <p>
+         * Each bundle is read only once, when writing the part it belongs to.
+         * </p>
+         *
+         * @param listener
+         *            the listener for the written bundles, may be
+         *            {@code null}
+         */
+        void write(final String dpVersion, final PreparedDp.EntryListener listener) throws IOException {
+            try (JsonWriter json = new JsonWriter(Files.newBufferedWriter(this.index, StandardCharsets.UTF_8))) {
+                json.beginObject();
+                json.property("symbolicName", AbstractDpMojo.this.project.getArtifactId());
+                json.property("version", dpVersion);
+                json.property("splitSize", AbstractDpMojo.this.splitSize);
+                json.name("parts").beginArray();
+
+                for (int i = 0; i < this.parts.size(); i++) {
+                    final DpPart part = this.parts.get(i);
+                    final Path file = this.files.get(i);
+
+                    getLog().info(format("Writing part %s of %s to: %s", part.getIndex(), this.parts.size(), file));
+
+                    final MessageDigest digest = Digests.create();
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                        part.write(new DigestChannel(channel, digest), listener);
+                    }
+
+                    json.beginObject();
+                    json.property("part", part.getIndex());
+                    json.property("file", file.getFileName().toString());
+                    json.property("version", part.getVersion());
+                    json.property("fixPack", part.getFixPack());
+                    json.property("bytes", Files.size(file));
+                    json.property("sha256", Digests.hex(digest.digest()));
+                    json.name("bundles").beginArray();
+                    for (final String entry : part.getEntries()) {
+                        json.value(entry);
+                    }
+                    json.endArray();
+                    json.endObject();
+
+                    if (Files.size(file) > AbstractDpMojo.this.splitSize) {
+                        getLog().warn(format("Part '%s' exceeds the split size: %s bytes", file, Files.size(file)));
+                    }
+                }
+
+                json.endArray();
+                json.endObject();
+            }
+        }
+
+        void attach() {
+            for (int i = 0; i < this.parts.size(); i++) {
+                AbstractDpMojo.this.attach(this.files.get(i), "dp", this.parts.get(i).getName());
+            }
+            AbstractDpMojo.this.attach(this.index, "json", "parts");
+        }
+    }
+
+    private Fingerprint makeFingerprint(final byte[] manifest, final Long timestamp,
+            final Map<String, BundleInfo> files) throws IOException {
+        final Fingerprint fingerprint = new Fingerprint();
+
+        fingerprint.put("goal", getClass().getName());
+        fingerprint.put("pluginVersion", this.pluginVersion);
+        fingerprint.put("compression", this.compression.name());
+        fingerprint.put("compressionLevel", Integer.toString(this.compressionLevel));
+        fingerprint.attribute("compression", compressionSettings());
+        fingerprint.put("timestamp", timestamp != null ? timestamp.toString() : null);
+        fingerprint.put("checksumFile", Boolean.toString(this.writeChecksumFile));
+        fingerprint.put("splitSize", Long.toString(this.splitSize));
+        fingerprint.put("splitKeepFull", Boolean.toString(this.splitKeepFull));
+        if (this.signing != null) {
+            fingerprint.put("signing", this.signing.getName());
+            try {
+                fingerprint.put("certificate", this.signing.getChain().get(0).getEncoded());
+            } catch (final CertificateEncodingException e) {
+                throw new IOException("Failed to encode the signing certificate", e);
+            }
+        }
+        fillFingerprint(fingerprint);
+
+        fingerprint.put("manifest", manifest);
+
+        for (final Map.Entry<String, BundleInfo> entry : files.entrySet()) {
+            final BundleInfo bundle = entry.getValue();
+            fingerprint.put("entry", entry.getKey());
+            fingerprint.put("location", bundle.getLocation().toString());
+            fingerprint.put("size", Long.toString(bundle.getSize()));
+            fingerprint.put("digest", bundle.getDigest());
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Add the configuration which has an effect on the resulting DP to the
+     * fingerprint
+     * <p>
+     * Implementations overriding this method must call the super method.
+     * </p>
+     *
+     * @param fingerprint
+     *            the fingerprint to fill
+     */
+    protected void fillFingerprint(final Fingerprint fingerprint) {
+    }
+
+    protected void fillFromDependencies(final List<Path> candidates) throws IOException, MojoExecutionException {
 
         // from dependency walker
 
-        fillFromDependencyWalker(manifest, files);
+        long start = System.nanoTime();
+        fillFromDependencyWalker(candidates);
+        this.metrics.phase("walker", start);
 
         // additional dependencies
 
-        fillfromExtraDependencies(manifest, files);
+        start = System.nanoTime();
+        fillfromExtraDependencies(candidates);
+        this.metrics.phase("additionalDependencies", start);
     }
 
-    protected void fillfromExtraDependencies(final Manifest manifest, final Map<String, File> files)
-            throws IOException, MojoExecutionException {
+    protected void fillfromExtraDependencies(final List<Path> candidates) throws IOException, MojoExecutionException {
 
         if (this.additionalDependencies == null) {
             // no additional dependencies
@@ -250,69 +1352,66 @@ public abstract class AbstractDpMojo extends AbstractMojo {
                     getLog().info("Skipping " + artifact + " because it has no file");
                     return;
                 }
-                processArtifact(manifest, files, artifact.getFile());
+                processArtifact(candidates, artifact.getGroupId(), artifact.getFile());
             }
         } catch (final ArtifactResolutionException e) {
             throw new MojoExecutionException("Failed to resolve additional dependencies", e);
         }
     }
 
-    protected void fillFromDependencyWalker(final Manifest manifest, final Map<String, File> files) {
+    protected void fillFromDependencyWalker(final List<Path> candidates) {
         final ArtifactWalker dw = lookupDependencyWalker();
-        dw.walk(entry -> processArtifact(manifest, files, entry.getLocation().toFile()));
-    }
-
-    protected void processArtifact(final Manifest dpmf, final Map<String, File> files, final File location)
-            throws IOException {
-
-        try (JarFile jar = new JarFile(location)) {
-            final Manifest mf = jar.getManifest();
-            if (mf == null) {
-                getLog().debug("No Manifest");
-                return;
+        dw.walk(entry -> {
+            candidates.add(entry.getLocation());
+            if (entry.getGroupId() != null) {
+                this.groupIds.put(entry.getLocation(), entry.getGroupId());
             }
+        });
+    }
 
-            String bsn = mf.getMainAttributes().getValue("Bundle-SymbolicName");
-            if (bsn == null) {
-                getLog().debug("No BSN");
-                return;
-            }
-            if (bsn != null) {
-                bsn = bsn.split(";", 2)[0];
-            }
-
-            final String version = mf.getMainAttributes().getValue("Bundle-Version");
-
-            final String fn = String.format("%s_%s.jar", bsn, version);
-
-            final Attributes attrs = new Attributes();
-            attrs.putValue("Bundle-SymbolicName", bsn);
-            attrs.putValue("Bundle-Version", version);
-            dpmf.getEntries().put(fn, attrs);
-
-            getLog().info(format("Added: %s:%s", bsn, version));
+    /**
+     * Add an artifact as a candidate for the DP
+     * <p>
+     * The artifact will only be added to the DP if it turns out to be an OSGi
+     * bundle when the candidates get scanned.
+     * </p>
+     */
+    protected void processArtifact(final List<Path> candidates, final File location) {
+        processArtifact(candidates, null, location);
+    }
 
-            files.put(fn, location);
+    /**
+     * Add an artifact as a candidate for the DP
+     *
+     * @param groupId
+     *            the Maven group ID of the artifact, used for selecting the
+     *            bundles of variants, may be {@code null}
+     */
+    protected void processArtifact(final List<Path> candidates, final String groupId, final File location) {
+        candidates.add(location.toPath());
+        if (groupId != null) {
+            this.groupIds.put(location.toPath(), groupId);
         }
     }
 
-    private String makeVersion(final boolean osgiVersion) {
+    private String makeVersion(final boolean osgiVersion, final Long timestamp, final PreparedDp dp)
+            throws IOException {
         if (this.version != null) {
             return this.version.toString();
         }
 
         if (this.useQualifiedFilename) {
-            return makeQualifiedVersion().toString();
+            return makeQualifiedVersion(timestamp, dp).toString();
         }
 
         if (osgiVersion) {
-            return makeQualifiedVersion().toString();
+            return makeQualifiedVersion(timestamp, dp).toString();
         } else {
             return this.project.getVersion();
         }
     }
 
-    private Version makeQualifiedVersion() {
+    private Version makeQualifiedVersion(final Long timestamp, final PreparedDp dp) throws IOException {
         try {
             final ReactorProject rp = (ReactorProject) this.project.getContextValue(ReactorProject.CTX_REACTOR_PROJECT);
             if (rp != null) {
@@ -333,10 +1432,38 @@ public abstract class AbstractDpMojo extends AbstractMojo {
                         (v1, v2) -> v2);
 
         if (version.endsWith("-SNAPSHOT")) {
-            version = version.replaceAll("-SNAPSHOT$", "." + this.session.getStartTime().toInstant().getEpochSecond());
+            final String qualifier;
+            if (this.contentQualifier) {
+                qualifier = dp.getContentQualifier();
+            } else if (timestamp != null) {
+                qualifier = Long.toString(timestamp / 1000L);
+            } else {
+                qualifier = Long.toString(this.session.getStartTime().toInstant().getEpochSecond());
+            }
+            version = version.replaceAll("-SNAPSHOT$", "." + qualifier);
         }
 
         return new Version(version);
     }
 
+    private Long makeReproducibleTimestamp() throws MojoExecutionException {
+        // a single character is used to explicitly disable the timestamp
+        if (this.outputTimestamp != null && this.outputTimestamp.length() > 1) {
+            try {
+                if (this.outputTimestamp.chars().allMatch(Character::isDigit)) {
+                    return Long.parseLong(this.outputTimestamp) * 1000L;
+                }
+                return OffsetDateTime.parse(this.outputTimestamp).toInstant().toEpochMilli();
+            } catch (final DateTimeParseException | NumberFormatException e) {
+                throw new MojoExecutionException(format("Invalid output timestamp: %s", this.outputTimestamp), e);
+            }
+        }
+
+        if (this.reproducible) {
+            return DEFAULT_REPRODUCIBLE_TIMESTAMP;
+        }
+
+        return null;
+    }
+
 }
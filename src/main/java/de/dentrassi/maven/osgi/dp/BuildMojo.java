@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Jens Reimann
+ * Copyright (c) 2016, 2026 Jens Reimann and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     Jens Reimann <jreimann@redhat.com> - initial API and implementation
+ *     agent <agent@local>
  *******************************************************************************/
 package de.dentrassi.maven.osgi.dp;
 
@@ -26,7 +27,7 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
  *
  * @author Jens Reimann
  */
-@Mojo(name = "build", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, requiresDependencyResolution = ResolutionScope.RUNTIME, requiresDependencyCollection = ResolutionScope.RUNTIME, threadSafe = false)
+@Mojo(name = "build", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, requiresDependencyResolution = ResolutionScope.RUNTIME, requiresDependencyCollection = ResolutionScope.RUNTIME, threadSafe = true)
 public class BuildMojo extends AbstractDpMojo {
 
     /**
@@ -41,4 +42,11 @@ public class BuildMojo extends AbstractDpMojo {
             this.projectHelper.attachArtifact(this.project, "dp", out.toFile());
         }
     }
+
+    @Override
+    protected void attach(final Path file, final String type, final String classifier) {
+        if (this.attach) {
+            super.attach(file, type, classifier);
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Jens Reimann
+ * Copyright (c) 2016, 2026 Jens Reimann and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     Jens Reimann <jreimann@redhat.com> - initial API and implementation
+ *     agent <agent@local>
  *******************************************************************************/
 package de.dentrassi.maven.osgi.dp;
 
@@ -14,9 +15,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
-import java.util.jar.Manifest;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -37,7 +37,7 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
  * @author Jens Reimann
  * @since 0.4.0
  */
-@Mojo(name = "bundle", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, requiresDependencyResolution = ResolutionScope.RUNTIME, requiresDependencyCollection = ResolutionScope.RUNTIME, threadSafe = false)
+@Mojo(name = "bundle", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, requiresDependencyResolution = ResolutionScope.RUNTIME, requiresDependencyCollection = ResolutionScope.RUNTIME, threadSafe = true)
 public class BundleMojo extends AbstractDpMojo {
 
     /**
@@ -75,10 +75,16 @@ public class BundleMojo extends AbstractDpMojo {
     }
 
     @Override
-    protected void fillFromDependencies(final Manifest manifest, final Map<String, File> files)
-            throws IOException, MojoExecutionException {
+    protected void attach(final Path file, final String type, final String classifier) {
+        if (this.attach) {
+            super.attach(file, type, classifier);
+        }
+    }
+
+    @Override
+    protected void fillFromDependencies(final List<Path> candidates) throws IOException, MojoExecutionException {
 
-        super.fillFromDependencies(manifest, files);
+        super.fillFromDependencies(candidates);
 
         if (!this.ignoreProjectDependecies) {
             for (final Artifact art : this.project.getDependencyArtifacts()) {
@@ -90,16 +96,15 @@ public class BundleMojo extends AbstractDpMojo {
                         getLog().info("Skipping " + art + " because it has no file");
                         return;
                     }
-                    processArtifact(manifest, files, file);
+                    processArtifact(candidates, art.getGroupId(), file);
                 }
             }
         }
 
-        processMainArtifact(manifest, files);
+        processMainArtifact(candidates);
     }
 
-    private void processMainArtifact(final Manifest manifest, final Map<String, File> files)
-            throws MojoExecutionException, IOException {
+    private void processMainArtifact(final List<Path> candidates) throws MojoExecutionException {
 
         final File artifact = this.project.getArtifact().getFile();
 
@@ -111,7 +116,7 @@ public class BundleMojo extends AbstractDpMojo {
         }
 
         if (artifact != null && artifact.isFile()) {
-            processArtifact(manifest, files, artifact);
+            processArtifact(candidates, this.project.getGroupId(), artifact);
         }
     }
 }
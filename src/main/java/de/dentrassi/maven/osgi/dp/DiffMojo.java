@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import de.dentrassi.maven.osgi.dp.diff.DpDiff;
+
+/**
+ * Compare two DPs.
+ * <p>
+ * Reports bundles which were added, removed, or changed their version or
+ * content, by only reading the central directory and the manifest of both
+ * DPs. It does not require a project:
+ * </p>
+ * {@code mvn de.dentrassi.maven:osgi-dp:diff -Dosgi-dp.diff.from=old.dp -Dosgi-dp.diff.to=new.dp}
+ *
+ * @author Jens Reimann
+ * @since 0.5.1
+ */
+@Mojo(name = "diff", requiresProject = false, threadSafe = true)
+public class DiffMojo extends AbstractMojo {
+
+    /**
+     * The old DP
+     */
+    @Parameter(property = "osgi-dp.diff.from", required = true)
+    protected File from;
+
+    /**
+     * The new DP
+     */
+    @Parameter(property = "osgi-dp.diff.to", required = true)
+    protected File to;
+
+    /**
+     * An optional file to write the difference to, as JSON
+     */
+    @Parameter(property = "osgi-dp.diff.json")
+    protected File jsonFile;
+
+    /**
+     * Whether or not to fail if the DPs differ
+     */
+    @Parameter(defaultValue = "false", property = "osgi-dp.diff.failOnChanges")
+    protected boolean failOnChanges = false;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        for (final File file : new File[] { this.from, this.to }) {
+            if (!file.isFile()) {
+                throw new MojoExecutionException(String.format("'%s' is not a file", file));
+            }
+        }
+
+        final DpDiff diff;
+        try {
+            diff = DpDiff.compare(this.from.toPath(), this.to.toPath());
+
+            final StringWriter text = new StringWriter();
+            diff.writeText(text);
+            for (final String line : text.toString().split("\\R")) {
+                getLog().info(line);
+            }
+
+            if (this.jsonFile != null) {
+                Files.createDirectories(this.jsonFile.getAbsoluteFile().getParentFile().toPath());
+                try (Writer writer = Files.newBufferedWriter(this.jsonFile.toPath(), StandardCharsets.UTF_8)) {
+                    diff.writeJson(writer);
+                }
+            }
+        } catch (final IOException e) {
+            throw new MojoFailureException("Failed to compare DPs", e);
+        }
+
+        if (this.failOnChanges && !diff.isEmpty()) {
+            throw new MojoFailureException("The DPs differ: " + diff.toSummary());
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Jens Reimann
+ * Copyright (c) 2016, 2026 Jens Reimann and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,14 +7,14 @@
  *
  * Contributors:
  *     Jens Reimann <jreimann@redhat.com> - initial API and implementation
+ *     agent <agent@local>
  *******************************************************************************/
 package de.dentrassi.maven.osgi.dp;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.Map;
-import java.util.jar.Manifest;
+import java.util.List;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -46,19 +46,24 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
  * @author Jens Reimann
  * @since 0.3.0
  */
-@Mojo(name = "package", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, requiresDependencyResolution = ResolutionScope.RUNTIME, requiresDependencyCollection = ResolutionScope.RUNTIME, threadSafe = false)
+@Mojo(name = "package", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, requiresDependencyResolution = ResolutionScope.RUNTIME, requiresDependencyCollection = ResolutionScope.RUNTIME, threadSafe = true)
 public class PackageMojo extends AbstractDpMojo {
 
+    @Override
+    protected boolean isFullDpRequired() {
+        // the DP is the main artifact
+        return true;
+    }
+
     @Override
     protected void attach(final Path out) {
         this.project.getArtifact().setFile(out.toFile());
     }
 
     @Override
-    protected void fillFromDependencies(final Manifest manifest, final Map<String, File> files)
-            throws IOException, MojoExecutionException {
+    protected void fillFromDependencies(final List<Path> candidates) throws IOException, MojoExecutionException {
 
-        super.fillFromDependencies(manifest, files);
+        super.fillFromDependencies(candidates);
 
         for (final Artifact art : this.project.getDependencyArtifacts()) {
             File file = art.getFile();
@@ -66,7 +71,7 @@ public class PackageMojo extends AbstractDpMojo {
                 getLog().info("Skipping " + art + " because it has no file");
                 return;
             }
-            processArtifact(manifest, files, file);
+            processArtifact(candidates, art.getGroupId(), file);
         }
     }
 }
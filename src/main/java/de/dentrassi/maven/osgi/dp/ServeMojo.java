@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import de.dentrassi.maven.osgi.dp.builder.EntryCompression;
+import de.dentrassi.maven.osgi.dp.internal.MavenBuildLog;
+import de.dentrassi.maven.osgi.dp.server.BundleRepository;
+import de.dentrassi.maven.osgi.dp.server.DpServer;
+
+/**
+ * Serve DPs, assembled on demand from a directory of bundles.
+ * <p>
+ * This starts an HTTP server, which assembles DPs from the bundles of a local
+ * directory, and streams them to the client. The goal runs until the build
+ * gets terminated. It does not require a project:
+ * </p>
+ * {@code mvn de.dentrassi.maven:osgi-dp:serve -Dosgi-dp.repository=bundles}
+ *
+ * @author Jens Reimann
+ * @since 0.5.1
+ */
+@Mojo(name = "serve", requiresProject = false, threadSafe = true)
+public class ServeMojo extends AbstractMojo {
+
+    /**
+     * The directory containing the bundles, which is searched recursively
+     */
+    @Parameter(property = "osgi-dp.repository", required = true)
+    protected File repository;
+
+    /**
+     * The address to bind to
+     */
+    @Parameter(defaultValue = "localhost", property = "osgi-dp.host")
+    protected String host;
+
+    /**
+     * The port to listen on
+     */
+    @Parameter(defaultValue = "8080", property = "osgi-dp.port")
+    protected int port;
+
+    /**
+     * The number of requests processed in parallel
+     * <p>
+     * A value of zero or less will use the number of available processors.
+     * </p>
+     */
+    @Parameter(defaultValue = "0", property = "osgi-dp.serveThreads")
+    protected int threads;
+
+    /**
+     * The maximum age of the bundle metadata, in milliseconds, before the
+     * repository is checked for changes
+     */
+    @Parameter(defaultValue = "5000", property = "osgi-dp.refreshInterval")
+    protected long refreshInterval;
+
+    /**
+     * The compression of the bundle entries in the DP
+     */
+    @Parameter(defaultValue = "DEFLATED", property = "osgi-dp.compression")
+    protected EntryCompression compression = EntryCompression.DEFLATED;
+
+    /**
+     * The deflate level for compressed entries, from 0 to 9
+     */
+    @Parameter(defaultValue = "6", property = "osgi-dp.compressionLevel")
+    protected int compressionLevel = 6;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (!this.repository.isDirectory()) {
+            throw new MojoExecutionException(String.format("Repository '%s' is not a directory", this.repository));
+        }
+        if (this.compressionLevel < 0 || this.compressionLevel > 9) {
+            throw new MojoExecutionException(
+                    String.format("Invalid compression level: %s, must be from 0 to 9", this.compressionLevel));
+        }
+
+        final MavenBuildLog log = new MavenBuildLog(getLog());
+
+        final BundleRepository repo = new BundleRepository(this.repository.toPath(), this.refreshInterval, 0, log);
+
+        try (DpServer server = new DpServer(repo, new InetSocketAddress(this.host, this.port))
+                .log(log)
+                .threads(this.threads)
+                .compression(this.compression)
+                .compressionLevel(this.compressionLevel)) {
+
+            server.start();
+
+            getLog().info(String.format("Serving %s bundles from %s on http://%s:%s/dp/", repo.size(),
+                    this.repository, this.host, server.getAddress().getPort()));
+
+            // run until the build gets terminated
+            new CountDownLatch(1).await();
+
+        } catch (final IOException e) {
+            throw new MojoFailureException("Failed to serve", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
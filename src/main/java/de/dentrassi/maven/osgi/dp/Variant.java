@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+
+/**
+ * An additional variant of the DP, containing a subset of the bundles
+ * <p>
+ * A bundle is part of the variant if it matches any of the includes, or if
+ * there are no includes at all, and does not match any of the excludes.
+ * Patterns may use {@code *} and {@code ?} as wildcards.
+ * </p>
+ */
+public class Variant {
+
+    /**
+     * The classifier of the variant, required
+     */
+    private String classifier;
+
+    /**
+     * The symbolic name of the variant, defaults to the symbolic name of the
+     * DP
+     */
+    private String symbolicName;
+
+    /**
+     * Patterns of bundle symbolic names to include
+     */
+    private List<String> includes = new ArrayList<>();
+
+    /**
+     * Patterns of bundle symbolic names to exclude
+     */
+    private List<String> excludes = new ArrayList<>();
+
+    /**
+     * Patterns of Maven group IDs to include
+     */
+    private List<String> includeGroups = new ArrayList<>();
+
+    /**
+     * Patterns of Maven group IDs to exclude
+     */
+    private List<String> excludeGroups = new ArrayList<>();
+
+    public String getClassifier() {
+        return this.classifier;
+    }
+
+    public void setClassifier(final String classifier) {
+        this.classifier = classifier;
+    }
+
+    public String getSymbolicName() {
+        return this.symbolicName;
+    }
+
+    public void setSymbolicName(final String symbolicName) {
+        this.symbolicName = symbolicName;
+    }
+
+    public List<String> getIncludes() {
+        return this.includes;
+    }
+
+    public void setIncludes(final List<String> includes) {
+        this.includes = includes;
+    }
+
+    public List<String> getExcludes() {
+        return this.excludes;
+    }
+
+    public void setExcludes(final List<String> excludes) {
+        this.excludes = excludes;
+    }
+
+    public List<String> getIncludeGroups() {
+        return this.includeGroups;
+    }
+
+    public void setIncludeGroups(final List<String> includeGroups) {
+        this.includeGroups = includeGroups;
+    }
+
+    public List<String> getExcludeGroups() {
+        return this.excludeGroups;
+    }
+
+    public void setExcludeGroups(final List<String> excludeGroups) {
+        this.excludeGroups = excludeGroups;
+    }
+
+    /**
+     * Check if a bundle is part of the variant
+     *
+     * @param bundle
+     *            the bundle
+     * @param groupId
+     *            the Maven group ID of the bundle, may be {@code null} if
+     *            unknown
+     * @return {@code true} if the bundle is part of the variant
+     */
+    public boolean matches(final BundleInfo bundle, final String groupId) {
+        final boolean included = isEmpty(this.includes) && isEmpty(this.includeGroups)
+                || matches(this.includes, bundle.getSymbolicName()) || matches(this.includeGroups, groupId);
+
+        return included && !matches(this.excludes, bundle.getSymbolicName())
+                && !matches(this.excludeGroups, groupId);
+    }
+
+    private static boolean isEmpty(final List<String> patterns) {
+        return patterns == null || patterns.isEmpty();
+    }
+
+    private static boolean matches(final List<String> patterns, final String value) {
+        if (patterns == null || value == null) {
+            return false;
+        }
+        for (final String pattern : patterns) {
+            if (toRegex(pattern).matcher(value).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern toRegex(final String pattern) {
+        final StringBuilder sb = new StringBuilder();
+        for (final String tok : pattern.trim().split("((?<=[*?])|(?=[*?]))")) {
+            if ("*".equals(tok)) {
+                sb.append(".*");
+            } else if ("?".equals(tok)) {
+                sb.append('.');
+            } else if (!tok.isEmpty()) {
+                sb.append(Pattern.quote(tok));
+            }
+        }
+        return Pattern.compile(sb.toString());
+    }
+
+    @Override
+    public String toString() {
+        return this.classifier;
+    }
+}
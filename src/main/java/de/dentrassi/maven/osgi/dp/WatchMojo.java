@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Build the DP, and build it again whenever one of its bundles changes
+ * <p>
+ * The DP is built like by the {@code build} goal, but not attached to the
+ * project. After each build, the files of the bundles are watched for
+ * changes. Existing DPs are updated, copying the unchanged bundles, as with
+ * {@code osgi-dp.update} enabled. The goal runs until the build gets
+ * terminated:
+ * </p>
+ * {@code mvn package de.dentrassi.maven:osgi-dp:watch}
+ *
+ * @author Jens Reimann
+ * @since 0.5.1
+ */
+@Mojo(name = "watch", requiresProject = true, requiresDependencyResolution = ResolutionScope.RUNTIME, requiresDependencyCollection = ResolutionScope.RUNTIME, threadSafe = true)
+public class WatchMojo extends AbstractDpMojo {
+
+    /**
+     * The time to wait for further changes, in milliseconds, before building
+     * the DP again
+     */
+    @Parameter(defaultValue = "500", property = "osgi-dp.watchQuietPeriod")
+    protected long quietPeriod;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (this.skip) {
+            return;
+        }
+
+        this.update = true;
+
+        super.execute();
+
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            while (true) {
+                final Set<Path> inputs = register(watcher);
+
+                getLog().info(String.format("Watching %s bundles for changes", inputs.size()));
+
+                awaitChange(watcher, inputs);
+
+                try {
+                    super.execute();
+                } catch (final MojoExecutionException | MojoFailureException e) {
+                    // keep watching, the next change may fix it
+                    getLog().error("Failed to build the DP", e);
+                }
+            }
+        } catch (final IOException e) {
+            throw new MojoFailureException("Failed to watch the bundles", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Register the directories of the current inputs
+     *
+     * @return the inputs, as absolute paths
+     */
+    private Set<Path> register(final WatchService watcher) throws IOException {
+        final Set<Path> result = new HashSet<>();
+        for (final Path input : getInputs()) {
+            final Path file = input.toAbsolutePath().normalize();
+            result.add(file);
+            if (file.getParent() != null) {
+                file.getParent().register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wait for a change of one of the inputs, followed by a quiet period
+     */
+    private void awaitChange(final WatchService watcher, final Set<Path> inputs) throws InterruptedException {
+        boolean changed = false;
+        while (!changed) {
+            changed = poll(watcher.take(), inputs);
+        }
+
+        // wait until all changes are written, e.g. by a parallel build
+        WatchKey key;
+        while ((key = watcher.poll(this.quietPeriod, TimeUnit.MILLISECONDS)) != null) {
+            poll(key, inputs);
+        }
+    }
+
+    private boolean poll(final WatchKey key, final Set<Path> inputs) {
+        boolean result = false;
+        final Path dir = (Path) key.watchable();
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() == null) {
+                // overflow, events got lost
+                result = true;
+            } else if (inputs.contains(dir.resolve((Path) event.context()))) {
+                getLog().info("Changed: " + dir.resolve((Path) event.context()));
+                result = true;
+            }
+        }
+        key.reset();
+        return result;
+    }
+
+    @Override
+    protected void attach(final Path out) {
+        // the DP gets rebuilt in place, don't attach it
+    }
+
+    @Override
+    protected void attach(final Path file, final String type, final String classifier) {
+        // neither attach any additional outputs
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Jens Reimann.
+ * Copyright (c) 2016, 2026 Jens Reimann and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,8 +7,9 @@
  *
  * Contributors:
  *     Jens Reimann <jreimann@redhat.com> - initial API and implementation
+ *     agent <agent@local>
  *******************************************************************************/
-package de.dentrassi.maven.osgi.dp.internal;
+package de.dentrassi.maven.osgi.dp.builder;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -17,13 +18,27 @@ public interface ArtifactWalker {
     public class Entry {
         private final Path location;
 
+        private final String groupId;
+
         public Entry(final Path location) {
+            this(location, null);
+        }
+
+        public Entry(final Path location, final String groupId) {
             this.location = location;
+            this.groupId = groupId;
         }
 
         public Path getLocation() {
             return this.location;
         }
+
+        /**
+         * @return the Maven group ID of the artifact, may be {@code null}
+         */
+        public String getGroupId() {
+            return this.groupId;
+        }
     }
 
     @FunctionalInterface
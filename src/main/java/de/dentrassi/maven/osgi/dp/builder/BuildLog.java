@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.builder;
+
+/**
+ * The log used by the DP builder
+ * <p>
+ * All methods default to discarding the message.
+ * </p>
+ */
+public interface BuildLog {
+
+    public default void debug(final String message) {
+    }
+
+    public default void debug(final String message, final Throwable error) {
+    }
+
+    public default void info(final String message) {
+    }
+
+    public default void warn(final String message) {
+    }
+
+    public default void warn(final String message, final Throwable error) {
+    }
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.builder;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.dentrassi.maven.osgi.dp.internal.Digests;
+
+/**
+ * The OSGi metadata of a single bundle, as required for building a DP
+ * <p>
+ * Digest and CRC of the bundle file may be unknown when scanning the bundle,
+ * as that only reads the manifest. They are calculated when first requested,
+ * reading the whole file once.
+ * </p>
+ */
+public class BundleInfo {
+
+    /**
+     * The manifest headers which are captured when scanning a bundle
+     */
+    public static final List<String> HEADERS = Collections.unmodifiableList(
+            Arrays.asList("Export-Package", "Import-Package", "Require-Bundle", "Fragment-Host",
+                    "Provide-Capability", "Require-Capability"));
+
+    private final Path location;
+
+    private final String symbolicName;
+
+    private final String version;
+
+    private final long size;
+
+    private final Map<String, String> headers;
+
+    private Digests.Checksums checksums;
+
+    public BundleInfo(final Path location, final String symbolicName, final String version, final long size,
+            final String digest, final long crc) {
+        this(location, symbolicName, version, size, digest, crc, Collections.emptyMap());
+    }
+
+    public BundleInfo(final Path location, final String symbolicName, final String version, final long size,
+            final String digest, final long crc, final Map<String, String> headers) {
+        this(location, symbolicName, version, size, headers);
+        this.checksums = new Digests.Checksums(size, digest, crc);
+    }
+
+    /**
+     * Create a bundle, whose digest and CRC are not known yet
+     */
+    public BundleInfo(final Path location, final String symbolicName, final String version, final long size,
+            final Map<String, String> headers) {
+        this.location = location;
+        this.symbolicName = symbolicName;
+        this.version = version;
+        this.size = size;
+        this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+    }
+
+    public Path getLocation() {
+        return this.location;
+    }
+
+    public String getSymbolicName() {
+        return this.symbolicName;
+    }
+
+    public String getVersion() {
+        return this.version;
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Get the digest of the bundle file
+     *
+     * @return the Base64 encoded SHA-256 digest of the bundle file
+     * @throws IOException
+     *             if the digest is not known yet, and reading the file fails
+     */
+    public String getDigest() throws IOException {
+        return checksums().getDigest();
+    }
+
+    /**
+     * Get the CRC-32 checksum of the bundle file
+     *
+     * @return the CRC-32 checksum
+     * @throws IOException
+     *             if the CRC is not known yet, and reading the file fails
+     */
+    public long getCrc() throws IOException {
+        return checksums().getCrc();
+    }
+
+    /**
+     * Check if digest and CRC are known, without reading the file
+     *
+     * @return {@code true} if they are known
+     */
+    public synchronized boolean hasChecksums() {
+        return this.checksums != null;
+    }
+
+    private synchronized Digests.Checksums checksums() throws IOException {
+        if (this.checksums == null) {
+            final Digests.Checksums result = Digests.checksums(this.location);
+            if (result.getSize() != this.size) {
+                throw new IOException(format("Size of '%s' changed while building the DP", this.location));
+            }
+            this.checksums = result;
+        }
+        return this.checksums;
+    }
+
+    /**
+     * Get the captured manifest headers
+     *
+     * @return the headers, only containing headers listed in
+     *         {@link #HEADERS}, never {@code null}
+     */
+    public Map<String, String> getHeaders() {
+        return this.headers;
+    }
+
+    /**
+     * Get a captured manifest header
+     *
+     * @param name
+     *            the name of the header, one of {@link #HEADERS}
+     * @return the value, or {@code null} if the bundle does not have the
+     *         header
+     */
+    public String getHeader(final String name) {
+        return this.headers.get(name);
+    }
+
+    /**
+     * Get the name of the entry in the DP
+     *
+     * @return the entry name, never {@code null}
+     */
+    public String getEntryName() {
+        return String.format("%s_%s.jar", this.symbolicName, this.version);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%s", this.symbolicName, this.version);
+    }
+}
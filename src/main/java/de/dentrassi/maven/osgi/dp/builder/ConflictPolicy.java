@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.builder;
+
+/**
+ * How to handle several versions of a bundle with the same symbolic name
+ * <p>
+ * Identical bundles, with the same symbolic name, version and content, are
+ * always only added once. Bundles with the same symbolic name and version,
+ * but different content, are a conflict which is resolved by keeping the last
+ * one, unless the policy is {@link #FAIL}.
+ * </p>
+ */
+public enum ConflictPolicy {
+    /**
+     * Keep the bundle with the highest version
+     */
+    HIGHEST,
+    /**
+     * Fail if there are several versions or different bundles with the same
+     * version
+     */
+    FAIL,
+    /**
+     * Keep all versions
+     */
+    KEEP_ALL;
+}
@@ -0,0 +1,605 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.builder;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.zip.Deflater;
+
+import org.osgi.framework.Version;
+
+import de.dentrassi.maven.osgi.dp.internal.BundleScanner;
+import de.dentrassi.maven.osgi.dp.internal.BundleSlimmer;
+import de.dentrassi.maven.osgi.dp.internal.Digests;
+import de.dentrassi.maven.osgi.dp.internal.MetadataCache;
+
+/**
+ * Build a DP from a set of bundles, without depending on Maven
+ * <p>
+ * The builder collects the bundle candidates and the configuration. Calling
+ * {@link #prepare()} reads the metadata of all candidates, and returns a
+ * {@link PreparedDp}, which can be written to files, streams or channels, as
+ * often as required. Candidates which are not OSGi bundles are skipped.
+ * </p>
+ *
+ * <pre>
+ * try (PreparedDp dp = new DpBuilder("my.dp").bundles(files).prepare()) {
+ *     dp.setVersion("1.0.0");
+ *     dp.write(out);
+ * }
+ * </pre>
+ * <p>
+ * A builder is not thread safe, but a prepared DP may be written by several
+ * threads at the same time.
+ * </p>
+ */
+public class DpBuilder {
+
+    private final String symbolicName;
+
+    private final List<Path> candidates = new ArrayList<>();
+
+    private final List<Path> temporary = new ArrayList<>();
+
+    private final Map<Path, BundleInfo> scanned = new HashMap<>();
+
+    private BuildLog log = new BuildLog() {
+    };
+
+    private int scanThreads;
+
+    private MetadataCache cache;
+
+    private Path cacheDirectory;
+
+    private boolean verifyCache;
+
+    private EntryCompression compression = EntryCompression.DEFLATED;
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    private int writeThreads;
+
+    private long writeBudget = 64L * 1024L * 1024L;
+
+    private Long timestamp;
+
+    private boolean includeDigests;
+
+    private String version;
+
+    private ConflictPolicy conflictPolicy = ConflictPolicy.KEEP_ALL;
+
+    private Slimming slimming;
+
+    private Signing signing;
+
+    /**
+     * Create a new builder
+     *
+     * @param symbolicName
+     *            the symbolic name of the DP
+     */
+    public DpBuilder(final String symbolicName) {
+        this.symbolicName = Objects.requireNonNull(symbolicName);
+    }
+
+    public DpBuilder log(final BuildLog log) {
+        this.log = Objects.requireNonNull(log);
+        return this;
+    }
+
+    /**
+     * Set the number of threads reading bundle manifests
+     * <p>
+     * A value of zero or less uses the number of available processors.
+     * </p>
+     */
+    public DpBuilder scanThreads(final int scanThreads) {
+        this.scanThreads = scanThreads;
+        return this;
+    }
+
+    /**
+     * Cache the metadata of the bundles in a directory
+     *
+     * @param directory
+     *            the cache directory, or {@code null} to disable the cache
+     * @param verify
+     *            whether or not to verify the content digest before using a
+     *            cached entry
+     */
+    public DpBuilder metadataCache(final Path directory, final boolean verify) {
+        this.cacheDirectory = directory;
+        this.verifyCache = verify;
+        this.cache = null;
+        return this;
+    }
+
+    public DpBuilder compression(final EntryCompression compression) {
+        this.compression = Objects.requireNonNull(compression);
+        return this;
+    }
+
+    /**
+     * Set the deflate level, from 0 to 9, or -1 for the default level
+     */
+    public DpBuilder compressionLevel(final int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Set the number of threads preparing entries while writing
+     * <p>
+     * A value of zero or less uses the number of available processors, a
+     * value of one writes all entries on the calling thread.
+     * </p>
+     */
+    public DpBuilder writeThreads(final int writeThreads) {
+        this.writeThreads = writeThreads;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of bytes used for buffering prepared entries
+     */
+    public DpBuilder writeBudget(final long writeBudget) {
+        this.writeBudget = writeBudget;
+        return this;
+    }
+
+    /**
+     * Set the timestamp of all entries
+     *
+     * @param timestamp
+     *            the timestamp in milliseconds since the epoch, or
+     *            {@code null} to use the timestamps of the bundle files
+     */
+    public DpBuilder timestamp(final Long timestamp) {
+        this.timestamp = timestamp;
+        return this;
+    }
+
+    /**
+     * Add the SHA-256 digest of each bundle to the DP manifest
+     */
+    public DpBuilder includeDigests(final boolean includeDigests) {
+        this.includeDigests = includeDigests;
+        return this;
+    }
+
+    /**
+     * Set the version of the DP
+     * <p>
+     * The version may also be set on the prepared DP, e.g. when it depends
+     * on the content.
+     * </p>
+     */
+    public DpBuilder version(final String version) {
+        this.version = version;
+        return this;
+    }
+
+    /**
+     * Set how several versions of a bundle with the same symbolic name are
+     * handled, defaults to {@link ConflictPolicy#KEEP_ALL}
+     */
+    public DpBuilder conflictPolicy(final ConflictPolicy conflictPolicy) {
+        this.conflictPolicy = conflictPolicy;
+        return this;
+    }
+
+    /**
+     * Rewrite the bundles before adding them
+     *
+     * @param slimming
+     *            the configuration, or {@code null} to add the bundles as
+     *            they are
+     */
+    public DpBuilder slimming(final Slimming slimming) {
+        this.slimming = slimming;
+        return this;
+    }
+
+    /**
+     * Sign the DP
+     * <p>
+     * Signing implies {@link #includeDigests(boolean)}, as the signature
+     * covers the digests of the bundles in the DP manifest.
+     * </p>
+     *
+     * @param signing
+     *            the key and certificates, or {@code null} to not sign the DP
+     */
+    public DpBuilder signing(final Signing signing) {
+        this.signing = signing;
+        return this;
+    }
+
+    /**
+     * Add a bundle candidate
+     */
+    public DpBuilder bundle(final Path bundle) {
+        this.candidates.add(bundle);
+        return this;
+    }
+
+    /**
+     * Add a bundle which was already scanned
+     * <p>
+     * The metadata is used as is, the bundle will not be read again before
+     * writing it.
+     * </p>
+     */
+    public DpBuilder bundle(final BundleInfo bundle) {
+        this.candidates.add(bundle.getLocation());
+        this.scanned.put(bundle.getLocation(), bundle);
+        return this;
+    }
+
+    /**
+     * Add bundle candidates, in order
+     */
+    public DpBuilder bundles(final Collection<Path> bundles) {
+        this.candidates.addAll(bundles);
+        return this;
+    }
+
+    /**
+     * Add a bundle candidate from a stream
+     * <p>
+     * The content is copied to a temporary file, which is deleted when the
+     * prepared DP gets closed. The stream is not closed.
+     * </p>
+     */
+    public DpBuilder bundle(final InputStream bundle) throws IOException {
+        final Path file = Files.createTempFile("osgi-dp-", ".jar");
+        this.temporary.add(file);
+        Files.copy(bundle, file, StandardCopyOption.REPLACE_EXISTING);
+        this.candidates.add(file);
+        return this;
+    }
+
+    /**
+     * Add all candidates provided by an artifact walker
+     */
+    public DpBuilder walk(final ArtifactWalker walker) {
+        walker.walk(entry -> this.candidates.add(entry.getLocation()));
+        return this;
+    }
+
+    /**
+     * @return the candidates added so far, in order
+     */
+    public List<Path> getCandidates() {
+        return this.candidates;
+    }
+
+    /**
+     * Remove candidates which point to the same file
+     *
+     * @return the candidates, each file only once, in order
+     */
+    private List<Path> distinctCandidates() {
+        final Set<Path> seen = new HashSet<>(this.candidates.size());
+        final List<Path> result = new ArrayList<>(this.candidates.size());
+
+        for (final Path candidate : this.candidates) {
+            Path canonical;
+            try {
+                canonical = candidate.toRealPath();
+            } catch (final IOException e) {
+                // fails later on, when reading it
+                canonical = candidate.toAbsolutePath().normalize();
+            }
+
+            if (seen.add(canonical)) {
+                result.add(candidate);
+            } else {
+                this.log.debug(format("Duplicate candidate: %s", candidate));
+            }
+        }
+
+        if (result.size() < this.candidates.size()) {
+            this.log.info(format("Skipped %s duplicate candidates", this.candidates.size() - result.size()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Remove identical bundles, and apply the conflict policy to bundles
+     * with the same symbolic name
+     *
+     * @return the bundles to add, in order
+     * @throws IOException
+     *             if there are conflicts, and the policy is
+     *             {@link ConflictPolicy#FAIL}
+     */
+    private List<BundleInfo> resolveConflicts(final List<BundleInfo> bundles) throws IOException {
+        final Map<String, List<BundleInfo>> bySymbolicName = new LinkedHashMap<>();
+        for (final BundleInfo bundle : bundles) {
+            bySymbolicName.computeIfAbsent(bundle.getSymbolicName(), k -> new ArrayList<>(1)).add(bundle);
+        }
+
+        final Set<BundleInfo> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        // the first bundle of a version, replaced by a later one with different content
+        final Map<BundleInfo, BundleInfo> replaced = new IdentityHashMap<>();
+        final Set<BundleInfo> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<String> conflicts = new ArrayList<>();
+        int identical = 0;
+
+        for (final List<BundleInfo> group : bySymbolicName.values()) {
+            if (group.size() == 1) {
+                continue;
+            }
+
+            // the same version, only one can be kept: the last one, at the position of the first one
+
+            final Map<String, BundleInfo> firsts = new HashMap<>();
+            final Map<String, BundleInfo> byVersion = new LinkedHashMap<>();
+            for (final BundleInfo bundle : group) {
+                final BundleInfo first = firsts.putIfAbsent(bundle.getVersion(), bundle);
+                if (first == null) {
+                    byVersion.put(bundle.getVersion(), bundle);
+                    continue;
+                }
+                final BundleInfo kept = byVersion.get(bundle.getVersion());
+                if (kept.getDigest().equals(bundle.getDigest())) {
+                    this.log.debug(format("Identical bundle: %s - %s", bundle.getLocation(), kept.getLocation()));
+                    removed.add(bundle);
+                    identical++;
+                } else {
+                    conflicts.add(format("%s: different content in %s and %s, using the latter", bundle,
+                            kept.getLocation(), bundle.getLocation()));
+                    byVersion.put(bundle.getVersion(), bundle);
+                    replaced.put(first, bundle);
+                    moved.add(bundle);
+                }
+            }
+
+            if (byVersion.size() == 1) {
+                continue;
+            }
+
+            // several versions
+
+            final String name = group.get(0).getSymbolicName();
+            switch (this.conflictPolicy) {
+            case HIGHEST:
+                final BundleInfo highest = Collections.max(byVersion.values(),
+                        (a, b) -> version(a).compareTo(version(b)));
+                for (final BundleInfo bundle : byVersion.values()) {
+                    if (bundle != highest) {
+                        this.log.info(format("Conflict: %s - keeping version %s instead of %s", name,
+                                highest.getVersion(), bundle.getVersion()));
+                        removed.add(bundle);
+                    }
+                }
+                break;
+            case FAIL:
+                conflicts.add(format("%s: several versions %s", name, byVersion.keySet()));
+                break;
+            default:
+                this.log.warn(format("Conflict: %s - adding several versions %s", name, byVersion.keySet()));
+                break;
+            }
+        }
+
+        for (final String conflict : conflicts) {
+            this.log.warn("Conflict: " + conflict);
+        }
+        if (!conflicts.isEmpty() && this.conflictPolicy == ConflictPolicy.FAIL) {
+            throw new IOException(format("Conflicting bundles: %s", String.join(", ", conflicts)));
+        }
+
+        if (removed.isEmpty() && replaced.isEmpty()) {
+            return bundles;
+        }
+
+        final List<BundleInfo> result = new ArrayList<>(bundles.size());
+        for (final BundleInfo bundle : bundles) {
+            if (removed.contains(bundle) || moved.contains(bundle)) {
+                continue;
+            }
+            final BundleInfo kept = replaced.getOrDefault(bundle, bundle);
+            if (!removed.contains(kept)) {
+                result.add(kept);
+            }
+        }
+
+        this.log.info(format("Removed %s identical and %s conflicting bundles", identical,
+                bundles.size() - result.size() - identical));
+
+        return result;
+    }
+
+    /**
+     * Apply the slimming stage, if configured
+     *
+     * @param bundles
+     *            the bundles to slim
+     * @param savedBytes
+     *            the bytes saved, by entry name
+     * @return the bundles to add, in the same order
+     * @throws IOException
+     *             if slimming a bundle fails
+     */
+    private List<BundleInfo> slim(final List<BundleInfo> bundles, final Map<String, Long> savedBytes)
+            throws IOException {
+        if (this.slimming == null || bundles.isEmpty()) {
+            return bundles;
+        }
+
+        final BundleSlimmer slimmer = new BundleSlimmer(this.slimming, this.timestamp, this.scanThreads, this.log);
+
+        final List<BundleInfo> result = new ArrayList<>(bundles.size());
+        long total = 0;
+        int signed = 0;
+        for (final BundleSlimmer.Result slimmed : slimmer.slim(bundles)) {
+            result.add(slimmed.getBundle());
+            savedBytes.put(slimmed.getBundle().getEntryName(), slimmed.getSavedBytes());
+            total += slimmed.getSavedBytes();
+            if (slimmed.isSigned()) {
+                signed++;
+            }
+        }
+
+        this.log.info(format("Slimming: %s bytes saved, %s signed bundles skipped, %s cache hits, %s misses", total,
+                signed, slimmer.getHits(), slimmer.getMisses()));
+
+        return result;
+    }
+
+    private static Version version(final BundleInfo bundle) {
+        try {
+            return Version.parseVersion(bundle.getVersion());
+        } catch (final IllegalArgumentException e) {
+            return Version.emptyVersion;
+        }
+    }
+
+    /**
+     * Read the metadata of all candidates and create the DP manifest
+     * <p>
+     * Temporary files of bundles added as streams are handed over to the
+     * prepared DP.
+     * </p>
+     *
+     * @return the prepared DP, must be closed by the caller
+     * @throws IOException
+     *             if reading a candidate fails
+     */
+    public PreparedDp prepare() throws IOException {
+        if (this.cache == null && this.cacheDirectory != null) {
+            this.cache = new MetadataCache(this.cacheDirectory, this.verifyCache, this.log);
+        }
+
+        final List<Path> temporary = new ArrayList<>(this.temporary);
+        this.temporary.clear();
+
+        try {
+            final List<Path> candidates = distinctCandidates();
+
+            final List<Path> unknown = new ArrayList<>(candidates.size());
+            for (final Path candidate : candidates) {
+                if (!this.scanned.containsKey(candidate)) {
+                    unknown.add(candidate);
+                }
+            }
+
+            final BundleScanner scanner = new BundleScanner(this.scanThreads, this.cache, this.log);
+            final Map<Path, BundleInfo> found = new HashMap<>(this.scanned);
+            for (final BundleInfo bundle : scanner.scan(unknown)) {
+                found.put(bundle.getLocation(), bundle);
+            }
+
+            final List<BundleInfo> candidateBundles = new ArrayList<>(candidates.size());
+            for (final Path candidate : candidates) {
+                final BundleInfo bundle = found.get(candidate);
+                if (bundle != null) {
+                    candidateBundles.add(bundle);
+                }
+            }
+
+            final List<BundleInfo> resolved = resolveConflicts(candidateBundles);
+            final Map<String, Long> savedBytes = new HashMap<>();
+            final List<BundleInfo> bundles = slim(resolved, savedBytes);
+
+            final Manifest dpmf = new Manifest();
+            final Map<String, BundleInfo> files = new LinkedHashMap<>();
+            final Map<String, Long> scanNanos = new LinkedHashMap<>();
+
+            for (int i = 0; i < bundles.size(); i++) {
+                final BundleInfo bundle = bundles.get(i);
+                final String fn = bundle.getEntryName();
+
+                final Attributes attrs = new Attributes();
+                attrs.putValue("Bundle-SymbolicName", bundle.getSymbolicName());
+                attrs.putValue("Bundle-Version", bundle.getVersion());
+                if (this.includeDigests || this.signing != null) {
+                    attrs.putValue(Digests.ALGORITHM + "-Digest", bundle.getDigest());
+                }
+                dpmf.getEntries().put(fn, attrs);
+
+                this.log.info(format("Added: %s", bundle));
+
+                files.put(fn, bundle);
+                scanNanos.put(fn, scanner.getScanNanos(resolved.get(i).getLocation()));
+            }
+
+            if (this.cache != null) {
+                this.log.info(format("Metadata cache: %s hits, %s misses, %s corrupt entries", this.cache.getHits(),
+                        this.cache.getMisses(), this.cache.getCorrupt()));
+            }
+
+            dpmf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1");
+            dpmf.getMainAttributes().putValue("DeploymentPackage-SymbolicName", this.symbolicName);
+
+            final PreparedDp result = new PreparedDp(this, dpmf, files, scanNanos, savedBytes, temporary,
+                    this.cache, candidateBundles);
+            if (this.version != null) {
+                result.setVersion(this.version);
+            }
+            return result;
+        } catch (final IOException | RuntimeException e) {
+            PreparedDp.delete(temporary);
+            throw e;
+        }
+    }
+
+    BuildLog getLog() {
+        return this.log;
+    }
+
+    EntryCompression getCompression() {
+        return this.compression;
+    }
+
+    int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+
+    int getWriteThreads() {
+        return this.writeThreads;
+    }
+
+    long getWriteBudget() {
+        return this.writeBudget;
+    }
+
+    Long getTimestamp() {
+        return this.timestamp;
+    }
+
+    Signing getSigning() {
+        return this.signing;
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.builder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single part of a split DP
+ *
+ * @see PreparedDp#split(long)
+ */
+public class DpPart {
+
+    private final PreparedDp dp;
+
+    private final int index;
+
+    private final String name;
+
+    private final String version;
+
+    private final String fixPack;
+
+    private final Map<String, BundleInfo> content;
+
+    private final byte[] manifest;
+
+    private final long estimatedSize;
+
+    DpPart(final PreparedDp dp, final int index, final String name, final String version, final String fixPack,
+            final Map<String, BundleInfo> content, final byte[] manifest, final long estimatedSize) {
+        this.dp = dp;
+        this.index = index;
+        this.name = name;
+        this.version = version;
+        this.fixPack = fixPack;
+        this.content = content;
+        this.manifest = manifest;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * @return the index of the part, starting with 1
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * @return the name of the part, e.g. {@code part01}
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    public String getVersion() {
+        return this.version;
+    }
+
+    /**
+     * @return the value of the {@code DeploymentPackage-FixPack} header, may
+     *         be {@code null} for the first part
+     */
+    public String getFixPack() {
+        return this.fixPack;
+    }
+
+    /**
+     * @return the entry names of the bundles of this part, in install order
+     */
+    public List<String> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(this.content.keySet()));
+    }
+
+    /**
+     * @return the worst case size of the part
+     */
+    public long getEstimatedSize() {
+        return this.estimatedSize;
+    }
+
+    public void write(final Path out) throws IOException {
+        this.dp.writeFile(out, this.manifest, this.content, null);
+    }
+
+    /**
+     * Write the part to a stream, without closing it
+     */
+    public void write(final OutputStream out) throws IOException {
+        write(Channels.newChannel(out));
+        out.flush();
+    }
+
+    /**
+     * Write the part to a channel, without closing it
+     */
+    public void write(final WritableByteChannel out) throws IOException {
+        write(out, null);
+    }
+
+    public void write(final WritableByteChannel out, final PreparedDp.EntryListener listener) throws IOException {
+        this.dp.write(out, this.manifest, this.content, listener);
+    }
+}
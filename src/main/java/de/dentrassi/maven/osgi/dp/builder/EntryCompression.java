@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.builder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * The compression of bundle entries in the DP
+ */
+public enum EntryCompression {
+    /**
+     * Store all entries without compression
+     */
+    STORED {
+        @Override
+        public int method(final Path file, final long size) {
+            return ZipEntry.STORED;
+        }
+    },
+    /**
+     * Deflate all entries
+     */
+    DEFLATED {
+        @Override
+        public int method(final Path file, final long size) {
+            return ZipEntry.DEFLATED;
+        }
+    },
+    /**
+     * Store entries which don't compress well, deflate all others
+     */
+    AUTO {
+        @Override
+        public int method(final Path file, final long size) throws IOException {
+            return estimateRatio(file, size) >= AUTO_THRESHOLD ? ZipEntry.STORED : ZipEntry.DEFLATED;
+        }
+    };
+
+    /**
+     * The estimated ratio (compressed/uncompressed) from which on entries are
+     * stored in {@link #AUTO} mode
+     */
+    private static final double AUTO_THRESHOLD = 0.9;
+
+    private static final int SAMPLE_SIZE = 16 * 1024;
+
+    private static final int SAMPLES = 4;
+
+    /**
+     * Evaluate the ZIP method of an entry
+     *
+     * @param file
+     *            the content of the entry
+     * @param size
+     *            the size of the file
+     * @return the ZIP method, either {@link ZipEntry#STORED} or
+     *         {@link ZipEntry#DEFLATED}
+     * @throws IOException
+     *             if the file needs to be sampled and reading fails
+     */
+    public abstract int method(Path file, long size) throws IOException;
+
+    /**
+     * Estimate the compression ratio of a file
+     * <p>
+     * Deflates a few samples of the file, spread evenly across its content,
+     * with the fastest compression level.
+     * </p>
+     */
+    static double estimateRatio(final Path file, final long size) throws IOException {
+        if (size <= 0) {
+            return 1.0;
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer sample = ByteBuffer.allocate(SAMPLE_SIZE);
+            final byte[] out = new byte[SAMPLE_SIZE * 2];
+
+            final int samples = (int) Math.min(SAMPLES, (size + SAMPLE_SIZE - 1) / SAMPLE_SIZE);
+            final long step = size / samples;
+
+            long input = 0;
+            long output = 0;
+
+            for (int i = 0; i < samples; i++) {
+                long position = i * step;
+
+                sample.clear();
+                sample.limit((int) Math.min(SAMPLE_SIZE, size - position));
+
+                while (sample.hasRemaining()) {
+                    final int rc = channel.read(sample, position);
+                    if (rc < 0) {
+                        break;
+                    }
+                    position += rc;
+                }
+                sample.flip();
+
+                deflater.reset();
+                deflater.setInput(sample.array(), 0, sample.limit());
+                deflater.finish();
+                while (!deflater.finished()) {
+                    output += deflater.deflate(out);
+                }
+                input += sample.limit();
+            }
+
+            return input == 0 ? 1.0 : (double) output / (double) input;
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,691 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.builder;
+
+import static java.lang.String.format;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.osgi.framework.Version;
+
+import de.dentrassi.maven.osgi.dp.internal.Baseline;
+import de.dentrassi.maven.osgi.dp.internal.Digests;
+import de.dentrassi.maven.osgi.dp.internal.DpSplitter;
+import de.dentrassi.maven.osgi.dp.internal.JarWriter;
+import de.dentrassi.maven.osgi.dp.internal.JarSignature;
+import de.dentrassi.maven.osgi.dp.internal.ManifestWriter;
+import de.dentrassi.maven.osgi.dp.internal.MetadataCache;
+import de.dentrassi.maven.osgi.dp.internal.RepositoryIndex;
+import de.dentrassi.maven.osgi.dp.internal.WritePipeline;
+import de.dentrassi.maven.osgi.dp.internal.ZipIndex;
+
+/**
+ * A DP with all bundles scanned, ready to be written
+ * <p>
+ * The DP manifest may still be changed, e.g. by setting the version or by
+ * applying a baseline, before writing the DP. Writing does not change the
+ * prepared DP, so it can be written several times, also concurrently.
+ * </p>
+ */
+public class PreparedDp implements Closeable {
+
+    /**
+     * A listener for written bundle entries
+     */
+    @FunctionalInterface
+    public interface EntryListener {
+        /**
+         * Called after a bundle entry was written
+         *
+         * @param name
+         *            the name of the entry
+         * @param bytes
+         *            the number of bytes written, including the headers
+         * @param method
+         *            the compression method, as defined by {@link ZipEntry}
+         * @param nanos
+         *            the time spent writing the entry
+         */
+        public void written(String name, long bytes, int method, long nanos);
+    }
+
+    private final BuildLog log;
+
+    private final EntryCompression compression;
+
+    private final int compressionLevel;
+
+    private final int writeThreads;
+
+    private final long writeBudget;
+
+    private final Long timestamp;
+
+    private final Signing signing;
+
+    private final Manifest dpmf;
+
+    private final Map<String, BundleInfo> files;
+
+    /**
+     * All bundles of the DP, including the bundles missing in a fix-pack
+     */
+    private final Map<String, BundleInfo> indexed;
+
+    private final Map<String, Long> scanNanos;
+
+    private final Map<String, Long> savedBytes;
+
+    private final List<String> entryOrder;
+
+    private final List<Path> temporary;
+
+    private final MetadataCache cache;
+
+    /**
+     * The scanned bundles, whose digests may be added to the cache
+     */
+    private final List<BundleInfo> scanned;
+
+    PreparedDp(final DpBuilder builder, final Manifest dpmf, final Map<String, BundleInfo> files,
+            final Map<String, Long> scanNanos, final Map<String, Long> savedBytes, final List<Path> temporary,
+            final MetadataCache cache, final List<BundleInfo> scanned) {
+        this.log = builder.getLog();
+        this.compression = builder.getCompression();
+        this.compressionLevel = builder.getCompressionLevel();
+        this.writeThreads = builder.getWriteThreads();
+        this.writeBudget = builder.getWriteBudget();
+        this.timestamp = builder.getTimestamp();
+        this.signing = builder.getSigning();
+
+        this.dpmf = dpmf;
+        this.files = files;
+        this.indexed = new LinkedHashMap<>(files);
+        this.scanNanos = scanNanos;
+        this.savedBytes = savedBytes;
+        this.entryOrder = new ArrayList<>(files.keySet());
+        this.temporary = temporary;
+        this.cache = cache;
+        this.scanned = scanned;
+    }
+
+    private PreparedDp(final PreparedDp parent, final Manifest dpmf, final Map<String, BundleInfo> files,
+            final Map<String, Long> scanNanos) {
+        this.log = parent.log;
+        this.compression = parent.compression;
+        this.compressionLevel = parent.compressionLevel;
+        this.writeThreads = parent.writeThreads;
+        this.writeBudget = parent.writeBudget;
+        this.timestamp = parent.timestamp;
+        this.signing = parent.signing;
+
+        this.dpmf = dpmf;
+        this.files = files;
+        this.indexed = new LinkedHashMap<>(files);
+        this.scanNanos = scanNanos;
+        this.savedBytes = parent.savedBytes;
+        this.entryOrder = new ArrayList<>(files.keySet());
+        // the temporary files and the cache are owned by the parent
+        this.temporary = new ArrayList<>();
+        this.cache = null;
+        this.scanned = Collections.emptyList();
+    }
+
+    /**
+     * Create a DP from a subset of the bundles of this DP
+     * <p>
+     * The bundles are not scanned again. The new DP has no version, and must
+     * not be used after this DP was closed.
+     * </p>
+     *
+     * @param symbolicName
+     *            the symbolic name of the new DP
+     * @param filter
+     *            the filter selecting the bundles
+     * @return the new DP
+     */
+    public PreparedDp select(final String symbolicName, final Predicate<BundleInfo> filter) {
+        final Manifest mf = new Manifest();
+        mf.getMainAttributes().putAll(this.dpmf.getMainAttributes());
+        mf.getMainAttributes().remove(new Attributes.Name("DeploymentPackage-Version"));
+        mf.getMainAttributes().putValue("DeploymentPackage-SymbolicName", symbolicName);
+
+        final Map<String, BundleInfo> files = new LinkedHashMap<>();
+        final Map<String, Long> scanNanos = new LinkedHashMap<>();
+
+        for (final Map.Entry<String, BundleInfo> entry : this.files.entrySet()) {
+            if (filter.test(entry.getValue())) {
+                files.put(entry.getKey(), entry.getValue());
+                scanNanos.put(entry.getKey(), getScanNanos(entry.getKey()));
+                mf.getEntries().put(entry.getKey(), (Attributes) this.dpmf.getEntries().get(entry.getKey()).clone());
+            }
+        }
+
+        return new PreparedDp(this, mf, files, scanNanos);
+    }
+
+    public String getSymbolicName() {
+        return this.dpmf.getMainAttributes().getValue("DeploymentPackage-SymbolicName");
+    }
+
+    public String getVersion() {
+        return this.dpmf.getMainAttributes().getValue("DeploymentPackage-Version");
+    }
+
+    /**
+     * Set the version of the DP
+     *
+     * @param version
+     *            the version, must be a valid OSGi version
+     */
+    public void setVersion(final String version) {
+        this.dpmf.getMainAttributes().putValue("DeploymentPackage-Version",
+                Version.parseVersion(version).toString());
+    }
+
+    /**
+     * @return the DP manifest, which may be modified before writing
+     */
+    public Manifest getManifest() {
+        return this.dpmf;
+    }
+
+    /**
+     * @return the bundles which get written, by entry name, in order
+     */
+    public Map<String, BundleInfo> getBundles() {
+        return Collections.unmodifiableMap(this.files);
+    }
+
+    /**
+     * @return the time spent reading the metadata of a bundle, or zero if it
+     *         was taken from the cache
+     */
+    public long getScanNanos(final String entryName) {
+        return this.scanNanos.getOrDefault(entryName, 0L);
+    }
+
+    /**
+     * @return the number of bytes saved by slimming a bundle, or zero if it
+     *         was not slimmed
+     */
+    public long getSavedBytes(final String entryName) {
+        return this.savedBytes.getOrDefault(entryName, 0L);
+    }
+
+    /**
+     * Create a qualifier from the content of the DP
+     * <p>
+     * The qualifier only changes when the bundles or their content change.
+     * </p>
+     *
+     * @throws IOException
+     *             if reading the content of a bundle fails
+     */
+    public String getContentQualifier() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (final Map.Entry<String, BundleInfo> entry : this.files.entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue().getDigest()).append('\n');
+        }
+        return Digests.hex(sb.toString()).substring(0, 16);
+    }
+
+    /**
+     * Turn the DP into a fix-pack for a baseline
+     * <p>
+     * Unchanged bundles get marked as missing in the manifest, and will not be
+     * written. The version must be set before.
+     * </p>
+     *
+     * @param location
+     *            the baseline DP
+     * @return the number of unchanged bundles
+     * @throws IOException
+     *             if the baseline cannot be read, or is a different DP
+     */
+    public int applyBaseline(final Path location) throws IOException {
+        try (Baseline base = Baseline.open(location)) {
+            return applyBaseline(location, base);
+        }
+    }
+
+    /**
+     * Turn the DP into a fix-pack for a baseline, of which only the manifest
+     * is known
+     * <p>
+     * Bundles are compared using the digests of the baseline manifest. If
+     * the baseline has no digests, bundles with the same symbolic name and
+     * version are considered unchanged.
+     * </p>
+     *
+     * @param manifest
+     *            the manifest of the baseline DP
+     * @return the number of unchanged bundles
+     * @throws IOException
+     *             if the manifest is not the manifest of the same DP
+     */
+    public int applyBaseline(final Manifest manifest) throws IOException {
+        try (Baseline base = Baseline.fromManifest("manifest", manifest)) {
+            return applyBaseline("manifest", base);
+        }
+    }
+
+    private int applyBaseline(final Object location, final Baseline base) throws IOException {
+        if (!getSymbolicName().equals(base.getSymbolicName())) {
+            throw new IOException(format("Baseline '%s' is a different deployment package: %s", location,
+                    base.getSymbolicName()));
+        }
+
+        final String dpVersion = getVersion();
+        try {
+            if (Version.parseVersion(dpVersion).compareTo(Version.parseVersion(base.getVersion())) <= 0) {
+                this.log.warn(format("Version of the fix-pack (%s) is not higher than the baseline (%s)",
+                        dpVersion, base.getVersion()));
+            }
+        } catch (final IllegalArgumentException e) {
+            throw new IOException(format("Invalid baseline version: %s", base.getVersion()), e);
+        }
+
+        this.dpmf.getMainAttributes().putValue("DeploymentPackage-FixPack",
+                format("[%1$s,%1$s]", base.getVersion()));
+
+        int unchanged = 0;
+        for (final Iterator<Map.Entry<String, BundleInfo>> i = this.files.entrySet().iterator(); i.hasNext();) {
+            final Map.Entry<String, BundleInfo> entry = i.next();
+            if (base.isUnchanged(entry.getValue())) {
+                this.log.debug(format("Unchanged: %s", entry.getValue()));
+                this.dpmf.getEntries().get(entry.getKey()).putValue("DeploymentPackage-Missing", "true");
+                i.remove();
+                unchanged++;
+            }
+        }
+
+        this.log.info(format("Building fix-pack for %s:%s - %s changed, %s unchanged bundles",
+                base.getSymbolicName(), base.getVersion(), this.files.size(), unchanged));
+
+        return unchanged;
+    }
+
+    /**
+     * @return the serialized DP manifest, in a stable order
+     */
+    public byte[] getManifestBytes() throws IOException {
+        checkVersion();
+        return ManifestWriter.write(this.dpmf, this.entryOrder);
+    }
+
+    /**
+     * Write an OSGi repository index of the bundles of the DP
+     * <p>
+     * The index is created from the scanned metadata, without reading the
+     * bundles again. It describes all bundles of the DP, including the
+     * bundles which are missing in a fix-pack, using the entry names as
+     * URLs.
+     * </p>
+     *
+     * @param out
+     *            the file to write to
+     * @param compressed
+     *            whether to compress the index using GZIP
+     */
+    public void writeIndex(final Path out, final boolean compressed) throws IOException {
+        try (OutputStream os = compressed ? new GZIPOutputStream(Files.newOutputStream(out))
+                : Files.newOutputStream(out)) {
+            writeIndex(os);
+        }
+    }
+
+    /**
+     * Write an OSGi repository index of the bundles of the DP to a stream
+     * <p>
+     * The stream is not closed.
+     * </p>
+     */
+    public void writeIndex(final OutputStream out) throws IOException {
+        final String version = getVersion();
+        final String name = version != null ? format("%s_%s", getSymbolicName(), version) : getSymbolicName();
+        final long increment = this.timestamp != null ? this.timestamp : System.currentTimeMillis();
+
+        new RepositoryIndex(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))).write(name,
+                increment, this.indexed);
+    }
+
+    /**
+     * Write the DP to a file
+     */
+    public void write(final Path out) throws IOException {
+        write(out, null);
+    }
+
+    public void write(final Path out, final EntryListener listener) throws IOException {
+        writeFile(out, getManifestBytes(), this.files, listener);
+    }
+
+    /**
+     * Write the DP to a stream
+     * <p>
+     * The stream is not closed.
+     * </p>
+     */
+    public void write(final OutputStream out) throws IOException {
+        write(out, null);
+    }
+
+    public void write(final OutputStream out, final EntryListener listener) throws IOException {
+        write(Channels.newChannel(out), listener);
+        out.flush();
+    }
+
+    /**
+     * Write the DP to a channel
+     * <p>
+     * The channel is not closed.
+     * </p>
+     */
+    public void write(final WritableByteChannel out) throws IOException {
+        write(out, null);
+    }
+
+    public void write(final WritableByteChannel out, final EntryListener listener) throws IOException {
+        write(out, getManifestBytes(), this.files, listener);
+    }
+
+    /**
+     * Write the DP to a channel, copying unchanged bundles from a previous
+     * version of the DP
+     * <p>
+     * Bundles which the previous DP contains with the same entry name, size
+     * and CRC, and a compression method matching the configuration, are
+     * copied as they are, without compressing them again. The manifest and
+     * all other bundles are written as usual. If the previous DP cannot be
+     * read, the DP is written from scratch. The channel is not closed.
+     * </p>
+     * <p>
+     * The compression level of copied bundles is not checked, the previous DP
+     * must have been written with the same level. Then the result is the same
+     * as writing the DP from scratch.
+     * </p>
+     *
+     * @param out
+     *            the channel to write to
+     * @param previous
+     *            the previous DP, which must not be the target of the channel
+     * @param listener
+     *            the listener, may be {@code null}
+     * @return the number of bundles copied from the previous DP
+     */
+    public int update(final WritableByteChannel out, final Path previous, final EntryListener listener)
+            throws IOException {
+        final ZipIndex index;
+        try {
+            index = ZipIndex.open(previous);
+        } catch (final IOException e) {
+            this.log.warn(format("Failed to read the previous DP '%s', writing it from scratch: %s", previous,
+                    e.getMessage()));
+            write(out, listener);
+            return 0;
+        }
+
+        try {
+            return write(out, getManifestBytes(), this.files, index, listener);
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Split the bundles of the DP into several parts of limited size
+     * <p>
+     * The first part is a complete DP, each following part is a fix-pack for
+     * the previous part. Bundles are placed after the bundles they import
+     * packages from or require, where possible.
+     * </p>
+     *
+     * @param limit
+     *            the maximum size of a part, in bytes
+     * @return the parts, in install order
+     * @throws IOException
+     *             if a single bundle does not fit into a part
+     */
+    public List<DpPart> split(final long limit) throws IOException {
+        checkVersion();
+
+        final List<DpSplitter.Part> parts = new DpSplitter(limit, this.compression, this.signing != null)
+                .split(this.dpmf, this.files);
+
+        for (final DpSplitter.Part part : parts) {
+            if (part.getEstimatedSize() > limit) {
+                throw new IOException(format("Bundle '%s' does not fit into a part of %s bytes",
+                        this.files.get(part.getEntries().get(0)), limit));
+            }
+        }
+
+        final String format = "part%0" + Math.max(2, Integer.toString(parts.size()).length()) + "d";
+        final String dpVersion = getVersion();
+
+        final List<String> order = new ArrayList<>(this.files.size());
+        for (final DpSplitter.Part part : parts) {
+            order.addAll(part.getEntries());
+        }
+
+        final List<DpPart> result = new ArrayList<>(parts.size());
+
+        final Set<String> previous = new HashSet<>();
+        String previousVersion = this.dpmf.getMainAttributes().getValue("DeploymentPackage-FixPack");
+
+        for (final DpSplitter.Part part : parts) {
+            final String name = format(format, part.getIndex());
+            final String version = partVersion(dpVersion, name);
+
+            final Manifest mf = new Manifest();
+            mf.getMainAttributes().putAll(this.dpmf.getMainAttributes());
+            mf.getMainAttributes().putValue("DeploymentPackage-Version", version);
+
+            final String fixPack = part.getIndex() == 1 ? previousVersion
+                    : format("[%1$s,%1$s]", previousVersion);
+            if (fixPack != null) {
+                mf.getMainAttributes().putValue("DeploymentPackage-FixPack", fixPack);
+            }
+
+            final Map<String, BundleInfo> content = new LinkedHashMap<>();
+            for (final String entry : part.getEntries()) {
+                content.put(entry, this.files.get(entry));
+            }
+
+            for (final Map.Entry<String, Attributes> section : this.dpmf.getEntries().entrySet()) {
+                final String entry = section.getKey();
+                if (content.containsKey(entry) || !this.files.containsKey(entry)) {
+                    // included in this part, or missing in the DP itself
+                    mf.getEntries().put(entry, (Attributes) section.getValue().clone());
+                } else if (previous.contains(entry)) {
+                    final Attributes attrs = (Attributes) section.getValue().clone();
+                    attrs.putValue("DeploymentPackage-Missing", "true");
+                    mf.getEntries().put(entry, attrs);
+                }
+            }
+
+            result.add(new DpPart(this, part.getIndex(), name, version, fixPack, content,
+                    ManifestWriter.write(mf, order), part.getEstimatedSize()));
+
+            previous.addAll(part.getEntries());
+            previousVersion = version;
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the version of a part
+     * <p>
+     * The name of the part is appended to the qualifier of the DP version, so
+     * that each part has a higher version than the previous one.
+     * </p>
+     */
+    private static String partVersion(final String dpVersion, final String name) {
+        final Version v = Version.parseVersion(dpVersion);
+        final String qualifier = v.getQualifier().isEmpty() ? name : v.getQualifier() + "_" + name;
+        return new Version(v.getMajor(), v.getMinor(), v.getMicro(), qualifier).toString();
+    }
+
+    void writeFile(final Path out, final byte[] manifest, final Map<String, BundleInfo> content,
+            final EntryListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(channel, manifest, content, listener);
+        }
+    }
+
+    void write(final WritableByteChannel channel, final byte[] manifest, final Map<String, BundleInfo> content,
+            final EntryListener listener) throws IOException {
+        write(channel, manifest, content, null, listener);
+    }
+
+    private int write(final WritableByteChannel channel, final byte[] manifest,
+            final Map<String, BundleInfo> content, final ZipIndex previous, final EntryListener listener)
+            throws IOException {
+
+        final JarWriter jar = new JarWriter(channel);
+
+        jar.setLevel(this.compressionLevel);
+        if (this.timestamp != null) {
+            // don't depend on the time zone of the build
+            jar.setZone(ZoneOffset.UTC);
+        }
+
+        final long time = this.timestamp != null ? this.timestamp : System.currentTimeMillis();
+
+        jar.addEntry(JarFile.MANIFEST_NAME, manifest, ZipEntry.DEFLATED, time);
+
+        if (this.signing != null) {
+            // the signature files must directly follow the manifest
+            for (final Map.Entry<String, byte[]> entry : JarSignature.create(manifest, this.signing).entrySet()) {
+                jar.addEntry(entry.getKey(), entry.getValue(), ZipEntry.DEFLATED, time);
+            }
+        }
+
+        int reused = 0;
+        final List<WritePipeline.Source> sources = new ArrayList<>(content.size());
+        for (final Map.Entry<String, BundleInfo> entry : content.entrySet()) {
+
+            final BundleInfo bundle = entry.getValue();
+            final Path p = bundle.getLocation();
+
+            final ZipIndex.Entry unchanged = previous != null ? reusable(previous, entry.getKey(), bundle) : null;
+            if (unchanged != null) {
+                reused++;
+            }
+
+            // an unknown CRC gets calculated while writing the bundle
+            sources.add(new WritePipeline.Source(entry.getKey(), p, bundle.getSize(),
+                    bundle.hasChecksums() ? bundle.getCrc() : -1,
+                    this.timestamp != null ? this.timestamp : Files.getLastModifiedTime(p).toMillis(), unchanged));
+        }
+
+        new WritePipeline(this.writeThreads, this.writeBudget, this.compression, this.compressionLevel).write(jar,
+                sources, listener == null ? null
+                        : (source, bytes, method, nanos) -> listener.written(source.getName(), bytes, method, nanos));
+
+        jar.finish();
+
+        return reused;
+    }
+
+    /**
+     * Get the entry of the previous DP, if it can be copied
+     *
+     * @return the entry, or {@code null} if the bundle must be written
+     */
+    private ZipIndex.Entry reusable(final ZipIndex previous, final String name, final BundleInfo bundle)
+            throws IOException {
+        final ZipIndex.Entry entry = previous.getEntry(name);
+        if (entry == null || entry.isEncrypted() || entry.getSize() != bundle.getSize()
+                || entry.getCrc() != bundle.getCrc()) {
+            return null;
+        }
+
+        final int method = entry.getMethod();
+        switch (this.compression) {
+        case STORED:
+            return method == ZipEntry.STORED ? entry : null;
+        case DEFLATED:
+            return method == ZipEntry.DEFLATED ? entry : null;
+        default:
+            // the automatic choice only depends on the content
+            return method == ZipEntry.STORED || method == ZipEntry.DEFLATED ? entry : null;
+        }
+    }
+
+    private void checkVersion() {
+        if (getVersion() == null) {
+            throw new IllegalStateException("The version of the DP is not set");
+        }
+    }
+
+    /**
+     * Delete the temporary files of bundles added as streams
+     * <p>
+     * Digests of bundles which got calculated while building the DP are
+     * added to the metadata cache.
+     * </p>
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.cache != null) {
+            this.cache.update(this.scanned);
+        }
+        delete(this.temporary);
+    }
+
+    static void delete(final List<Path> files) throws IOException {
+        IOException error = null;
+        for (final Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (final IOException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        files.clear();
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.builder;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The key and certificates used for signing a DP
+ * <p>
+ * The DP is signed like a JAR, with a signature file and a PKCS#7 signature
+ * block following the manifest, as required by the OSGi deployment admin
+ * specification.
+ * </p>
+ */
+public class Signing {
+
+    private final PrivateKey key;
+
+    private final List<X509Certificate> chain;
+
+    private final String name;
+
+    /**
+     * Create a new configuration
+     *
+     * @param key
+     *            the private key, an RSA, EC or DSA key
+     * @param chain
+     *            the certificate chain, starting with the certificate of the
+     *            key
+     * @param name
+     *            the base name of the signature files, like the alias of the
+     *            key
+     */
+    public Signing(final PrivateKey key, final List<X509Certificate> chain, final String name) {
+        this.key = Objects.requireNonNull(key);
+        if (chain.isEmpty()) {
+            throw new IllegalArgumentException("The certificate chain must not be empty");
+        }
+        this.chain = Collections.unmodifiableList(new ArrayList<>(chain));
+        this.name = toFileName(name);
+    }
+
+    /**
+     * Load the key and certificates from a keystore
+     *
+     * @param keystore
+     *            the keystore file
+     * @param type
+     *            the type of the keystore, or {@code null} for the default
+     *            type
+     * @param storePassword
+     *            the password of the keystore, may be {@code null}
+     * @param alias
+     *            the alias of the key
+     * @param keyPassword
+     *            the password of the key, or {@code null} to use the
+     *            password of the keystore
+     * @return the configuration
+     * @throws IOException
+     *             if the keystore cannot be read, or does not contain the key
+     */
+    public static Signing load(final Path keystore, final String type, final char[] storePassword,
+            final String alias, final char[] keyPassword) throws IOException {
+        try {
+            final KeyStore ks = KeyStore.getInstance(type != null ? type : KeyStore.getDefaultType());
+            try (InputStream in = Files.newInputStream(keystore)) {
+                ks.load(in, storePassword);
+            }
+
+            final PrivateKey key = (PrivateKey) ks.getKey(alias,
+                    keyPassword != null ? keyPassword : storePassword);
+            final Certificate[] certificates = ks.getCertificateChain(alias);
+            if (key == null || certificates == null) {
+                throw new IOException(format("Keystore '%s' does not contain a private key for alias '%s'",
+                        keystore, alias));
+            }
+
+            final List<X509Certificate> chain = new ArrayList<>(certificates.length);
+            for (final Certificate certificate : certificates) {
+                chain.add((X509Certificate) certificate);
+            }
+            return new Signing(key, chain, alias);
+        } catch (final GeneralSecurityException | ClassCastException e) {
+            throw new IOException(format("Failed to load key '%s' from keystore '%s'", alias, keystore), e);
+        }
+    }
+
+    /**
+     * Make a signature file name, following the rules of the
+     * {@code jarsigner}
+     */
+    private static String toFileName(final String name) {
+        final StringBuilder sb = new StringBuilder(8);
+        for (final char c : name.toUpperCase(Locale.ROOT).toCharArray()) {
+            if (sb.length() == 8) {
+                break;
+            }
+            sb.append(c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_' ? c : '_');
+        }
+        return sb.length() > 0 ? sb.toString() : "SIGNER";
+    }
+
+    public PrivateKey getKey() {
+        return this.key;
+    }
+
+    public List<X509Certificate> getChain() {
+        return this.chain;
+    }
+
+    /**
+     * @return the base name of the signature files, upper case, with at most
+     *         eight characters
+     */
+    public String getName() {
+        return this.name;
+    }
+}
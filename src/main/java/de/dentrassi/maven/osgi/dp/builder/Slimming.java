@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.builder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+/**
+ * The configuration of the slimming stage, which rewrites bundles before they
+ * get added to the DP
+ * <p>
+ * Slimming removes entries matching the exclude patterns, recompresses all
+ * other entries and optionally normalizes their timestamps. Signed bundles are
+ * never changed. The results are cached by the digest of the input bundle, so
+ * that unchanged bundles are only rewritten once.
+ * </p>
+ */
+public class Slimming {
+
+    /**
+     * The default exclude patterns, Maven metadata and embedded sources
+     */
+    public static final List<String> DEFAULT_EXCLUDES = Collections
+            .unmodifiableList(Arrays.asList("META-INF/maven/**", "OSGI-OPT/src/**"));
+
+    private final Path cacheDirectory;
+
+    private List<String> excludes = DEFAULT_EXCLUDES;
+
+    private int level = Deflater.BEST_COMPRESSION;
+
+    private boolean normalizeTimestamps = true;
+
+    /**
+     * Create a new configuration
+     *
+     * @param cacheDirectory
+     *            the directory storing the slimmed bundles
+     */
+    public Slimming(final Path cacheDirectory) {
+        this.cacheDirectory = Objects.requireNonNull(cacheDirectory);
+    }
+
+    /**
+     * Set the patterns of entries to remove
+     * <p>
+     * Patterns may use {@code *}, matching within a path segment,
+     * {@code **}, matching across segments, and {@code ?} as wildcards. The
+     * manifest is never removed.
+     * </p>
+     */
+    public Slimming excludes(final Collection<String> excludes) {
+        this.excludes = Collections.unmodifiableList(new ArrayList<>(excludes));
+        return this;
+    }
+
+    /**
+     * Set the deflate level for the entries of the bundles, from 0 to 9
+     */
+    public Slimming level(final int level) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException(String.format("Invalid compression level: %s", level));
+        }
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Set the timestamps of all entries to the timestamp of the DP, or a
+     * fixed timestamp if the DP has none
+     */
+    public Slimming normalizeTimestamps(final boolean normalizeTimestamps) {
+        this.normalizeTimestamps = normalizeTimestamps;
+        return this;
+    }
+
+    public Path getCacheDirectory() {
+        return this.cacheDirectory;
+    }
+
+    public List<String> getExcludes() {
+        return this.excludes;
+    }
+
+    public int getLevel() {
+        return this.level;
+    }
+
+    public boolean isNormalizeTimestamps() {
+        return this.normalizeTimestamps;
+    }
+}
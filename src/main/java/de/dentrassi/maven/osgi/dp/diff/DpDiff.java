@@ -0,0 +1,557 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.diff;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.osgi.framework.Version;
+
+import de.dentrassi.maven.osgi.dp.internal.Digests;
+import de.dentrassi.maven.osgi.dp.internal.JsonWriter;
+
+/**
+ * The structural difference between two DPs
+ * <p>
+ * Only the central directory and the DP manifest of both DPs are read, the
+ * bundles are never extracted. Bundles are matched by their symbolic name,
+ * resources by their name. If a DP contains several versions of a bundle,
+ * these are matched by their version, and reported as
+ * {@link #getMultipleVersions() multiple versions}. The content of bundles
+ * with the same version is
+ * compared using the digests of the DP manifests, if both have one, and
+ * using size and CRC of the entries otherwise. Bundles which are missing in
+ * a fix-pack are considered unchanged.
+ * </p>
+ */
+public class DpDiff {
+
+    public enum Kind {
+        ADDED("+"), REMOVED("-"), VERSION_CHANGED("~"), CONTENT_CHANGED("*");
+
+        private final String marker;
+
+        private Kind(final String marker) {
+            this.marker = marker;
+        }
+
+        public String getMarker() {
+            return this.marker;
+        }
+    }
+
+    /**
+     * A changed bundle or resource
+     */
+    public static class Change {
+        private final Kind kind;
+
+        private final String name;
+
+        private final boolean resource;
+
+        private final String fromVersion;
+
+        private final String toVersion;
+
+        private final String fromEntry;
+
+        private final String toEntry;
+
+        Change(final Kind kind, final String name, final boolean resource, final Item from, final Item to) {
+            this.kind = kind;
+            this.name = name;
+            this.resource = resource;
+            this.fromVersion = from != null ? from.version : null;
+            this.toVersion = to != null ? to.version : null;
+            this.fromEntry = from != null ? from.entry : null;
+            this.toEntry = to != null ? to.entry : null;
+        }
+
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        /**
+         * @return the symbolic name of the bundle, or the name of the
+         *         resource
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        public boolean isResource() {
+            return this.resource;
+        }
+
+        public String getFromVersion() {
+            return this.fromVersion;
+        }
+
+        public String getToVersion() {
+            return this.toVersion;
+        }
+
+        public String getFromEntry() {
+            return this.fromEntry;
+        }
+
+        public String getToEntry() {
+            return this.toEntry;
+        }
+
+        @Override
+        public String toString() {
+            switch (this.kind) {
+            case ADDED:
+                return format("%s %s %s", this.kind.getMarker(), this.name, version(this.toVersion));
+            case REMOVED:
+                return format("%s %s %s", this.kind.getMarker(), this.name, version(this.fromVersion));
+            case VERSION_CHANGED:
+                return format("%s %s %s -> %s", this.kind.getMarker(), this.name, version(this.fromVersion),
+                        version(this.toVersion));
+            default:
+                return format("%s %s %s (content changed)", this.kind.getMarker(), this.name,
+                        version(this.toVersion));
+            }
+        }
+
+        private String version(final String version) {
+            return this.resource ? "(resource)" : Objects.toString(version, "0.0.0");
+        }
+    }
+
+    /**
+     * A bundle which one of the DPs contains in several versions
+     */
+    public static class MultipleVersions {
+        private final String symbolicName;
+
+        private final List<String> fromVersions;
+
+        private final List<String> toVersions;
+
+        MultipleVersions(final String symbolicName, final Map<String, Item> from, final Map<String, Item> to) {
+            this.symbolicName = symbolicName;
+            this.fromVersions = sorted(from.keySet());
+            this.toVersions = sorted(to.keySet());
+        }
+
+        public String getSymbolicName() {
+            return this.symbolicName;
+        }
+
+        /**
+         * @return the versions in the old DP, may be empty
+         */
+        public List<String> getFromVersions() {
+            return this.fromVersions;
+        }
+
+        /**
+         * @return the versions in the new DP, may be empty
+         */
+        public List<String> getToVersions() {
+            return this.toVersions;
+        }
+
+        @Override
+        public String toString() {
+            return format("Multiple versions of %s: %s -> %s", this.symbolicName, versions(this.fromVersions),
+                    versions(this.toVersions));
+        }
+
+        private static String versions(final List<String> versions) {
+            return versions.isEmpty() ? "(none)" : String.join(", ", versions);
+        }
+
+        private static List<String> sorted(final Collection<String> versions) {
+            final List<String> result = new ArrayList<>(versions);
+            result.sort((a, b) -> {
+                try {
+                    return Version.parseVersion(a).compareTo(Version.parseVersion(b));
+                } catch (final IllegalArgumentException e) {
+                    // not written by this plugin
+                    return a.compareTo(b);
+                }
+            });
+            return Collections.unmodifiableList(result);
+        }
+    }
+
+    /**
+     * A bundle or resource of a DP
+     */
+    private static class Item {
+        private final String entry;
+
+        private final String version;
+
+        private final boolean missing;
+
+        private final String digest;
+
+        private final long crc;
+
+        private final long size;
+
+        Item(final String entry, final String version, final boolean missing, final String digest,
+                final ZipEntry ze) {
+            this.entry = entry;
+            this.version = version;
+            this.missing = missing || ze == null;
+            this.digest = digest;
+            this.crc = ze != null ? ze.getCrc() : -1;
+            this.size = ze != null ? ze.getSize() : -1;
+        }
+
+        boolean sameContent(final Item other) {
+            if (this.missing || other.missing) {
+                // a fix-pack doesn't carry unchanged bundles
+                return true;
+            }
+            if (this.digest != null && other.digest != null) {
+                return this.digest.equals(other.digest);
+            }
+            return this.crc == other.crc && this.size == other.size;
+        }
+    }
+
+    /**
+     * The metadata of a DP
+     */
+    private static class Snapshot {
+        private final Path file;
+
+        private final String symbolicName;
+
+        private final String version;
+
+        private final String fixPack;
+
+        /**
+         * The bundles, by symbolic name and version
+         */
+        private final Map<String, Map<String, Item>> bundles = new LinkedHashMap<>();
+
+        private final Map<String, Item> resources = new LinkedHashMap<>();
+
+        Snapshot(final Path file) throws IOException {
+            this.file = file;
+
+            try (ZipFile zip = new ZipFile(file.toFile())) {
+                final ZipEntry mfEntry = zip.getEntry(JarFile.MANIFEST_NAME);
+                if (mfEntry == null) {
+                    throw new IOException(format("'%s' has no manifest", file));
+                }
+
+                final Manifest mf;
+                try (InputStream in = zip.getInputStream(mfEntry)) {
+                    mf = new Manifest(in);
+                }
+
+                this.symbolicName = mf.getMainAttributes().getValue("DeploymentPackage-SymbolicName");
+                this.version = mf.getMainAttributes().getValue("DeploymentPackage-Version");
+                this.fixPack = mf.getMainAttributes().getValue("DeploymentPackage-FixPack");
+
+                if (this.symbolicName == null) {
+                    throw new IOException(format("'%s' is not a deployment package", file));
+                }
+
+                for (final Map.Entry<String, Attributes> section : mf.getEntries().entrySet()) {
+                    final Attributes attrs = section.getValue();
+                    final String bsn = attrs.getValue("Bundle-SymbolicName");
+
+                    final Item item = new Item(section.getKey(), attrs.getValue("Bundle-Version"),
+                            "true".equalsIgnoreCase(attrs.getValue("DeploymentPackage-Missing")),
+                            attrs.getValue(Digests.ALGORITHM + "-Digest"), zip.getEntry(section.getKey()));
+
+                    if (bsn != null) {
+                        // with the conflict policy KEEP_ALL a DP may contain several versions of a bundle
+                        this.bundles.computeIfAbsent(bsn.split(";", 2)[0].trim(), k -> new LinkedHashMap<>())
+                                .put(Objects.toString(item.version, "0.0.0"), item);
+                    } else {
+                        this.resources.put(section.getKey(), item);
+                    }
+                }
+            }
+        }
+    }
+
+    private final Snapshot from;
+
+    private final Snapshot to;
+
+    private final List<Change> changes;
+
+    private final List<MultipleVersions> multipleVersions;
+
+    private final int unchanged;
+
+    private DpDiff(final Snapshot from, final Snapshot to) {
+        this.from = from;
+        this.to = to;
+
+        final List<Change> changes = new ArrayList<>();
+        final List<MultipleVersions> multipleVersions = new ArrayList<>();
+        final int unchanged = compareBundles(from.bundles, to.bundles, changes, multipleVersions)
+                + compare(from.resources, to.resources, changes);
+
+        changes.sort(Comparator.comparing(Change::getKind).thenComparing(Change::getName)
+                .thenComparing(change -> Objects.toString(
+                        change.getToVersion() != null ? change.getToVersion() : change.getFromVersion(), "")));
+        multipleVersions.sort(Comparator.comparing(MultipleVersions::getSymbolicName));
+
+        this.changes = Collections.unmodifiableList(changes);
+        this.multipleVersions = Collections.unmodifiableList(multipleVersions);
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * Compare two DPs
+     *
+     * @param from
+     *            the old DP
+     * @param to
+     *            the new DP
+     * @return the difference
+     * @throws IOException
+     *             if reading the DPs fails, or a file is not a DP
+     */
+    public static DpDiff compare(final Path from, final Path to) throws IOException {
+        return new DpDiff(new Snapshot(from), new Snapshot(to));
+    }
+
+    private static int compareBundles(final Map<String, Map<String, Item>> from,
+            final Map<String, Map<String, Item>> to, final List<Change> changes,
+            final List<MultipleVersions> multipleVersions) {
+        int unchanged = 0;
+
+        for (final Map.Entry<String, Map<String, Item>> entry : from.entrySet()) {
+            final Map<String, Item> f = entry.getValue();
+            final Map<String, Item> t = to.getOrDefault(entry.getKey(), Collections.emptyMap());
+
+            if (f.size() == 1 && t.size() <= 1) {
+                unchanged += compare(entry.getKey(), false, f.values().iterator().next(),
+                        t.isEmpty() ? null : t.values().iterator().next(), changes);
+                continue;
+            }
+
+            // a version cannot change, when there are several of them
+            multipleVersions.add(new MultipleVersions(entry.getKey(), f, t));
+            for (final Map.Entry<String, Item> version : f.entrySet()) {
+                unchanged += compare(entry.getKey(), false, version.getValue(), t.get(version.getKey()), changes);
+            }
+            for (final Map.Entry<String, Item> version : t.entrySet()) {
+                if (!f.containsKey(version.getKey())) {
+                    changes.add(new Change(Kind.ADDED, entry.getKey(), false, null, version.getValue()));
+                }
+            }
+        }
+
+        for (final Map.Entry<String, Map<String, Item>> entry : to.entrySet()) {
+            if (from.containsKey(entry.getKey())) {
+                continue;
+            }
+            if (entry.getValue().size() > 1) {
+                multipleVersions.add(new MultipleVersions(entry.getKey(), Collections.emptyMap(), entry.getValue()));
+            }
+            for (final Item item : entry.getValue().values()) {
+                changes.add(new Change(Kind.ADDED, entry.getKey(), false, null, item));
+            }
+        }
+
+        return unchanged;
+    }
+
+    private static int compare(final Map<String, Item> from, final Map<String, Item> to,
+            final List<Change> changes) {
+        int unchanged = 0;
+
+        for (final Map.Entry<String, Item> entry : from.entrySet()) {
+            unchanged += compare(entry.getKey(), true, entry.getValue(), to.get(entry.getKey()), changes);
+        }
+
+        for (final Map.Entry<String, Item> entry : to.entrySet()) {
+            if (!from.containsKey(entry.getKey())) {
+                changes.add(new Change(Kind.ADDED, entry.getKey(), true, null, entry.getValue()));
+            }
+        }
+
+        return unchanged;
+    }
+
+    /**
+     * Compare a bundle or resource of the old DP with its counterpart
+     *
+     * @return 1 if it is unchanged, 0 otherwise
+     */
+    private static int compare(final String name, final boolean resource, final Item f, final Item t,
+            final List<Change> changes) {
+        if (t == null) {
+            changes.add(new Change(Kind.REMOVED, name, resource, f, null));
+        } else if (!Objects.equals(f.version, t.version)) {
+            changes.add(new Change(Kind.VERSION_CHANGED, name, resource, f, t));
+        } else if (!f.sameContent(t)) {
+            changes.add(new Change(Kind.CONTENT_CHANGED, name, resource, f, t));
+        } else {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * @return all changes, ordered by kind and name
+     */
+    public List<Change> getChanges() {
+        return this.changes;
+    }
+
+    /**
+     * @return the bundles which one of the DPs contains in several versions,
+     *         ordered by symbolic name
+     */
+    public List<MultipleVersions> getMultipleVersions() {
+        return this.multipleVersions;
+    }
+
+    /**
+     * @return the number of bundles and resources which did not change
+     */
+    public int getUnchanged() {
+        return this.unchanged;
+    }
+
+    public boolean isEmpty() {
+        return this.changes.isEmpty() && Objects.equals(this.from.symbolicName, this.to.symbolicName)
+                && Objects.equals(this.from.version, this.to.version)
+                && Objects.equals(this.from.fixPack, this.to.fixPack);
+    }
+
+    public int count(final Kind kind) {
+        int result = 0;
+        for (final Change change : this.changes) {
+            if (change.getKind() == kind) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a one line summary of the changes
+     */
+    public String toSummary() {
+        return format("%s added, %s removed, %s version changed, %s content changed, %s unchanged",
+                count(Kind.ADDED), count(Kind.REMOVED), count(Kind.VERSION_CHANGED), count(Kind.CONTENT_CHANGED),
+                this.unchanged);
+    }
+
+    /**
+     * Write the difference as text, one line per change
+     */
+    public void writeText(final Appendable out) throws IOException {
+        out.append(format("%s %s -> %s %s%n", this.from.symbolicName, this.from.version, this.to.symbolicName,
+                this.to.version));
+        if (!Objects.equals(this.from.fixPack, this.to.fixPack)) {
+            out.append(format("Fix-pack: %s -> %s%n", this.from.fixPack, this.to.fixPack));
+        }
+        for (final MultipleVersions multiple : this.multipleVersions) {
+            out.append(multiple.toString()).append(System.lineSeparator());
+        }
+        for (final Change change : this.changes) {
+            out.append(change.toString()).append(System.lineSeparator());
+        }
+        out.append(toSummary()).append(System.lineSeparator());
+    }
+
+    /**
+     * Write the difference as JSON
+     * <p>
+     * The writer is flushed, but not closed.
+     * </p>
+     */
+    public void writeJson(final Writer out) throws IOException {
+        final JsonWriter json = new JsonWriter(out);
+
+        json.beginObject();
+        writeSnapshot(json.name("from"), this.from);
+        writeSnapshot(json.name("to"), this.to);
+
+        json.name("summary").beginObject();
+        json.property("added", count(Kind.ADDED));
+        json.property("removed", count(Kind.REMOVED));
+        json.property("versionChanged", count(Kind.VERSION_CHANGED));
+        json.property("contentChanged", count(Kind.CONTENT_CHANGED));
+        json.property("unchanged", this.unchanged);
+        json.endObject();
+
+        json.name("changes").beginArray();
+        for (final Change change : this.changes) {
+            json.beginObject();
+            json.property("kind", change.getKind().name());
+            json.property(change.isResource() ? "resource" : "symbolicName", change.getName());
+            json.property("fromVersion", change.getFromVersion());
+            json.property("toVersion", change.getToVersion());
+            json.property("fromEntry", change.getFromEntry());
+            json.property("toEntry", change.getToEntry());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("multipleVersions").beginArray();
+        for (final MultipleVersions multiple : this.multipleVersions) {
+            json.beginObject();
+            json.property("symbolicName", multiple.getSymbolicName());
+            writeVersions(json.name("fromVersions"), multiple.getFromVersions());
+            writeVersions(json.name("toVersions"), multiple.getToVersions());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.endObject();
+        out.flush();
+    }
+
+    private static void writeVersions(final JsonWriter json, final List<String> versions) throws IOException {
+        json.beginArray();
+        for (final String version : versions) {
+            json.value(version);
+        }
+        json.endArray();
+    }
+
+    private static void writeSnapshot(final JsonWriter json, final Snapshot snapshot) throws IOException {
+        json.beginObject();
+        json.property("file", snapshot.file.toString());
+        json.property("symbolicName", snapshot.symbolicName);
+        json.property("version", snapshot.version);
+        json.property("fixPack", snapshot.fixPack);
+        json.endObject();
+    }
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+
+/**
+ * A previously built DP, used as the baseline for a fix-pack
+ */
+public class Baseline implements Closeable {
+
+    /**
+     * The digest of a bundle which is missing in a fix-pack baseline, and so
+     * cannot be compared
+     */
+    private static final String UNKNOWN = "unknown";
+
+    private static class Bundle {
+        private final String entryName;
+
+        private final String version;
+
+        private final boolean missing;
+
+        private String digest;
+
+        public Bundle(final String entryName, final String version, final boolean missing, final String digest) {
+            this.entryName = entryName;
+            this.version = version;
+            this.missing = missing;
+            this.digest = digest;
+        }
+    }
+
+    private final Object location;
+
+    private final JarFile jar;
+
+    private final String symbolicName;
+
+    private final String version;
+
+    /**
+     * The bundles, by symbolic name and version
+     */
+    private final Map<String, Map<String, Bundle>> bundles = new HashMap<>();
+
+    private Baseline(final Object location, final JarFile jar, final Manifest mf) throws IOException {
+        this.location = location;
+        this.jar = jar;
+
+        if (mf == null) {
+            throw new IOException(format("Baseline '%s' has no manifest", location));
+        }
+
+        this.symbolicName = mf.getMainAttributes().getValue("DeploymentPackage-SymbolicName");
+        this.version = mf.getMainAttributes().getValue("DeploymentPackage-Version");
+
+        if (this.symbolicName == null || this.version == null) {
+            throw new IOException(format("Baseline '%s' is not a deployment package", location));
+        }
+
+        for (final Map.Entry<String, Attributes> entry : mf.getEntries().entrySet()) {
+            final String bsn = entry.getValue().getValue("Bundle-SymbolicName");
+            if (bsn == null) {
+                continue;
+            }
+            // use the digest from the manifest, if the baseline has one
+            final Bundle bundle = new Bundle(entry.getKey(), entry.getValue().getValue("Bundle-Version"),
+                    Boolean.parseBoolean(entry.getValue().getValue("DeploymentPackage-Missing")),
+                    entry.getValue().getValue(Digests.ALGORITHM + "-Digest"));
+
+            // with the conflict policy KEEP_ALL a DP may contain several versions of a bundle
+            this.bundles.computeIfAbsent(bsn.split(";", 2)[0].trim(), k -> new HashMap<>())
+                    .put(Objects.toString(bundle.version, "0.0.0"), bundle);
+        }
+    }
+
+    /**
+     * Open a DP as baseline
+     *
+     * @param location
+     *            the DP file
+     * @return the baseline, must be closed by the caller
+     * @throws IOException
+     *             if the file cannot be read, or is not a DP
+     */
+    public static Baseline open(final Path location) throws IOException {
+        final JarFile jar = new JarFile(location.toFile());
+        try {
+            return new Baseline(location, jar, jar.getManifest());
+        } catch (final IOException e) {
+            jar.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Use the manifest of a DP as baseline
+     * <p>
+     * As the content of the bundles is not available, bundles are compared
+     * using the digests of the manifest. If the manifest has no digests, a
+     * bundle with the same symbolic name and version is considered
+     * unchanged.
+     * </p>
+     *
+     * @param description
+     *            a description of the baseline, used for messages
+     * @param manifest
+     *            the DP manifest
+     * @return the baseline
+     * @throws IOException
+     *             if the manifest is not the manifest of a DP
+     */
+    public static Baseline fromManifest(final String description, final Manifest manifest) throws IOException {
+        return new Baseline(description, null, manifest);
+    }
+
+    public String getSymbolicName() {
+        return this.symbolicName;
+    }
+
+    public String getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Check if a bundle is contained unchanged in the baseline
+     * <p>
+     * A bundle is unchanged if the baseline contains a bundle with the same
+     * symbolic name, the same version and the same content. If the baseline
+     * is a fix-pack without digests, the content of the bundles it marks as
+     * missing is unknown, and such bundles are considered changed.
+     * </p>
+     *
+     * @param bundle
+     *            the bundle to check
+     * @return {@code true} if the bundle is unchanged, {@code false}
+     *         otherwise
+     * @throws IOException
+     *             if reading the baseline fails
+     */
+    public boolean isUnchanged(final BundleInfo bundle) throws IOException {
+        final Map<String, Bundle> versions = this.bundles.get(bundle.getSymbolicName());
+        final Bundle base = versions != null ? versions.get(Objects.toString(bundle.getVersion(), "0.0.0")) : null;
+        if (base == null) {
+            return false;
+        }
+
+        final String digest = digest(base);
+        if (digest == UNKNOWN) {
+            return false;
+        }
+        return digest == null || bundle.getDigest().equals(digest);
+    }
+
+    private String digest(final Bundle bundle) throws IOException {
+        if (bundle.digest != null || this.jar == null) {
+            return bundle.digest;
+        }
+        if (bundle.missing) {
+            // only the previous DPs contain the bundle
+            return UNKNOWN;
+        }
+
+        final JarEntry entry = this.jar.getJarEntry(bundle.entryName);
+        if (entry == null) {
+            // not marked as missing, so the baseline is broken
+            throw new IOException(format("Baseline '%s' does not contain the bundle '%s'", this.location,
+                    bundle.entryName));
+        }
+
+        final MessageDigest md = Digests.create();
+        final byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = this.jar.getInputStream(entry)) {
+            int rc;
+            while ((rc = in.read(buffer)) > 0) {
+                md.update(buffer, 0, rc);
+            }
+        }
+
+        bundle.digest = Base64.getEncoder().encodeToString(md.digest());
+        return bundle.digest;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.jar != null) {
+            this.jar.close();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+
+/**
+ * Timing and size metrics of a single DP build
+ * <p>
+ * Phases are recorded in the order they are first started. Recording the same
+ * phase multiple times adds up the time.
+ * </p>
+ */
+public class BuildMetrics {
+
+    /**
+     * Metrics of a single bundle
+     */
+    public static class Bundle {
+
+        private final BundleInfo info;
+
+        private final String entryName;
+
+        private long scanNanos;
+
+        private boolean written;
+
+        private long writtenBytes;
+
+        private int method;
+
+        private long writeNanos;
+
+        private long savedBytes;
+
+        private Bundle(final String entryName, final BundleInfo info) {
+            this.entryName = entryName;
+            this.info = info;
+        }
+
+        public BundleInfo getInfo() {
+            return this.info;
+        }
+
+        public long getScanNanos() {
+            return this.scanNanos;
+        }
+
+        public long getWriteNanos() {
+            return this.writeNanos;
+        }
+    }
+
+    private final long start = System.nanoTime();
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private final Map<String, Bundle> bundles = new LinkedHashMap<>();
+
+    private long endNanos;
+
+    private Path output;
+
+    private String version;
+
+    private boolean upToDate;
+
+    /**
+     * Record the time of a phase
+     *
+     * @param phase
+     *            the name of the phase
+     * @param startNanos
+     *            the start of the phase, as returned by
+     *            {@link System#nanoTime()}
+     */
+    public void phase(final String phase, final long startNanos) {
+        this.phases.merge(phase, System.nanoTime() - startNanos, Long::sum);
+    }
+
+    public void bundle(final String entryName, final BundleInfo info, final long scanNanos) {
+        final Bundle bundle = new Bundle(entryName, info);
+        bundle.scanNanos = scanNanos;
+        this.bundles.put(entryName, bundle);
+    }
+
+    public void slimmed(final String entryName, final long savedBytes) {
+        final Bundle bundle = this.bundles.get(entryName);
+        if (bundle != null) {
+            bundle.savedBytes = savedBytes;
+        }
+    }
+
+    public void written(final String entryName, final long bytes, final int method, final long nanos) {
+        final Bundle bundle = this.bundles.get(entryName);
+        if (bundle != null) {
+            bundle.written = true;
+            bundle.writtenBytes = bytes;
+            bundle.method = method;
+            bundle.writeNanos = nanos;
+        }
+    }
+
+    public void setOutput(final Path output, final String version) {
+        this.output = output;
+        this.version = version;
+    }
+
+    public void setUpToDate(final boolean upToDate) {
+        this.upToDate = upToDate;
+    }
+
+    /**
+     * Mark the end of the build
+     */
+    public void finish() {
+        this.endNanos = System.nanoTime();
+    }
+
+    private long getTotalNanos() {
+        return (this.endNanos > 0 ? this.endNanos : System.nanoTime()) - this.start;
+    }
+
+    private long getInputBytes() {
+        long result = 0;
+        for (final Bundle bundle : this.bundles.values()) {
+            if (bundle.written) {
+                result += bundle.info.getSize();
+            }
+        }
+        return result;
+    }
+
+    private long getOutputBytes() throws IOException {
+        if (this.output != null && Files.isRegularFile(this.output)) {
+            return Files.size(this.output);
+        }
+        return -1;
+    }
+
+    /**
+     * Get the bundles, ordered by decreasing time spent for reading and writing
+     * them
+     *
+     * @param limit
+     *            the maximum number of bundles to return
+     * @return the slowest bundles
+     */
+    public List<Bundle> getSlowest(final int limit) {
+        final List<Bundle> result = new ArrayList<>(this.bundles.values());
+        result.sort((a, b) -> Long.compare(b.scanNanos + b.writeNanos, a.scanNanos + a.writeNanos));
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    /**
+     * Create a single line summary
+     */
+    public String toSummary() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(format("%s bundles, %s in, %s out, %s total", this.bundles.size(), bytes(getInputBytes()),
+                bytes(getOutputBytes()), millis(getTotalNanos())));
+
+        sb.append(" (");
+        boolean first = true;
+        for (final Map.Entry<String, Long> phase : this.phases.entrySet()) {
+            if (!first) {
+                sb.append(", ");
+            }
+            first = false;
+            sb.append(phase.getKey()).append(' ').append(millis(phase.getValue()));
+        }
+        sb.append(')');
+
+        for (final Bundle bundle : getSlowest(1)) {
+            sb.append(format(" - slowest: %s (%s)", bundle.info, millis(bundle.scanNanos + bundle.writeNanos)));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Write the metrics as JSON document
+     *
+     * @param file
+     *            the file to write to
+     * @throws IOException
+     *             if writing fails
+     */
+    public void write(final Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+
+        try (JsonWriter json = new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            json.beginObject();
+
+            json.property("output", this.output != null ? this.output.toString() : null);
+            json.property("version", this.version);
+            json.property("upToDate", this.upToDate);
+            json.property("totalMillis", toMillis(getTotalNanos()));
+            json.property("bundleCount", this.bundles.size());
+            json.property("inputBytes", getInputBytes());
+            json.property("outputBytes", getOutputBytes());
+
+            json.name("phases").beginObject();
+            for (final Map.Entry<String, Long> phase : this.phases.entrySet()) {
+                json.property(phase.getKey() + "Millis", toMillis(phase.getValue()));
+            }
+            json.endObject();
+
+            json.name("bundles").beginArray();
+            for (final Bundle bundle : this.bundles.values()) {
+                json.beginObject();
+                json.property("entry", bundle.entryName);
+                json.property("symbolicName", bundle.info.getSymbolicName());
+                json.property("version", bundle.info.getVersion());
+                json.property("location", bundle.info.getLocation().toString());
+                json.property("bytes", bundle.info.getSize());
+                json.property("scanMillis", toMillis(bundle.scanNanos));
+                json.property("savedBytes", bundle.savedBytes);
+                json.property("written", bundle.written);
+                if (bundle.written) {
+                    json.property("writtenBytes", bundle.writtenBytes);
+                    json.property("method", bundle.method == ZipEntry.STORED ? "STORED" : "DEFLATED");
+                    json.property("writeMillis", toMillis(bundle.writeNanos));
+                }
+                json.endObject();
+            }
+            json.endArray();
+
+            json.endObject();
+        }
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String millis(final long nanos) {
+        return format(Locale.ROOT, "%.0f ms", toMillis(nanos));
+    }
+
+    private static String bytes(final long bytes) {
+        if (bytes < 0) {
+            return "-";
+        }
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return format(Locale.ROOT, "%.1f KiB", bytes / 1024.0);
+        }
+        return format(Locale.ROOT, "%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.Manifest;
+
+/**
+ * The raw bytes of a JAR manifest, with lazily parsed main attributes
+ * <p>
+ * Attributes are only decoded when they are requested. Looking up an
+ * attribute scans the main section for the header name, without decoding any
+ * of the other headers. The result is cached.
+ * </p>
+ */
+public class BundleManifest {
+
+    private final byte[] data;
+
+    private final Map<String, String> values = new HashMap<>();
+
+    public BundleManifest(final byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Get the value of a main attribute
+     *
+     * @param name
+     *            the name of the attribute, compared ignoring the case
+     * @return the value, or {@code null} if the main section does not
+     *         contain the attribute
+     */
+    public String getValue(final String name) {
+        if (this.values.containsKey(name)) {
+            return this.values.get(name);
+        }
+
+        final String value = find(name);
+        this.values.put(name, value);
+        return value;
+    }
+
+    /**
+     * Parse the complete manifest
+     */
+    public Manifest toManifest() throws IOException {
+        return new Manifest(new ByteArrayInputStream(this.data));
+    }
+
+    /**
+     * @return the raw bytes of the manifest
+     */
+    public byte[] getData() {
+        return this.data;
+    }
+
+    private String find(final String name) {
+        final byte[] key = name.getBytes(StandardCharsets.UTF_8);
+
+        String result = null;
+
+        int pos = 0;
+        while (pos < this.data.length) {
+            final int end = lineEnd(pos);
+            if (end == pos) {
+                // the empty line ending the main section
+                break;
+            }
+
+            if (matches(pos, end, key)) {
+                // as with java.util.jar.Manifest, the last occurrence wins
+                final ByteArrayOutputStream value = new ByteArrayOutputStream(end - pos);
+                value.write(this.data, pos + key.length + 2, end - pos - key.length - 2);
+
+                pos = next(end);
+                while (pos < this.data.length && this.data[pos] == ' ') {
+                    final int continuation = lineEnd(pos);
+                    value.write(this.data, pos + 1, continuation - pos - 1);
+                    pos = next(continuation);
+                }
+
+                result = new String(value.toByteArray(), StandardCharsets.UTF_8);
+                continue;
+            }
+
+            pos = next(end);
+        }
+
+        return result;
+    }
+
+    /**
+     * Check if a line starts with a header name, followed by a colon and a
+     * space
+     */
+    private boolean matches(final int start, final int end, final byte[] key) {
+        if (end - start < key.length + 2 || this.data[start + key.length] != ':'
+                || this.data[start + key.length + 1] != ' ') {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (toLower(this.data[start + i]) != toLower(key[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toLower(final byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    /**
+     * Find the end of a line, excluding the line break
+     */
+    private int lineEnd(final int start) {
+        int pos = start;
+        while (pos < this.data.length && this.data[pos] != '\n' && this.data[pos] != '\r') {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Skip the line break at the end of a line
+     */
+    private int next(final int end) {
+        if (end < this.data.length && this.data[end] == '\r') {
+            if (end + 1 < this.data.length && this.data[end + 1] == '\n') {
+                return end + 2;
+            }
+            return end + 1;
+        }
+        return end + 1;
+    }
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.dentrassi.maven.osgi.dp.builder.BuildLog;
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+
+/**
+ * Read the OSGi metadata of a list of bundle candidates
+ * <p>
+ * Manifests are read in parallel, using a bounded pool of threads. The result
+ * will always be in the same order as the provided list of candidates. Only
+ * the manifest of each bundle is read, not the whole file.
+ * </p>
+ */
+public class BundleScanner {
+
+    private final int threads;
+
+    private final MetadataCache cache;
+
+    private final BuildLog logger;
+
+    private final Map<Path, Long> times = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new scanner
+     *
+     * @param threads
+     *            the maximum number of threads to use, zero or less means
+     *            the number of available processors
+     * @param cache
+     *            the metadata cache to use, may be {@code null}
+     * @param logger
+     *            the logger to use
+     */
+    public BundleScanner(final int threads, final MetadataCache cache, final BuildLog logger) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.cache = cache;
+        this.logger = logger;
+    }
+
+    /**
+     * Scan the list of candidates
+     *
+     * @param candidates
+     *            the candidates to scan
+     * @return the list of bundles, in the order of the candidates, candidates
+     *         which are not bundles are skipped
+     * @throws IOException
+     *             if reading any of the candidates fails
+     */
+    public List<BundleInfo> scan(final List<Path> candidates) throws IOException {
+        final int poolSize = Math.min(this.threads, candidates.size());
+
+        if (poolSize <= 1) {
+            final List<BundleInfo> result = new ArrayList<>(candidates.size());
+            for (final Path candidate : candidates) {
+                addResult(result, read(candidate));
+            }
+            return result;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(poolSize,
+                new ThreadFactoryBuilder().setNameFormat("osgi-dp-scanner-%d").setDaemon(true).build());
+
+        try {
+            final List<Future<BundleInfo>> futures = new ArrayList<>(candidates.size());
+            for (final Path candidate : candidates) {
+                futures.add(executor.submit(() -> read(candidate)));
+            }
+
+            final List<BundleInfo> result = new ArrayList<>(candidates.size());
+            for (final Future<BundleInfo> future : futures) {
+                addResult(result, future.get());
+            }
+            return result;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning bundles", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Failed to scan bundles", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void addResult(final List<BundleInfo> result, final BundleInfo info) {
+        if (info != null) {
+            result.add(info);
+        }
+    }
+
+    /**
+     * Read the metadata of a single bundle
+     * <p>
+     * If a metadata cache is configured, the bundle will only be opened when
+     * there is no valid cache entry.
+     * </p>
+     *
+     * @param location
+     *            the location of the bundle
+     * @return the bundle metadata, or {@code null} if the location is not a
+     *         bundle
+     * @throws IOException
+     *             if reading the file fails
+     */
+    public BundleInfo read(final Path location) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            if (this.cache != null) {
+                return this.cache.get(location, this::load);
+            }
+            return load(location);
+        } finally {
+            this.times.merge(location, System.nanoTime() - start, Long::sum);
+        }
+    }
+
+    /**
+     * Get the time spent reading a location
+     *
+     * @param location
+     *            the location
+     * @return the time in nanoseconds, zero if the location was not read
+     */
+    public long getScanNanos(final Path location) {
+        return this.times.getOrDefault(location, 0L);
+    }
+
+    private BundleInfo load(final Path location) throws IOException {
+        final BundleManifest mf = ManifestReader.read(location);
+        if (mf == null) {
+            this.logger.debug(format("No Manifest: %s", location));
+            return null;
+        }
+
+        String bsn = mf.getValue("Bundle-SymbolicName");
+        if (bsn == null) {
+            this.logger.debug(format("No BSN: %s", location));
+            return null;
+        }
+        bsn = bsn.split(";", 2)[0];
+
+        final String version = mf.getValue("Bundle-Version");
+
+        final Map<String, String> headers = new LinkedHashMap<>();
+        for (final String header : BundleInfo.HEADERS) {
+            final String value = mf.getValue(header);
+            if (value != null) {
+                headers.put(header, value);
+            }
+        }
+
+        // digest and CRC require reading the whole file, they are calculated when needed
+        return new BundleInfo(location, bsn, version, Files.size(location), headers);
+    }
+}
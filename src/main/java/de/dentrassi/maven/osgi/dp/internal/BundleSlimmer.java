@@ -0,0 +1,496 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.dentrassi.maven.osgi.dp.builder.BuildLog;
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+import de.dentrassi.maven.osgi.dp.builder.Slimming;
+
+/**
+ * Rewrite bundles, removing unwanted entries and recompressing the others
+ * <p>
+ * Each result is stored in the cache directory, using a key derived from the
+ * digest of the input bundle and the configuration. A properties file next to
+ * the slimmed bundle stores its checksums, so that a cache hit neither reads
+ * the input nor the output bundle. Bundles which are signed, or which would
+ * not get smaller, are recorded as unchanged and used as they are.
+ * </p>
+ */
+public class BundleSlimmer {
+
+    /**
+     * The outcome of slimming a bundle
+     */
+    public static class Result {
+        private final BundleInfo bundle;
+
+        private final long savedBytes;
+
+        private final boolean signed;
+
+        private Result(final BundleInfo bundle, final long savedBytes, final boolean signed) {
+            this.bundle = bundle;
+            this.savedBytes = savedBytes;
+            this.signed = signed;
+        }
+
+        /**
+         * @return the bundle to add, the original one if it was not changed
+         */
+        public BundleInfo getBundle() {
+            return this.bundle;
+        }
+
+        /**
+         * @return the number of bytes saved, zero if the bundle was not
+         *         changed
+         */
+        public long getSavedBytes() {
+            return this.savedBytes;
+        }
+
+        /**
+         * @return whether the bundle was left untouched because it is signed
+         */
+        public boolean isSigned() {
+            return this.signed;
+        }
+    }
+
+    private static final String FORMAT = "1";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The timestamp used for normalizing, if the DP has none: 1980-01-01
+     * 00:00:00 UTC, the earliest MS-DOS timestamp
+     */
+    private static final long DEFAULT_TIMESTAMP = 315532800000L;
+
+    private final Slimming config;
+
+    private final Long timestamp;
+
+    private final int threads;
+
+    private final BuildLog logger;
+
+    private final List<Pattern> excludes = new ArrayList<>();
+
+    private final String fingerprint;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Create a new slimmer
+     *
+     * @param config
+     *            the configuration
+     * @param timestamp
+     *            the timestamp of the DP, may be {@code null}
+     * @param threads
+     *            the maximum number of threads to use, zero or less means
+     *            the number of available processors
+     * @param logger
+     *            the logger to use
+     */
+    public BundleSlimmer(final Slimming config, final Long timestamp, final int threads, final BuildLog logger) {
+        this.config = config;
+        this.timestamp = config.isNormalizeTimestamps() ? timestamp != null ? timestamp : DEFAULT_TIMESTAMP : null;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.logger = logger;
+
+        for (final String exclude : config.getExcludes()) {
+            this.excludes.add(toRegex(exclude));
+        }
+
+        this.fingerprint = String.join("\n", FORMAT, Integer.toString(config.getLevel()),
+                String.valueOf(this.timestamp), String.join("\n", config.getExcludes()));
+    }
+
+    public int getHits() {
+        return this.hits.get();
+    }
+
+    public int getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Slim a list of bundles
+     *
+     * @param bundles
+     *            the bundles to process
+     * @return the results, in the order of the bundles
+     * @throws IOException
+     *             if reading a bundle or writing the result fails
+     */
+    public List<Result> slim(final List<BundleInfo> bundles) throws IOException {
+        Files.createDirectories(this.config.getCacheDirectory());
+
+        final int poolSize = Math.min(this.threads, bundles.size());
+
+        if (poolSize <= 1) {
+            final List<Result> result = new ArrayList<>(bundles.size());
+            for (final BundleInfo bundle : bundles) {
+                result.add(slim(bundle));
+            }
+            return result;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(poolSize,
+                new ThreadFactoryBuilder().setNameFormat("osgi-dp-slimmer-%d").setDaemon(true).build());
+
+        try {
+            final List<Future<Result>> futures = new ArrayList<>(bundles.size());
+            for (final BundleInfo bundle : bundles) {
+                futures.add(executor.submit(() -> slim(bundle)));
+            }
+
+            final List<Result> result = new ArrayList<>(bundles.size());
+            for (final Future<Result> future : futures) {
+                result.add(future.get());
+            }
+            return result;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while slimming bundles", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Failed to slim bundles", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result slim(final BundleInfo bundle) throws IOException {
+        final String key = Digests.hex(this.fingerprint + "\n" + bundle.getDigest() + "\n" + bundle.getSize());
+        final Path file = this.config.getCacheDirectory().resolve(key + ".jar");
+        final Path entry = this.config.getCacheDirectory().resolve(key + ".properties");
+
+        Properties p = readEntry(entry, file);
+        if (p != null) {
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+            p = transform(bundle, file);
+            writeEntry(entry, p);
+        }
+
+        if (Boolean.parseBoolean(p.getProperty("signed"))) {
+            this.logger.info(format("Not slimming signed bundle: %s", bundle));
+            return new Result(bundle, 0, true);
+        }
+        if (Boolean.parseBoolean(p.getProperty("unchanged"))) {
+            this.logger.debug(format("Slimming does not reduce the size of: %s", bundle));
+            return new Result(bundle, 0, false);
+        }
+
+        final long size = Long.parseLong(p.getProperty("size"));
+        final BundleInfo result = new BundleInfo(file, bundle.getSymbolicName(), bundle.getVersion(), size,
+                p.getProperty("digest"), Long.parseLong(p.getProperty("crc")), bundle.getHeaders());
+
+        this.logger.info(format("Slimmed: %s - %s -> %s bytes (saved %s)", bundle, bundle.getSize(), size,
+                bundle.getSize() - size));
+
+        return new Result(result, bundle.getSize() - size, false);
+    }
+
+    /**
+     * Rewrite a bundle
+     *
+     * @return the properties of the cache entry
+     */
+    private Properties transform(final BundleInfo bundle, final Path file) throws IOException {
+        final Properties p = new Properties();
+        p.setProperty("format", FORMAT);
+
+        final Path tmp = Files.createTempFile(this.config.getCacheDirectory(), "slim-", ".tmp");
+        try {
+            int removed = 0;
+            final Buffer buffer = new Buffer();
+
+            try (ZipFile zip = new ZipFile(bundle.getLocation().toFile())) {
+                final List<ZipEntry> entries = new ArrayList<>(Collections.list(zip.entries()));
+
+                if (isSigned(entries)) {
+                    p.setProperty("signed", "true");
+                    return p;
+                }
+                if (entries.size() > 0xFFFF) {
+                    p.setProperty("unchanged", "true");
+                    return p;
+                }
+
+                // keep the manifest in front, where a JarInputStream expects it
+                entries.sort((a, b) -> Integer.compare(rank(a.getName()), rank(b.getName())));
+
+                final Deflater deflater = new Deflater(this.config.getLevel(), true);
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING); JarWriter writer = new JarWriter(channel)) {
+                    writer.setLevel(this.config.getLevel());
+                    writer.setCompact(true);
+                    if (this.timestamp != null) {
+                        // the same bytes, independent of the time zone of the build
+                        writer.setZone(ZoneOffset.UTC);
+                    }
+
+                    for (final ZipEntry ze : entries) {
+                        if (rank(ze.getName()) > 1 && isExcluded(ze.getName())) {
+                            removed++;
+                            continue;
+                        }
+                        final long time = this.timestamp != null ? this.timestamp : ze.getTime();
+                        if (ze.isDirectory()) {
+                            writer.addEntry(ze.getName(), new byte[0], ZipEntry.STORED, time);
+                        } else {
+                            addEntry(writer, zip, ze, time, deflater, buffer);
+                        }
+                    }
+
+                    writer.finish();
+                } finally {
+                    deflater.end();
+                }
+            }
+
+            final Digests.Checksums checksums = Digests.checksums(tmp);
+            if (checksums.getSize() >= bundle.getSize()) {
+                p.setProperty("unchanged", "true");
+                return p;
+            }
+
+            this.logger.debug(format("Removed %s entries from: %s", removed, bundle));
+
+            CacheFiles.move(tmp, file);
+
+            p.setProperty("size", Long.toString(checksums.getSize()));
+            p.setProperty("digest", checksums.getDigest());
+            p.setProperty("crc", Long.toString(checksums.getCrc()));
+            return p;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Add an entry, deflated if this actually reduces its size
+     * <p>
+     * The content is streamed through the deflater. Only the deflated data is
+     * buffered, as the compact local header requires its length. As soon as
+     * the deflated data reaches the size of the entry, the entry is stored
+     * instead, reading it again.
+     * </p>
+     */
+    private void addEntry(final JarWriter writer, final ZipFile zip, final ZipEntry ze, final long time,
+            final Deflater deflater, final Buffer buffer) throws IOException {
+        final long size = ze.getSize();
+
+        deflater.reset();
+        buffer.reset();
+
+        final CRC32 crc = new CRC32();
+        final byte[] input = buffer.input;
+        final byte[] output = buffer.output;
+        long read = 0;
+        boolean smaller = size > 0;
+
+        try (InputStream in = zip.getInputStream(ze)) {
+            int rc;
+            while (smaller && (rc = in.read(input)) >= 0) {
+                crc.update(input, 0, rc);
+                read += rc;
+                deflater.setInput(input, 0, rc);
+                while (!deflater.needsInput()) {
+                    buffer.write(output, 0, deflater.deflate(output));
+                }
+                smaller = buffer.size() < size;
+            }
+            if (smaller) {
+                deflater.finish();
+                while (!deflater.finished() && buffer.size() < size) {
+                    buffer.write(output, 0, deflater.deflate(output));
+                }
+                smaller = deflater.finished() && buffer.size() < size;
+            }
+        }
+
+        if (smaller) {
+            if (read != size || crc.getValue() != ze.getCrc()) {
+                throw new IOException(format("Content of '%s' does not match its size or CRC", ze.getName()));
+            }
+            writer.addDeflated(ze.getName(), buffer.array(), buffer.size(), size, ze.getCrc(), time);
+            return;
+        }
+
+        try (InputStream in = zip.getInputStream(ze)) {
+            writer.addStored(ze.getName(), in, size, ze.getCrc(), time);
+        }
+    }
+
+    /**
+     * Check for the signature files of a signed JAR
+     */
+    private static boolean isSigned(final List<ZipEntry> entries) {
+        for (final ZipEntry entry : entries) {
+            final String name = entry.getName().toUpperCase(Locale.ROOT);
+            if (!name.startsWith("META-INF/") || name.indexOf('/', "META-INF/".length()) >= 0) {
+                continue;
+            }
+            if (name.endsWith(".SF") || name.endsWith(".RSA") || name.endsWith(".DSA") || name.endsWith(".EC")
+                    || name.startsWith("META-INF/SIG-")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int rank(final String name) {
+        if ("META-INF/".equalsIgnoreCase(name)) {
+            return 0;
+        }
+        if ("META-INF/MANIFEST.MF".equalsIgnoreCase(name)) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private boolean isExcluded(final String name) {
+        for (final Pattern exclude : this.excludes) {
+            if (exclude.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern toRegex(final String pattern) {
+        final StringBuilder sb = new StringBuilder();
+        final StringBuilder literal = new StringBuilder();
+        final String value = pattern.trim();
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c != '*' && c != '?') {
+                literal.append(c);
+                continue;
+            }
+
+            if (literal.length() > 0) {
+                sb.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+
+            if (c == '?') {
+                sb.append("[^/]");
+            } else if (i + 1 < value.length() && value.charAt(i + 1) == '*') {
+                sb.append(".*");
+                i++;
+            } else {
+                sb.append("[^/]*");
+            }
+        }
+
+        if (literal.length() > 0) {
+            sb.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(sb.toString());
+    }
+
+    private Properties readEntry(final Path entry, final Path file) {
+        final Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(entry)) {
+            p.load(in);
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IOException | IllegalArgumentException e) {
+            this.logger.debug(format("Discarding corrupt slimming cache entry: %s", entry), e);
+            return null;
+        }
+
+        if (!FORMAT.equals(p.getProperty("format"))) {
+            return null;
+        }
+        if (Boolean.parseBoolean(p.getProperty("signed")) || Boolean.parseBoolean(p.getProperty("unchanged"))) {
+            return p;
+        }
+
+        try {
+            // the slimmed bundle must still be there, and complete
+            if (Files.size(file) != Long.parseLong(p.getProperty("size"))) {
+                return null;
+            }
+            Long.parseLong(p.getProperty("crc"));
+        } catch (final IOException | NumberFormatException e) {
+            return null;
+        }
+        return p.getProperty("digest") != null ? p : null;
+    }
+
+    private void writeEntry(final Path entry, final Properties p) {
+        try {
+            CacheFiles.store(entry, p);
+        } catch (final IOException e) {
+            // failing to update the cache must not fail the build
+            this.logger.warn(format("Failed to write slimming cache entry: %s", entry), e);
+        }
+    }
+
+    /**
+     * The deflated content of an entry, and the buffers for deflating it,
+     * reused for all entries of a bundle
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        private final byte[] input = new byte[BUFFER_SIZE];
+
+        private final byte[] output = new byte[BUFFER_SIZE];
+
+        public byte[] array() {
+            return this.buf;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Write the files of a cache directory, which may be shared by multiple
+ * processes
+ * <p>
+ * Files are written to a temporary file in the same directory first, and then
+ * moved in place. So other processes either see the previous or the new
+ * content, but never a partially written file.
+ * </p>
+ */
+public final class CacheFiles {
+
+    private CacheFiles() {
+    }
+
+    /**
+     * Store properties in a file
+     *
+     * @param file
+     *            the file to write, its directory must exist
+     * @param properties
+     *            the properties to store
+     * @throws IOException
+     *             if writing fails
+     */
+    public static void store(final Path file, final Properties properties) throws IOException {
+        final Path tmp = Files.createTempFile(file.getParent(), "entry-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, null);
+            }
+            move(tmp, file);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Move a file in place, replacing an existing file
+     * <p>
+     * If the file system does not support atomic moves, the file is moved
+     * normally.
+     * </p>
+     *
+     * @param source
+     *            the file to move, in the same directory as the target
+     * @param target
+     *            the target file
+     * @throws IOException
+     *             if moving fails
+     */
+    public static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
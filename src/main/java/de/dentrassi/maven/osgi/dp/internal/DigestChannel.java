@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+
+/**
+ * A channel which digests all data while writing it to another channel
+ */
+public class DigestChannel implements WritableByteChannel {
+
+    private final WritableByteChannel channel;
+
+    private final MessageDigest digest;
+
+    public DigestChannel(final WritableByteChannel channel, final MessageDigest digest) {
+        this.channel = channel;
+        this.digest = digest;
+    }
+
+    public MessageDigest getDigest() {
+        return this.digest;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        final ByteBuffer data = src.duplicate();
+        final int rc = this.channel.write(src);
+
+        data.limit(data.position() + rc);
+        this.digest.update(data);
+
+        return rc;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return this.channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
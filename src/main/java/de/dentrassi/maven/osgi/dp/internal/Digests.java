@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+public final class Digests {
+
+    public static final String ALGORITHM = "SHA-256";
+
+    /**
+     * Checksums of a file
+     */
+    public static class Checksums {
+        private final long size;
+
+        private final String digest;
+
+        private final long crc;
+
+        public Checksums(final long size, final String digest, final long crc) {
+            this.size = size;
+            this.digest = digest;
+            this.crc = crc;
+        }
+
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * @return the Base64 encoded SHA-256 digest
+         */
+        public String getDigest() {
+            return this.digest;
+        }
+
+        /**
+         * @return the CRC-32 checksum, as required for ZIP entries
+         */
+        public long getCrc() {
+            return this.crc;
+        }
+    }
+
+    private Digests() {
+    }
+
+    public static MessageDigest create() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            // every JRE is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Digest the content of a file
+     *
+     * @param file
+     *            the file to digest
+     * @return the Base64 encoded digest
+     * @throws IOException
+     *             if reading the file fails
+     */
+    public static String digest(final Path file) throws IOException {
+        return checksums(file).getDigest();
+    }
+
+    /**
+     * Calculate the digest and CRC of a file, reading it only once
+     *
+     * @param file
+     *            the file to process
+     * @return the checksums of the file
+     * @throws IOException
+     *             if reading the file fails
+     */
+    public static Checksums checksums(final Path file) throws IOException {
+        final MessageDigest md = create();
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[64 * 1024];
+        long size = 0;
+
+        try (InputStream in = Files.newInputStream(file)) {
+            int rc;
+            while ((rc = in.read(buffer)) > 0) {
+                md.update(buffer, 0, rc);
+                crc.update(buffer, 0, rc);
+                size += rc;
+            }
+        }
+
+        return new Checksums(size, Base64.getEncoder().encodeToString(md.digest()), crc.getValue());
+    }
+
+    /**
+     * Digest a string
+     *
+     * @param value
+     *            the string to digest, encoded as UTF-8
+     * @return the hex encoded digest
+     */
+    public static String hex(final String value) {
+        return hex(create().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Encode a digest as hex string
+     *
+     * @param digest
+     *            the digest
+     * @return the lower case hex string
+     */
+    public static String hex(final byte[] digest) {
+        final StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (final byte b : digest) {
+            sb.append(String.format("%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,445 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+import de.dentrassi.maven.osgi.dp.builder.EntryCompression;
+
+/**
+ * Split the bundles of a DP into several parts of limited size
+ * <p>
+ * The bundles are ordered so that bundles providing packages or bundles come
+ * before the bundles using them, keeping the original order where possible.
+ * Bundles which depend on each other in a cycle are kept together, unless they
+ * exceed the size limit on their own. The ordered bundles are then filled
+ * into parts, based on the worst case size of each part.
+ * </p>
+ */
+public class DpSplitter {
+
+    /**
+     * A single part of the DP
+     */
+    public static class Part {
+        private final int index;
+
+        private final List<String> entries;
+
+        private final long estimatedSize;
+
+        public Part(final int index, final List<String> entries, final long estimatedSize) {
+            this.index = index;
+            this.entries = Collections.unmodifiableList(entries);
+            this.estimatedSize = estimatedSize;
+        }
+
+        /**
+         * @return the index of the part, starting with 1
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        /**
+         * @return the entry names of the bundles of this part, in install
+         *         order
+         */
+        public List<String> getEntries() {
+            return this.entries;
+        }
+
+        /**
+         * @return the worst case size of the part
+         */
+        public long getEstimatedSize() {
+            return this.estimatedSize;
+        }
+    }
+
+    /**
+     * The worst case size of the main section, the end of central directory
+     * and the headers of the manifest entry
+     */
+    private static final long FIXED_OVERHEAD = 1024;
+
+    private static final long MISSING_ATTRIBUTE = "DeploymentPackage-Missing: true\r\n".length();
+
+    /**
+     * The worst case size of the main section of the signature file and of
+     * the signature block, for a common certificate chain
+     */
+    private static final long SIGNATURE_OVERHEAD = 8 * 1024;
+
+    /**
+     * The size of a digest attribute in a section of the signature file
+     */
+    private static final long SIGNATURE_DIGEST = (Digests.ALGORITHM + "-Digest: \r\n").length() + 44;
+
+    private final long limit;
+
+    private final EntryCompression compression;
+
+    private final boolean signed;
+
+    /**
+     * Create a new splitter
+     *
+     * @param limit
+     *            the maximum size of a part, in bytes
+     * @param compression
+     *            the compression used for writing the bundles
+     */
+    public DpSplitter(final long limit, final EntryCompression compression) {
+        this(limit, compression, false);
+    }
+
+    /**
+     * Create a new splitter
+     *
+     * @param limit
+     *            the maximum size of a part, in bytes
+     * @param compression
+     *            the compression used for writing the bundles
+     * @param signed
+     *            whether the parts get signed, adding a section to the
+     *            signature file for each section of the manifest
+     */
+    public DpSplitter(final long limit, final EntryCompression compression, final boolean signed) {
+        this.limit = limit;
+        this.compression = compression;
+        this.signed = signed;
+    }
+
+    /**
+     * Split the bundles of a DP
+     *
+     * @param dpmf
+     *            the DP manifest, containing a section for each bundle
+     * @param files
+     *            the bundles to write
+     * @return the parts, in install order, never empty
+     */
+    public List<Part> split(final Manifest dpmf, final Map<String, BundleInfo> files) {
+        // sections of the manifest which are not written, e.g. when building a fix-pack
+        long manifestSize = this.signed ? FIXED_OVERHEAD + SIGNATURE_OVERHEAD : FIXED_OVERHEAD;
+        for (final Map.Entry<String, Attributes> section : dpmf.getEntries().entrySet()) {
+            if (!files.containsKey(section.getKey())) {
+                manifestSize += sectionSize(section.getKey(), section.getValue());
+            }
+        }
+
+        final Packer packer = new Packer(manifestSize);
+
+        for (final List<String> group : order(files)) {
+            long groupSize = 0;
+            for (final String entry : group) {
+                groupSize += sectionSize(entry, dpmf.getEntries().get(entry)) + entrySize(entry, files.get(entry));
+            }
+
+            if (!packer.fits(groupSize)) {
+                packer.close();
+            }
+
+            // a group which is too large for a part of its own gets split up
+            final boolean split = !packer.fits(groupSize);
+
+            for (final String entry : group) {
+                final long section = sectionSize(entry, dpmf.getEntries().get(entry));
+                final long entrySize = entrySize(entry, files.get(entry));
+                if (split && !packer.fits(section + entrySize)) {
+                    packer.close();
+                }
+                packer.add(entry, section, entrySize);
+            }
+        }
+
+        return packer.finish();
+    }
+
+    private class Packer {
+        private final List<Part> parts = new ArrayList<>();
+
+        private long manifestSize;
+
+        private List<String> current = new ArrayList<>();
+
+        private long size;
+
+        Packer(final long manifestSize) {
+            this.manifestSize = manifestSize;
+        }
+
+        boolean fits(final long additional) {
+            return this.manifestSize + this.size + additional <= DpSplitter.this.limit;
+        }
+
+        void add(final String entry, final long section, final long entrySize) {
+            this.current.add(entry);
+            this.manifestSize += section;
+            this.size += entrySize;
+        }
+
+        void close() {
+            if (this.current.isEmpty()) {
+                return;
+            }
+
+            this.parts.add(new Part(this.parts.size() + 1, this.current, this.manifestSize + this.size));
+
+            // the bundles of all previous parts are listed as missing
+            this.manifestSize += MISSING_ATTRIBUTE * this.current.size();
+            this.current = new ArrayList<>();
+            this.size = 0;
+        }
+
+        List<Part> finish() {
+            if (!this.current.isEmpty() || this.parts.isEmpty()) {
+                this.parts.add(new Part(this.parts.size() + 1, this.current, this.manifestSize + this.size));
+            }
+            return this.parts;
+        }
+    }
+
+    /**
+     * Get the worst case size of a bundle entry
+     */
+    private long entrySize(final String name, final BundleInfo bundle) {
+        final long size = bundle.getSize();
+        final long content;
+        if (this.compression == EntryCompression.STORED) {
+            content = size;
+        } else {
+            // the worst case size of raw deflated data, as calculated by zlib
+            content = size + (size >> 12) + (size >> 14) + (size >> 25) + 13;
+        }
+
+        // local header, data descriptor and central directory header, including the extra fields
+        final long nameLength = name.getBytes(StandardCharsets.UTF_8).length;
+        return content + 2 * nameLength + 30 + 16 + 46 + 2 * 13;
+    }
+
+    /**
+     * Get the worst case size of a manifest section
+     */
+    private long sectionSize(final String name, final Attributes attributes) {
+        final long nameSize = ("Name: " + name + "\r\n").getBytes(StandardCharsets.UTF_8).length;
+        long size = nameSize;
+        if (attributes != null) {
+            for (final Map.Entry<Object, Object> attribute : attributes.entrySet()) {
+                size += (attribute.getKey() + ": " + attribute.getValue() + "\r\n")
+                        .getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        // continuation lines, and the empty line at the end of the section
+        size += size / 70 * 3 + 2;
+        if (this.signed) {
+            // the same for the section of the signature file
+            final long signature = nameSize + SIGNATURE_DIGEST;
+            size += signature + signature / 70 * 3 + 2;
+        }
+        return size;
+    }
+
+    /**
+     * Order the bundles, providers first
+     *
+     * @return groups of bundles, which depend on each other in a cycle
+     */
+    static List<List<String>> order(final Map<String, BundleInfo> files) {
+        final List<String> names = new ArrayList<>(files.keySet());
+        final int n = names.size();
+
+        // index the capabilities
+
+        final Map<String, List<Integer>> exporters = new HashMap<>();
+        final Map<String, List<Integer>> symbolicNames = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            final BundleInfo bundle = files.get(names.get(i));
+            symbolicNames.computeIfAbsent(bundle.getSymbolicName(), k -> new ArrayList<>()).add(i);
+            for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Export-Package"))) {
+                exporters.computeIfAbsent(clause.getName(), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // the providers of each bundle
+
+        final List<Set<Integer>> providers = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            final BundleInfo bundle = files.get(names.get(i));
+            final Set<Integer> p = new LinkedHashSet<>();
+
+            for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Import-Package"))) {
+                p.addAll(exporters.getOrDefault(clause.getName(), Collections.emptyList()));
+            }
+            for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Require-Bundle"))) {
+                p.addAll(symbolicNames.getOrDefault(clause.getName(), Collections.emptyList()));
+            }
+            for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Fragment-Host"))) {
+                p.addAll(symbolicNames.getOrDefault(clause.getName(), Collections.emptyList()));
+            }
+
+            p.remove(i);
+            providers.add(p);
+        }
+
+        // find the cycles
+
+        final int[] component = stronglyConnectedComponents(providers);
+        int components = 0;
+        for (final int c : component) {
+            components = Math.max(components, c + 1);
+        }
+
+        final List<List<Integer>> members = new ArrayList<>(components);
+        for (int c = 0; c < components; c++) {
+            members.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            members.get(component[i]).add(i);
+        }
+
+        // order the components, providers first, the original order otherwise
+
+        final int[] pending = new int[components];
+        final List<Set<Integer>> consumers = new ArrayList<>(components);
+        for (int c = 0; c < components; c++) {
+            consumers.add(new LinkedHashSet<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (final int provider : providers.get(i)) {
+                if (component[provider] != component[i] && consumers.get(component[provider]).add(component[i])) {
+                    pending[component[i]]++;
+                }
+            }
+        }
+
+        final PriorityQueue<Integer> ready = new PriorityQueue<>(
+                (a, b) -> Integer.compare(members.get(a).get(0), members.get(b).get(0)));
+        for (int c = 0; c < components; c++) {
+            if (pending[c] == 0) {
+                ready.add(c);
+            }
+        }
+
+        final List<List<String>> result = new ArrayList<>(components);
+        while (!ready.isEmpty()) {
+            final int c = ready.poll();
+
+            final List<String> group = new ArrayList<>(members.get(c).size());
+            for (final int i : members.get(c)) {
+                group.add(names.get(i));
+            }
+            result.add(group);
+
+            for (final int consumer : consumers.get(c)) {
+                if (--pending[consumer] == 0) {
+                    ready.add(consumer);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Find the strongly connected components, using an iterative version of
+     * Tarjan's algorithm
+     *
+     * @param edges
+     *            the edges of each node
+     * @return the component of each node
+     */
+    private static int[] stronglyConnectedComponents(final List<Set<Integer>> edges) {
+        final int n = edges.size();
+
+        final int[] index = new int[n];
+        final int[] low = new int[n];
+        final int[] component = new int[n];
+        final boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+
+        final List<List<Integer>> adjacency = new ArrayList<>(n);
+        for (final Set<Integer> e : edges) {
+            adjacency.add(new ArrayList<>(e));
+        }
+
+        final Deque<Integer> stack = new ArrayDeque<>();
+        // each work item is a node and the position in its list of edges
+        final Deque<int[]> work = new ArrayDeque<>();
+
+        int counter = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+
+            work.push(new int[] { root, 0 });
+
+            while (!work.isEmpty()) {
+                final int[] item = work.peek();
+                final int v = item[0];
+
+                if (index[v] < 0) {
+                    index[v] = low[v] = counter++;
+                    stack.push(v);
+                    onStack[v] = true;
+                }
+
+                final List<Integer> adj = adjacency.get(v);
+                if (item[1] < adj.size()) {
+                    final int w = adj.get(item[1]++);
+                    if (index[w] < 0) {
+                        work.push(new int[] { w, 0 });
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                work.pop();
+                if (!work.isEmpty()) {
+                    final int parent = work.peek()[0];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack.pop();
+                        onStack[w] = false;
+                        component[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+            }
+        }
+
+        return component;
+    }
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Properties;
+
+/**
+ * A fingerprint of all inputs of a DP
+ * <p>
+ * The fingerprint gets stored next to the DP, together with the size and
+ * timestamp of the DP file. If the inputs of a later build result in the same
+ * fingerprint, and the DP file is unchanged, the DP is considered up to date.
+ * Attributes may be stored with the fingerprint, which describe the DP file,
+ * without being part of the fingerprint.
+ * </p>
+ */
+public class Fingerprint {
+
+    private static final String ATTRIBUTE_PREFIX = "attribute.";
+
+    private final MessageDigest digest = Digests.create();
+
+    private final Properties attributes = new Properties();
+
+    private String value;
+
+    public Fingerprint put(final String key, final String value) {
+        return put(key, value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Fingerprint put(final String key, final byte[] value) {
+        if (this.value != null) {
+            throw new IllegalStateException("Fingerprint is already complete");
+        }
+
+        this.digest.update(key.getBytes(StandardCharsets.UTF_8));
+        this.digest.update((byte) 0);
+        this.digest.update(Integer.toString(value.length).getBytes(StandardCharsets.UTF_8));
+        this.digest.update((byte) 0);
+        this.digest.update(value);
+        return this;
+    }
+
+    /**
+     * Set an attribute, which gets stored with the fingerprint
+     */
+    public Fingerprint attribute(final String key, final String value) {
+        this.attributes.setProperty(ATTRIBUTE_PREFIX + key, value);
+        return this;
+    }
+
+    public String getValue() {
+        if (this.value == null) {
+            this.value = Base64.getEncoder().encodeToString(this.digest.digest());
+        }
+        return this.value;
+    }
+
+    private static Path fingerprintFile(final Path output) {
+        return output.resolveSibling(output.getFileName() + ".fingerprint");
+    }
+
+    /**
+     * Load the stored fingerprint of an output
+     *
+     * @return the stored properties, or {@code null} if there are none, or
+     *         the output changed since storing them
+     */
+    private static Properties load(final Path output) throws IOException {
+        if (!Files.isRegularFile(output)) {
+            return null;
+        }
+
+        final Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(fingerprintFile(output))) {
+            p.load(in);
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IllegalArgumentException e) {
+            // corrupt file
+            return null;
+        }
+
+        if (!Long.toString(Files.size(output)).equals(p.getProperty("size"))
+                || !Long.toString(Files.getLastModifiedTime(output).toMillis()).equals(p.getProperty("lastModified"))) {
+            return null;
+        }
+        return p;
+    }
+
+    /**
+     * Check if the output is up to date
+     *
+     * @param output
+     *            the output file
+     * @return {@code true} if the output exists, is unchanged, and was
+     *         created from inputs with the same fingerprint
+     * @throws IOException
+     *             if reading the stored fingerprint fails
+     */
+    public boolean isUpToDate(final Path output) throws IOException {
+        final Properties p = load(output);
+        return p != null && getValue().equals(p.getProperty("fingerprint"));
+    }
+
+    /**
+     * Read an attribute stored with the fingerprint of an output
+     *
+     * @param output
+     *            the output file
+     * @param key
+     *            the key of the attribute
+     * @return the value, or {@code null} if the attribute is not set, or the
+     *         output changed since storing its fingerprint
+     * @throws IOException
+     *             if reading the stored fingerprint fails
+     */
+    public static String readAttribute(final Path output, final String key) throws IOException {
+        final Properties p = load(output);
+        return p != null ? p.getProperty(ATTRIBUTE_PREFIX + key) : null;
+    }
+
+    /**
+     * Remove a stored fingerprint
+     *
+     * @param output
+     *            the output file
+     */
+    public static void invalidate(final Path output) throws IOException {
+        Files.deleteIfExists(fingerprintFile(output));
+    }
+
+    /**
+     * Store the fingerprint for a freshly written output file
+     *
+     * @param output
+     *            the output file
+     */
+    public void store(final Path output) throws IOException {
+        final Properties p = new Properties();
+        p.putAll(this.attributes);
+        p.setProperty("fingerprint", getValue());
+        p.setProperty("size", Long.toString(Files.size(output)));
+        p.setProperty("lastModified", Long.toString(Files.getLastModifiedTime(output).toMillis()));
+
+        try (OutputStream out = Files.newOutputStream(fingerprintFile(output))) {
+            p.store(out, null);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A clause of an OSGi manifest header
+ * <p>
+ * A clause which has several names, like {@code a;b;version=1}, is parsed into
+ * one clause for each name, sharing the same attributes and directives.
+ * </p>
+ */
+public class HeaderClause {
+
+    private final String name;
+
+    private final Map<String, String> attributes;
+
+    private final Map<String, String> directives;
+
+    private final Map<String, String> attributeTypes;
+
+    public HeaderClause(final String name, final Map<String, String> attributes,
+            final Map<String, String> directives) {
+        this(name, attributes, directives, Collections.emptyMap());
+    }
+
+    public HeaderClause(final String name, final Map<String, String> attributes,
+            final Map<String, String> directives, final Map<String, String> attributeTypes) {
+        this.name = name;
+        this.attributes = attributes;
+        this.directives = directives;
+        this.attributeTypes = attributeTypes;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Map<String, String> getAttributes() {
+        return this.attributes;
+    }
+
+    public Map<String, String> getDirectives() {
+        return this.directives;
+    }
+
+    public String getAttribute(final String name) {
+        return this.attributes.get(name);
+    }
+
+    public String getDirective(final String name) {
+        return this.directives.get(name);
+    }
+
+    /**
+     * Get the declared type of an attribute
+     *
+     * @param name
+     *            the name of the attribute
+     * @return the type, like {@code Version} or {@code List<String>}, or
+     *         {@code null} if the attribute has no declared type
+     */
+    public String getAttributeType(final String name) {
+        return this.attributeTypes.get(name);
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * Parse a manifest header
+     *
+     * @param value
+     *            the header value, may be {@code null}
+     * @return the list of clauses, never {@code null}
+     */
+    public static List<HeaderClause> parse(final String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<HeaderClause> result = new ArrayList<>();
+
+        for (final String clause : split(value, ',')) {
+            final List<String> names = new ArrayList<>();
+            final Map<String, String> attributes = new LinkedHashMap<>();
+            final Map<String, String> directives = new LinkedHashMap<>();
+            final Map<String, String> types = new LinkedHashMap<>();
+
+            for (final String part : split(clause, ';')) {
+                final int eq = indexOfUnquoted(part, '=');
+                if (eq < 0) {
+                    if (!part.isEmpty()) {
+                        names.add(part);
+                    }
+                    continue;
+                }
+
+                final boolean directive = eq > 0 && part.charAt(eq - 1) == ':';
+                final String key = part.substring(0, directive ? eq - 1 : eq).trim();
+                final String val = unquote(part.substring(eq + 1).trim());
+
+                if (directive) {
+                    directives.put(key, val);
+                } else {
+                    // an attribute may have a type, like "key:Version=1"
+                    final int colon = key.indexOf(':');
+                    if (colon < 0) {
+                        attributes.put(key, val);
+                    } else {
+                        final String attribute = key.substring(0, colon).trim();
+                        attributes.put(attribute, val);
+                        types.put(attribute, key.substring(colon + 1).trim());
+                    }
+                }
+            }
+
+            final Map<String, String> attrs = Collections.unmodifiableMap(attributes);
+            final Map<String, String> dirs = Collections.unmodifiableMap(directives);
+            final Map<String, String> attrTypes = Collections.unmodifiableMap(types);
+            for (final String name : names) {
+                result.add(new HeaderClause(name, attrs, dirs, attrTypes));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Split a string at a separator, ignoring separators in quoted strings
+     */
+    private static List<String> split(final String value, final char separator) {
+        final List<String> result = new ArrayList<>();
+
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' && quoted) {
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == separator && !quoted) {
+                result.add(value.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        result.add(value.substring(start).trim());
+
+        return result;
+    }
+
+    private static int indexOfUnquoted(final String value, final char c) {
+        boolean quoted = false;
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            if (ch == '"') {
+                quoted = !quoted;
+            } else if (ch == c && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String unquote(final String value) {
+        if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return value;
+        }
+
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 1; i < value.length() - 1; i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length() - 1) {
+                i++;
+                sb.append(value.charAt(i));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import de.dentrassi.maven.osgi.dp.builder.Signing;
+
+/**
+ * Create the signature files of a signed JAR from its manifest
+ * <p>
+ * The manifest must already contain the digest of each entry. The signature
+ * file then only depends on the manifest: it contains the digest of the whole
+ * manifest, of its main section and of each other section. The signature
+ * block is a detached PKCS#7 signature of the signature file, without signed
+ * attributes, like the {@code jarsigner} creates it.
+ * </p>
+ */
+public final class JarSignature {
+
+    private static final String DIGEST = Digests.ALGORITHM + "-Digest";
+
+    private static final String OID_SHA256 = "2.16.840.1.101.3.4.2.1";
+
+    private static final String OID_DATA = "1.2.840.113549.1.7.1";
+
+    private static final String OID_SIGNED_DATA = "1.2.840.113549.1.7.2";
+
+    private JarSignature() {
+    }
+
+    /**
+     * Create the signature files
+     *
+     * @param manifest
+     *            the serialized manifest, as it gets written
+     * @param signing
+     *            the key and certificates
+     * @return the content of the signature file and of the signature block,
+     *         by entry name, in the order they must be written
+     * @throws IOException
+     *             if signing fails
+     */
+    public static Map<String, byte[]> create(final byte[] manifest, final Signing signing) throws IOException {
+        final Manifest sf = new Manifest();
+        sf.getMainAttributes().put(Attributes.Name.SIGNATURE_VERSION, "1.0");
+        sf.getMainAttributes().putValue("Created-By", "osgi-dp");
+        sf.getMainAttributes().putValue(DIGEST + "-Manifest", digest(manifest, 0, manifest.length));
+
+        final List<String> order = new ArrayList<>();
+
+        int start = 0;
+        boolean main = true;
+        while (start < manifest.length) {
+            final int end = sectionEnd(manifest, start);
+            if (main) {
+                sf.getMainAttributes().putValue(DIGEST + "-Manifest-Main-Attributes",
+                        digest(manifest, start, end - start));
+                main = false;
+            } else {
+                final String name = sectionName(manifest, start, end);
+                if (name != null) {
+                    final Attributes attrs = new Attributes();
+                    attrs.putValue(DIGEST, digest(manifest, start, end - start));
+                    sf.getEntries().put(name, attrs);
+                    order.add(name);
+                }
+            }
+            start = end;
+        }
+
+        final byte[] sfData = ManifestWriter.write(sf, order);
+
+        final String keyAlgorithm = signing.getKey().getAlgorithm();
+        final String extension;
+        final String signatureAlgorithm;
+        final byte[] encryptionAlgorithm;
+        switch (keyAlgorithm) {
+        case "RSA":
+            extension = "RSA";
+            signatureAlgorithm = "SHA256withRSA";
+            // rsaEncryption, with NULL parameters
+            encryptionAlgorithm = der(0x30, oid("1.2.840.113549.1.1.1"), der(0x05));
+            break;
+        case "EC":
+            extension = "EC";
+            signatureAlgorithm = "SHA256withECDSA";
+            // ecdsa-with-SHA256, parameters must be absent
+            encryptionAlgorithm = der(0x30, oid("1.2.840.10045.4.3.2"));
+            break;
+        case "DSA":
+            extension = "DSA";
+            signatureAlgorithm = "SHA256withDSA";
+            // dsa-with-sha256, parameters must be absent
+            encryptionAlgorithm = der(0x30, oid("2.16.840.1.101.3.4.3.2"));
+            break;
+        default:
+            throw new IOException(format("Unsupported key algorithm: %s", keyAlgorithm));
+        }
+
+        final byte[] signature;
+        try {
+            final Signature s = Signature.getInstance(signatureAlgorithm);
+            s.initSign(signing.getKey());
+            s.update(sfData);
+            signature = s.sign();
+        } catch (final GeneralSecurityException e) {
+            throw new IOException("Failed to sign the manifest", e);
+        }
+
+        final Map<String, byte[]> result = new LinkedHashMap<>();
+        result.put(format("META-INF/%s.SF", signing.getName()), sfData);
+        result.put(format("META-INF/%s.%s", signing.getName(), extension),
+                signatureBlock(signing.getChain(), encryptionAlgorithm, signature));
+        return result;
+    }
+
+    private static String digest(final byte[] data, final int offset, final int length) {
+        final MessageDigest md = Digests.create();
+        md.update(data, offset, length);
+        return Base64.getEncoder().encodeToString(md.digest());
+    }
+
+    /**
+     * Find the end of a section, after the empty line terminating it
+     */
+    private static int sectionEnd(final byte[] data, final int start) {
+        int pos = start;
+        while (pos < data.length) {
+            final int lineStart = pos;
+            while (pos < data.length && data[pos] != '\r' && data[pos] != '\n') {
+                pos++;
+            }
+            final boolean empty = pos == lineStart;
+            if (pos < data.length && data[pos] == '\r') {
+                pos++;
+            }
+            if (pos < data.length && data[pos] == '\n') {
+                pos++;
+            }
+            if (empty) {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Get the value of the {@code Name} header of a section, joining
+     * continuation lines
+     */
+    private static String sectionName(final byte[] data, final int start, final int end) {
+        final ByteArrayOutputStream value = new ByteArrayOutputStream();
+        int pos = start;
+        boolean first = true;
+        while (pos < end) {
+            int lineEnd = pos;
+            while (lineEnd < end && data[lineEnd] != '\r' && data[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            if (first) {
+                if (lineEnd - pos < 6 || !new String(data, pos, 6, StandardCharsets.UTF_8).equals("Name: ")) {
+                    return null;
+                }
+                value.write(data, pos + 6, lineEnd - pos - 6);
+                first = false;
+            } else if (lineEnd > pos && data[pos] == ' ') {
+                value.write(data, pos + 1, lineEnd - pos - 1);
+            } else {
+                break;
+            }
+            pos = lineEnd;
+            if (pos < end && data[pos] == '\r') {
+                pos++;
+            }
+            if (pos < end && data[pos] == '\n') {
+                pos++;
+            }
+        }
+        return new String(value.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encode a PKCS#7 signed data structure, with detached content
+     */
+    private static byte[] signatureBlock(final List<X509Certificate> chain, final byte[] encryptionAlgorithm,
+            final byte[] signature) throws IOException {
+        final X509Certificate signer = chain.get(0);
+
+        final byte[] digestAlgorithm = der(0x30, oid(OID_SHA256), der(0x05));
+
+        final ByteArrayOutputStream certificates = new ByteArrayOutputStream();
+        try {
+            for (final X509Certificate certificate : chain) {
+                certificates.write(certificate.getEncoded());
+            }
+        } catch (final GeneralSecurityException e) {
+            throw new IOException("Failed to encode the certificate chain", e);
+        }
+
+        final byte[] signerInfo = der(0x30,
+                integer(BigInteger.ONE),
+                der(0x30, signer.getIssuerX500Principal().getEncoded(), integer(signer.getSerialNumber())),
+                digestAlgorithm,
+                encryptionAlgorithm,
+                der(0x04, signature));
+
+        final byte[] signedData = der(0x30,
+                integer(BigInteger.ONE),
+                der(0x31, digestAlgorithm),
+                der(0x30, oid(OID_DATA)),
+                der(0xA0, certificates.toByteArray()),
+                der(0x31, signerInfo));
+
+        return der(0x30, oid(OID_SIGNED_DATA), der(0xA0, signedData));
+    }
+
+    private static byte[] integer(final BigInteger value) {
+        return der(0x02, value.toByteArray());
+    }
+
+    private static byte[] oid(final String oid) {
+        final String[] toks = oid.split("\\.");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(Integer.parseInt(toks[0]) * 40 + Integer.parseInt(toks[1]));
+        for (int i = 2; i < toks.length; i++) {
+            final long value = Long.parseLong(toks[i]);
+            final int groups = Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+            for (int group = groups - 1; group > 0; group--) {
+                out.write((int) (value >>> 7 * group & 0x7F) | 0x80);
+            }
+            out.write((int) (value & 0x7F));
+        }
+        return der(0x06, out.toByteArray());
+    }
+
+    /**
+     * Encode a DER element
+     */
+    private static byte[] der(final int tag, final byte[]... content) {
+        int length = 0;
+        for (final byte[] c : content) {
+            length += c.length;
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(length + 6);
+        out.write(tag);
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            final int bytes = 4 - Integer.numberOfLeadingZeros(length) / 8;
+            out.write(0x80 | bytes);
+            for (int i = bytes - 1; i >= 0; i--) {
+                out.write(length >>> i * 8);
+            }
+        }
+        for (final byte[] c : content) {
+            out.write(c, 0, c.length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,702 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * A writer for JAR files, writing directly to a channel
+ * <p>
+ * Stored file entries are copied through a direct buffer, which allows
+ * checking their CRC without passing the data through the Java heap.
+ * Deflated entries are streamed through a {@link Deflater} and use a data
+ * descriptor, the same way {@link java.util.zip.ZipOutputStream} does.
+ * Entries of an existing ZIP file may be copied without decompressing them,
+ * using {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+ * </p>
+ * <p>
+ * The caller is responsible for the order of the entries. For a valid JAR
+ * file, the first entry must be the manifest. ZIP64 is not supported.
+ * </p>
+ */
+public class JarWriter implements Closeable {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+
+    private static final int CENTRAL_HEADER = 0x02014b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 0x08;
+
+    private static final int FLAG_UTF8 = 0x800;
+
+    private static final int EXTID_JAR_MAGIC = 0xCAFE;
+
+    private static final int EXTID_TIMESTAMP = 0x5455;
+
+    private static final long MAX_ZIP32 = 0xFFFFFFFFL;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static class Entry {
+        private final byte[] name;
+
+        private final int method;
+
+        private final int flags;
+
+        private final long time;
+
+        private final byte[] extra;
+
+        private final long offset;
+
+        private long crc;
+
+        private long size;
+
+        private long compressedSize;
+
+        public Entry(final String name, final int method, final int flags, final long time, final byte[] extra,
+                final long offset) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.method = method;
+            this.flags = flags | FLAG_UTF8;
+            this.time = time;
+            this.extra = extra;
+            this.offset = offset;
+        }
+
+        public int version() {
+            return this.method == ZipEntry.DEFLATED ? 20 : 10;
+        }
+    }
+
+    private final WritableByteChannel channel;
+
+    private final ByteBuffer header = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private ByteBuffer direct;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    private ZoneId zone = ZoneId.systemDefault();
+
+    private boolean compact;
+
+    private long position;
+
+    private boolean closed;
+
+    public JarWriter(final WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Set the deflate level for following entries
+     *
+     * @param level
+     *            the deflate level, from 0 to 9, or -1 for the default
+     */
+    public void setLevel(final int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException(format("Invalid compression level: %s", level));
+        }
+        this.level = level;
+    }
+
+    /**
+     * Set the time zone for the MS-DOS timestamps of the entries
+     * <p>
+     * By default this is the system time zone, like the
+     * {@link java.util.zip.ZipOutputStream} does.
+     * </p>
+     *
+     * @param zone
+     *            the time zone
+     */
+    public void setZone(final ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Write entries as small as possible
+     * <p>
+     * Compact entries have no extended timestamp, only the MS-DOS timestamp,
+     * and entries added using
+     * {@link #addDeflated(String, byte[], int, long, long, long)} have no
+     * data descriptor, as their sizes are already known.
+     * </p>
+     *
+     * @param compact
+     *            whether or not to write compact entries
+     */
+    public void setCompact(final boolean compact) {
+        this.compact = compact;
+    }
+
+    /**
+     * Get the number of bytes written so far
+     *
+     * @return the number of bytes written
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Add an entry from memory
+     *
+     * @param name
+     *            the name of the entry
+     * @param data
+     *            the content
+     * @param method
+     *            the ZIP method
+     * @param time
+     *            the modification timestamp, in milliseconds since the epoch
+     * @throws IOException
+     *             if writing fails
+     */
+    public void addEntry(final String name, final byte[] data, final int method, final long time) throws IOException {
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+
+        if (method == ZipEntry.STORED) {
+            final Entry entry = startEntry(name, method, 0, time);
+            entry.crc = crc.getValue();
+            entry.size = entry.compressedSize = data.length;
+            writeLocalHeader(entry);
+            writeFully(ByteBuffer.wrap(data));
+            return;
+        }
+
+        final Entry entry = startEntry(name, method, FLAG_DATA_DESCRIPTOR, time);
+        writeLocalHeader(entry);
+
+        final Deflater deflater = new Deflater(this.level, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            entry.compressedSize = drain(deflater, new byte[BUFFER_SIZE]);
+        } finally {
+            deflater.end();
+        }
+
+        entry.crc = crc.getValue();
+        entry.size = data.length;
+        writeDataDescriptor(entry);
+    }
+
+    /**
+     * Add an entry from a file
+     * <p>
+     * Stored entries will be copied from the file channel, using the provided
+     * CRC, which gets checked while copying. If the CRC is not known, it is
+     * calculated first, as it is required by the local header. Deflated entries will be streamed
+     * through a deflater, calculating the CRC.
+     * </p>
+     *
+     * @param name
+     *            the name of the entry
+     * @param file
+     *            the file to add
+     * @param size
+     *            the expected size of the file
+     * @param crc
+     *            the CRC-32 of the file content, or -1 if it is not known
+     * @param method
+     *            the ZIP method
+     * @param time
+     *            the modification timestamp, in milliseconds since the epoch
+     * @throws IOException
+     *             if writing fails, or the file does not match the expected
+     *             size or CRC
+     */
+    public void addFile(final String name, final Path file, final long size, final long crc, final int method,
+            final long time) throws IOException {
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() != size) {
+                throw new IOException(format("Size of '%s' changed while building the DP", file));
+            }
+
+            if (method == ZipEntry.STORED) {
+                final long checksum = crc >= 0 ? crc : crc(in, size);
+                final Entry entry = startEntry(name, method, 0, time);
+                entry.crc = checksum;
+                entry.size = entry.compressedSize = size;
+                writeLocalHeader(entry);
+                // the header is written already, but a wrong CRC must still fail the build
+                if (copyChecked(in, size) != checksum) {
+                    throw new IOException(format("Content of '%s' changed while building the DP", file));
+                }
+            } else {
+                final Entry entry = startEntry(name, method, FLAG_DATA_DESCRIPTOR, time);
+                writeLocalHeader(entry);
+                deflate(entry, in);
+                if (crc >= 0 && entry.crc != crc) {
+                    throw new IOException(format("Content of '%s' changed while building the DP", file));
+                }
+                writeDataDescriptor(entry);
+            }
+        }
+    }
+
+    /**
+     * Add a stored entry from a stream
+     * <p>
+     * The CRC is required by the local header, and gets checked while
+     * copying.
+     * </p>
+     *
+     * @param name
+     *            the name of the entry
+     * @param in
+     *            the content, read up to its end
+     * @param size
+     *            the size of the content
+     * @param crc
+     *            the CRC-32 of the content
+     * @param time
+     *            the modification timestamp, in milliseconds since the epoch
+     * @throws IOException
+     *             if reading or writing fails, or the content does not match
+     *             the size or CRC
+     */
+    public void addStored(final String name, final InputStream in, final long size, final long crc,
+            final long time) throws IOException {
+        final Entry entry = startEntry(name, ZipEntry.STORED, 0, time);
+        entry.crc = crc;
+        entry.size = entry.compressedSize = size;
+        writeLocalHeader(entry);
+
+        final CRC32 checksum = new CRC32();
+        final byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(size, 1))];
+        long remaining = size;
+        while (remaining > 0) {
+            final int rc = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (rc < 0) {
+                break;
+            }
+            checksum.update(buffer, 0, rc);
+            write(buffer, rc);
+            remaining -= rc;
+        }
+
+        if (remaining > 0 || in.read() >= 0 || checksum.getValue() != crc) {
+            throw new IOException(format("Content of '%s' does not match its size or CRC", name));
+        }
+    }
+
+    /**
+     * Add an entry which already got deflated
+     * <p>
+     * Unless the writer is compact, the entry is written with a data
+     * descriptor, so that the result is the same as if the entry had been
+     * streamed through the deflater of this writer, using the same
+     * compression level.
+     * </p>
+     *
+     * @param name
+     *            the name of the entry
+     * @param data
+     *            the deflated content, without zlib header
+     * @param length
+     *            the number of bytes of {@code data} to use
+     * @param size
+     *            the uncompressed size
+     * @param crc
+     *            the CRC-32 of the uncompressed content
+     * @param time
+     *            the modification timestamp, in milliseconds since the epoch
+     * @throws IOException
+     *             if writing fails
+     */
+    public void addDeflated(final String name, final byte[] data, final int length, final long size, final long crc,
+            final long time) throws IOException {
+        final Entry entry = startEntry(name, ZipEntry.DEFLATED, this.compact ? 0 : FLAG_DATA_DESCRIPTOR, time);
+        entry.crc = crc;
+        entry.size = size;
+        entry.compressedSize = length;
+
+        writeLocalHeader(entry);
+        write(data, length);
+
+        if (!this.compact) {
+            writeDataDescriptor(entry);
+        }
+    }
+
+    /**
+     * Add an entry by copying its raw data from another ZIP file
+     * <p>
+     * The data is transferred as it is, without inflating it, and so without
+     * checking it. Deflated entries are written the same way as by
+     * {@link #addDeflated(String, byte[], int, long, long, long)}.
+     * </p>
+     *
+     * @param name
+     *            the name of the entry
+     * @param source
+     *            the entry to copy, must be stored or deflated
+     * @param time
+     *            the modification timestamp, in milliseconds since the epoch
+     * @throws IOException
+     *             if reading or writing fails
+     */
+    public void addRaw(final String name, final ZipIndex.Entry source, final long time) throws IOException {
+        final boolean descriptor = source.getMethod() == ZipEntry.DEFLATED && !this.compact;
+        final long offset = source.getDataOffset();
+
+        final Entry entry = startEntry(name, source.getMethod(), descriptor ? FLAG_DATA_DESCRIPTOR : 0, time);
+        entry.crc = source.getCrc();
+        entry.size = source.getSize();
+        entry.compressedSize = source.getCompressedSize();
+
+        writeLocalHeader(entry);
+        transfer(source.getChannel(), offset, entry.compressedSize);
+
+        if (descriptor) {
+            writeDataDescriptor(entry);
+        }
+    }
+
+    private Entry startEntry(final String name, final int method, final int flags, final long time)
+            throws IOException {
+        if (this.closed) {
+            throw new IOException("Writer is already closed");
+        }
+        if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+            throw new IllegalArgumentException(format("Unsupported method: %s", method));
+        }
+
+        final Entry entry = new Entry(name, method, flags, time, makeExtra(time), this.position);
+        this.entries.add(entry);
+        return entry;
+    }
+
+    private byte[] makeExtra(final long time) {
+        final ByteBuffer extra = ByteBuffer.allocate(13).order(ByteOrder.LITTLE_ENDIAN);
+
+        if (this.entries.isEmpty()) {
+            // mark the file as JAR, like the JarOutputStream does
+            extra.putShort((short) EXTID_JAR_MAGIC);
+            extra.putShort((short) 0);
+        }
+
+        final long seconds = time / 1000L;
+        if (!this.compact && seconds >= 0 && seconds <= Integer.MAX_VALUE) {
+            extra.putShort((short) EXTID_TIMESTAMP);
+            extra.putShort((short) 5);
+            extra.put((byte) 0x01); // mtime only
+            extra.putInt((int) seconds);
+        }
+
+        final byte[] result = new byte[extra.position()];
+        extra.flip();
+        extra.get(result);
+        return result;
+    }
+
+    private void transfer(final FileChannel in, final long offset, final long size) throws IOException {
+        long transferred = 0;
+        while (transferred < size) {
+            final long rc = in.transferTo(offset + transferred, size - transferred, this.channel);
+            if (rc <= 0) {
+                if (in.size() < offset + size) {
+                    throw new IOException("File truncated while building the DP");
+                }
+                // some channels may refuse to transfer anything at once, fall back to copying
+                copy(in, offset + transferred, offset + size);
+                break;
+            }
+            transferred += rc;
+        }
+        this.position += size;
+    }
+
+    private void copy(final FileChannel in, long position, final long end) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            final int rc = in.read(buffer, position);
+            if (rc < 0) {
+                throw new IOException("File truncated while building the DP");
+            }
+            position += rc;
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Copy a file, calculating its CRC
+     *
+     * @return the CRC of the copied data
+     */
+    private long copyChecked(final FileChannel in, final long size) throws IOException {
+        if (this.direct == null) {
+            this.direct = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        final CRC32 crc = new CRC32();
+        long position = 0;
+        while (position < size) {
+            this.direct.clear();
+            this.direct.limit((int) Math.min(this.direct.capacity(), size - position));
+            final int rc = in.read(this.direct, position);
+            if (rc < 0) {
+                throw new IOException("File truncated while building the DP");
+            }
+            position += rc;
+            this.direct.flip();
+            crc.update(this.direct.duplicate());
+            writeFully(this.direct);
+        }
+        return crc.getValue();
+    }
+
+    private static long crc(final FileChannel in, final long size) throws IOException {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        while (position < size) {
+            buffer.clear();
+            final int rc = in.read(buffer, position);
+            if (rc < 0) {
+                throw new IOException("File truncated while building the DP");
+            }
+            crc.update(buffer.array(), 0, rc);
+            position += rc;
+        }
+        return crc.getValue();
+    }
+
+    private void deflate(final Entry entry, final FileChannel in) throws IOException {
+        final CRC32 crc = new CRC32();
+        final Deflater deflater = new Deflater(this.level, true);
+        final byte[] input = new byte[BUFFER_SIZE];
+        final byte[] output = new byte[BUFFER_SIZE];
+        final ByteBuffer inputBuffer = ByteBuffer.wrap(input);
+
+        long size = 0;
+        long compressed = 0;
+
+        try {
+            int rc;
+            while ((rc = in.read(inputBuffer)) >= 0) {
+                if (rc == 0) {
+                    continue;
+                }
+                crc.update(input, 0, rc);
+                size += rc;
+                deflater.setInput(input, 0, rc);
+                while (!deflater.needsInput()) {
+                    compressed += write(output, deflater.deflate(output));
+                }
+                inputBuffer.clear();
+            }
+            deflater.finish();
+            compressed += drain(deflater, output);
+        } finally {
+            deflater.end();
+        }
+
+        entry.crc = crc.getValue();
+        entry.size = size;
+        entry.compressedSize = compressed;
+    }
+
+    private long drain(final Deflater deflater, final byte[] output) throws IOException {
+        long compressed = 0;
+        while (!deflater.finished()) {
+            compressed += write(output, deflater.deflate(output));
+        }
+        return compressed;
+    }
+
+    private int write(final byte[] data, final int length) throws IOException {
+        if (length > 0) {
+            writeFully(ByteBuffer.wrap(data, 0, length));
+        }
+        return length;
+    }
+
+    private void writeFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.position += this.channel.write(buffer);
+        }
+    }
+
+    private void writeLocalHeader(final Entry entry) throws IOException {
+        final boolean descriptor = (entry.flags & FLAG_DATA_DESCRIPTOR) != 0;
+
+        this.header.clear();
+        this.header.putInt(LOCAL_HEADER);
+        this.header.putShort((short) entry.version());
+        this.header.putShort((short) entry.flags);
+        this.header.putShort((short) entry.method);
+        this.header.putInt(dosTime(entry.time, this.zone));
+        this.header.putInt(descriptor ? 0 : (int) entry.crc);
+        this.header.putInt(descriptor ? 0 : (int) checkSize(entry.compressedSize));
+        this.header.putInt(descriptor ? 0 : (int) checkSize(entry.size));
+        this.header.putShort((short) entry.name.length);
+        this.header.putShort((short) entry.extra.length);
+        this.header.put(entry.name);
+        this.header.put(entry.extra);
+        this.header.flip();
+
+        writeFully(this.header);
+    }
+
+    private void writeDataDescriptor(final Entry entry) throws IOException {
+        this.header.clear();
+        this.header.putInt(DATA_DESCRIPTOR);
+        this.header.putInt((int) entry.crc);
+        this.header.putInt((int) checkSize(entry.compressedSize));
+        this.header.putInt((int) checkSize(entry.size));
+        this.header.flip();
+
+        writeFully(this.header);
+    }
+
+    private void writeCentralHeader(final Entry entry) throws IOException {
+        final byte[] extra = entry.extra;
+
+        if (this.header.remaining() < 46 + entry.name.length + extra.length) {
+            this.header.flip();
+            writeFully(this.header);
+            this.header.clear();
+        }
+
+        this.header.putInt(CENTRAL_HEADER);
+        this.header.putShort((short) entry.version());
+        this.header.putShort((short) entry.version());
+        this.header.putShort((short) entry.flags);
+        this.header.putShort((short) entry.method);
+        this.header.putInt(dosTime(entry.time, this.zone));
+        this.header.putInt((int) entry.crc);
+        this.header.putInt((int) checkSize(entry.compressedSize));
+        this.header.putInt((int) checkSize(entry.size));
+        this.header.putShort((short) entry.name.length);
+        this.header.putShort((short) extra.length);
+        this.header.putShort((short) 0); // comment length
+        this.header.putShort((short) 0); // disk number
+        this.header.putShort((short) 0); // internal attributes
+        this.header.putInt(0); // external attributes
+        this.header.putInt((int) checkSize(entry.offset));
+        this.header.put(entry.name);
+        this.header.put(extra);
+    }
+
+    private static long checkSize(final long value) throws IOException {
+        if (value > MAX_ZIP32) {
+            throw new IOException("The DP exceeds the limits of the ZIP format (ZIP64 is not supported)");
+        }
+        return value;
+    }
+
+    /**
+     * Write the central directory
+     * <p>
+     * This does not close the underlying channel.
+     * </p>
+     */
+    public void finish() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        if (this.entries.size() > 0xFFFF) {
+            throw new IOException("The DP exceeds the limits of the ZIP format (ZIP64 is not supported)");
+        }
+
+        final long start = this.position;
+
+        this.header.clear();
+        for (final Entry entry : this.entries) {
+            writeCentralHeader(entry);
+        }
+
+        this.header.flip();
+        writeFully(this.header);
+
+        final long size = this.position - start;
+
+        this.header.clear();
+        this.header.putInt(END_OF_CENTRAL_DIRECTORY);
+        this.header.putShort((short) 0); // number of this disk
+        this.header.putShort((short) 0); // disk with the central directory
+        this.header.putShort((short) this.entries.size());
+        this.header.putShort((short) this.entries.size());
+        this.header.putInt((int) checkSize(size));
+        this.header.putInt((int) checkSize(start));
+        this.header.putShort((short) 0); // comment length
+        this.header.flip();
+
+        writeFully(this.header);
+    }
+
+    /**
+     * Write the central directory and close the channel
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Convert a Java timestamp into the MS-DOS format
+     */
+    static int dosTime(final long time, final ZoneId zone) {
+        final LocalDateTime ldt = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), zone);
+        final int year = ldt.getYear() - 1980;
+        if (year < 0) {
+            // 1980-01-01 00:00:00
+            return (1 << 21) | (1 << 16);
+        }
+        return year << 25 | ldt.getMonthValue() << 21 | ldt.getDayOfMonth() << 16 | ldt.getHour() << 11
+                | ldt.getMinute() << 5 | ldt.getSecond() >> 1;
+    }
+}
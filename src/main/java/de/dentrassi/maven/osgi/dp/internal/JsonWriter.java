@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+
+/**
+ * A minimal streaming JSON writer
+ * <p>
+ * The output is indented, using two spaces per level. The writer does not
+ * validate the structure beyond what is required for placing separators.
+ * </p>
+ */
+public class JsonWriter implements Closeable {
+
+    private final Writer writer;
+
+    /**
+     * For each open level, whether it already has an element
+     */
+    private final Deque<Boolean> levels = new ArrayDeque<>();
+
+    private boolean afterName;
+
+    public JsonWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return begin('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return end('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return begin('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return end(']');
+    }
+
+    public JsonWriter name(final String name) throws IOException {
+        separator();
+        string(name);
+        this.writer.write(": ");
+        this.afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(final String value) throws IOException {
+        separator();
+        if (value == null) {
+            this.writer.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(final long value) throws IOException {
+        separator();
+        this.writer.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(final double value) throws IOException {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            this.writer.write("null");
+        } else {
+            this.writer.write(String.format(Locale.ROOT, "%.3f", value));
+        }
+        return this;
+    }
+
+    public JsonWriter value(final boolean value) throws IOException {
+        separator();
+        this.writer.write(Boolean.toString(value));
+        return this;
+    }
+
+    public JsonWriter property(final String name, final String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter property(final String name, final long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter property(final String name, final double value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter property(final String name, final boolean value) throws IOException {
+        return name(name).value(value);
+    }
+
+    private JsonWriter begin(final char c) throws IOException {
+        separator();
+        this.writer.write(c);
+        this.levels.push(false);
+        return this;
+    }
+
+    private JsonWriter end(final char c) throws IOException {
+        final boolean hasElements = this.levels.pop();
+        if (hasElements) {
+            newLine();
+        }
+        this.writer.write(c);
+        if (this.levels.isEmpty()) {
+            this.writer.write('\n');
+        }
+        return this;
+    }
+
+    private void separator() throws IOException {
+        if (this.afterName) {
+            this.afterName = false;
+            return;
+        }
+        if (this.levels.isEmpty()) {
+            return;
+        }
+        if (this.levels.pop()) {
+            this.writer.write(',');
+        }
+        this.levels.push(true);
+        newLine();
+    }
+
+    private void newLine() throws IOException {
+        this.writer.write('\n');
+        for (int i = 0; i < this.levels.size(); i++) {
+            this.writer.write("  ");
+        }
+    }
+
+    private void string(final String value) throws IOException {
+        this.writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    this.writer.write("\\\"");
+                    break;
+                case '\\':
+                    this.writer.write("\\\\");
+                    break;
+                case '\n':
+                    this.writer.write("\\n");
+                    break;
+                case '\r':
+                    this.writer.write("\\r");
+                    break;
+                case '\t':
+                    this.writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        this.writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        this.writer.write(c);
+                    }
+            }
+        }
+        this.writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
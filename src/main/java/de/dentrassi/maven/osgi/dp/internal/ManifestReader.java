@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Read the manifest of a JAR file, without opening it as {@link ZipFile}
+ * <p>
+ * The manifest is normally one of the first entries of a JAR file, so the
+ * local headers at the start of the file are read first. Only if the manifest
+ * is not found there, the central directory is searched for it, using a
+ * bounded buffer. ZIP64 files fall back to {@link ZipFile}. In all cases only
+ * the manifest entry is read, and its attributes are parsed lazily.
+ * </p>
+ */
+public final class ManifestReader {
+
+    /**
+     * The strategy which found the manifest
+     */
+    public static enum Strategy {
+        /**
+         * The manifest is one of the first entries
+         */
+        STREAMING,
+        /**
+         * The manifest was found in the central directory
+         */
+        CENTRAL_DIRECTORY,
+        /**
+         * The file was opened as {@link ZipFile}
+         */
+        ZIP_FILE;
+    }
+
+    public static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+
+    private static final byte[] MANIFEST_NAME_BYTES = MANIFEST_NAME.getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The number of local headers checked for the manifest, allowing for a
+     * {@code META-INF/} directory entry before it
+     */
+    private static final int LEADING_ENTRIES = 3;
+
+    /**
+     * The maximum size of a manifest
+     */
+    private static final int MAX_SIZE = 8 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+
+    private static final int CENTRAL_HEADER = 0x02014b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    /**
+     * The result of the central directory lookup for ZIP64 files
+     */
+    private static final long[] ZIP64 = new long[0];
+
+    private ManifestReader() {
+    }
+
+    /**
+     * Read the manifest of a JAR file
+     *
+     * @param file
+     *            the JAR file
+     * @return the manifest, or {@code null} if the file has no manifest
+     * @throws IOException
+     *             if the file cannot be read, or is not a ZIP file
+     */
+    public static BundleManifest read(final Path file) throws IOException {
+        return read(file, null);
+    }
+
+    /**
+     * Read the manifest of a JAR file, using a specific strategy
+     *
+     * @param file
+     *            the JAR file
+     * @param strategy
+     *            the only strategy to use, or {@code null} to try them in
+     *            order
+     * @return the manifest, or {@code null} if the file has no manifest, or
+     *         the strategy cannot find it
+     * @throws IOException
+     *             if the file cannot be read, or is not a ZIP file
+     */
+    public static BundleManifest read(final Path file, final Strategy strategy) throws IOException {
+        if (strategy != Strategy.ZIP_FILE) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (strategy == null || strategy == Strategy.STREAMING) {
+                    final byte[] data = readLeading(channel);
+                    if (data != null || strategy != null) {
+                        return data != null ? new BundleManifest(data) : null;
+                    }
+                }
+
+                final long[] entry = findCentral(channel, file);
+                if (entry != ZIP64) {
+                    return entry != null
+                            ? new BundleManifest(readLocal(channel, entry[0], (int) entry[1], entry[2], entry[3]))
+                            : null;
+                }
+                if (strategy != null) {
+                    return null;
+                }
+            }
+        }
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            final ZipEntry entry = zip.getEntry(MANIFEST_NAME);
+            if (entry == null) {
+                return null;
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                return new BundleManifest(readFully(in));
+            }
+        }
+    }
+
+    /**
+     * Look for the manifest in the local headers at the start of the file
+     *
+     * @return the content of the manifest, or {@code null} if it is not one
+     *         of the first entries
+     */
+    private static byte[] readLeading(final FileChannel channel) throws IOException {
+        long pos = 0;
+
+        for (int i = 0; i < LEADING_ENTRIES; i++) {
+            final ByteBuffer header = read(channel, pos, 30);
+            if (header == null || header.getInt(0) != LOCAL_HEADER) {
+                return null;
+            }
+
+            final int flags = header.getShort(6) & 0xFFFF;
+            final int method = header.getShort(8) & 0xFFFF;
+            final long compressedSize = header.getInt(18) & 0xFFFFFFFFL;
+            final long size = header.getInt(22) & 0xFFFFFFFFL;
+            final int nameLength = header.getShort(26) & 0xFFFF;
+            final int extraLength = header.getShort(28) & 0xFFFF;
+
+            final ByteBuffer name = read(channel, pos + 30, nameLength);
+            if (name == null || (flags & 1) != 0) {
+                // truncated or encrypted
+                return null;
+            }
+
+            final long data = pos + 30 + nameLength + extraLength;
+            final boolean descriptor = (flags & 8) != 0;
+
+            if (isManifest(name, 0, nameLength)) {
+                if (descriptor) {
+                    // the sizes are unknown, only deflated data ends on its own
+                    return method == ZipEntry.DEFLATED ? readData(channel, data, method, -1, -1) : null;
+                }
+                if (compressedSize == ZIP64_MAGIC || size == ZIP64_MAGIC) {
+                    return null;
+                }
+                return readData(channel, data, method, compressedSize, size);
+            }
+
+            if (descriptor || compressedSize == ZIP64_MAGIC) {
+                // the next local header cannot be located
+                return null;
+            }
+            pos = data + compressedSize;
+        }
+
+        return null;
+    }
+
+    /**
+     * Look for the manifest in the central directory
+     *
+     * @return the position of the local header, the method, the compressed
+     *         size and the size of the manifest entry, {@code null} if there
+     *         is no manifest, or {@link #ZIP64} for ZIP64 files
+     */
+    private static long[] findCentral(final FileChannel channel, final Path file) throws IOException {
+        final ByteBuffer end = findEnd(channel);
+        if (end == null) {
+            throw new ZipException(format("Not a ZIP file: %s", file));
+        }
+
+        final int entries = end.getShort(10) & 0xFFFF;
+        final long size = end.getInt(12) & 0xFFFFFFFFL;
+        final long offset = end.getInt(16) & 0xFFFFFFFFL;
+        if (entries == 0xFFFF || size == ZIP64_MAGIC || offset == ZIP64_MAGIC) {
+            return ZIP64;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.limit(0);
+
+        // the position in the file after the content of the buffer
+        long next = offset;
+        final long limit = offset + size;
+
+        while (next - buffer.remaining() < limit) {
+            if (buffer.remaining() < 46) {
+                next = fill(channel, buffer, next);
+            }
+            if (buffer.remaining() < 46 || buffer.getInt(buffer.position()) != CENTRAL_HEADER) {
+                throw new ZipException(format("Invalid central directory: %s", file));
+            }
+
+            final int p = buffer.position();
+            final int nameLength = buffer.getShort(p + 28) & 0xFFFF;
+            final int length = 46 + nameLength + (buffer.getShort(p + 30) & 0xFFFF)
+                    + (buffer.getShort(p + 32) & 0xFFFF);
+
+            if (nameLength == MANIFEST_NAME_BYTES.length) {
+                if (buffer.remaining() < 46 + nameLength) {
+                    next = fill(channel, buffer, next);
+                }
+                final int q = buffer.position();
+                if (isManifest(buffer, q + 46, nameLength)) {
+                    final long local = buffer.getInt(q + 42) & 0xFFFFFFFFL;
+                    final long compressedSize = buffer.getInt(q + 20) & 0xFFFFFFFFL;
+                    final long uncompressedSize = buffer.getInt(q + 24) & 0xFFFFFFFFL;
+                    if (local == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC) {
+                        return ZIP64;
+                    }
+                    return new long[] { local, buffer.getShort(q + 10) & 0xFFFF, compressedSize,
+                            uncompressedSize };
+                }
+            }
+
+            // skip the entry, which may extend beyond the buffer
+            if (buffer.remaining() >= length) {
+                buffer.position(buffer.position() + length);
+            } else {
+                next += length - buffer.remaining();
+                buffer.limit(0);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Read an entry, starting at its local header
+     */
+    private static byte[] readLocal(final FileChannel channel, final long position, final int method,
+            final long compressedSize, final long size) throws IOException {
+        final ByteBuffer header = read(channel, position, 30);
+        if (header == null || header.getInt(0) != LOCAL_HEADER) {
+            throw new ZipException("Invalid local header of the manifest");
+        }
+
+        final long data = position + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+        return readData(channel, data, method, compressedSize, size);
+    }
+
+    /**
+     * Read the data of an entry
+     *
+     * @param compressedSize
+     *            the compressed size, or -1 if it is unknown
+     * @param size
+     *            the size, or -1 if it is unknown
+     */
+    private static byte[] readData(final FileChannel channel, final long data, final int method,
+            final long compressedSize, final long size) throws IOException {
+        if (size > MAX_SIZE) {
+            throw new ZipException(format("Manifest too large: %s bytes", size));
+        }
+
+        if (method == ZipEntry.STORED) {
+            final ByteBuffer content = read(channel, data, (int) size);
+            if (content == null) {
+                throw new EOFException("Truncated manifest");
+            }
+            return content.array();
+        }
+
+        if (method != ZipEntry.DEFLATED) {
+            throw new ZipException(format("Unsupported compression method of the manifest: %s", method));
+        }
+
+        return inflate(channel, data, compressedSize, size);
+    }
+
+    private static byte[] inflate(final FileChannel channel, final long data, final long compressedSize,
+            final long size) throws IOException {
+        final Inflater inflater = new Inflater(true);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 ? (int) size : 1024);
+            final byte[] input = new byte[8 * 1024];
+            final byte[] output = new byte[8 * 1024];
+
+            long pos = data;
+            final long end = compressedSize >= 0 ? data + compressedSize : channel.size();
+            boolean padded = false;
+
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    final int len = (int) Math.min(input.length, end - pos);
+                    final int rc = len > 0 ? channel.read(ByteBuffer.wrap(input, 0, len), pos) : -1;
+                    if (rc > 0) {
+                        inflater.setInput(input, 0, rc);
+                        pos += rc;
+                    } else if (!padded) {
+                        // the inflater may need an additional byte, in "nowrap" mode
+                        padded = true;
+                        inflater.setInput(new byte[1]);
+                    } else {
+                        throw new EOFException("Truncated manifest");
+                    }
+                }
+
+                final int rc = inflater.inflate(output);
+                out.write(output, 0, rc);
+                if (out.size() > MAX_SIZE) {
+                    throw new ZipException(format("Manifest too large: more than %s bytes", MAX_SIZE));
+                }
+                if (rc == 0 && inflater.needsDictionary()) {
+                    throw new ZipException("Invalid manifest data");
+                }
+            }
+
+            return out.toByteArray();
+        } catch (final DataFormatException e) {
+            throw new ZipException("Invalid manifest data: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Find the end of central directory record, in the last 64k of the file
+     */
+    private static ByteBuffer findEnd(final FileChannel channel) throws IOException {
+        final long fileSize = channel.size();
+        final int length = (int) Math.min(fileSize, 22 + 0xFFFF);
+        final ByteBuffer tail = read(channel, fileSize - length, length);
+        if (tail == null) {
+            return null;
+        }
+
+        for (int i = length - 22; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                tail.position(i);
+                return tail.slice().order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isManifest(final ByteBuffer buffer, final int offset, final int length) {
+        if (length != MANIFEST_NAME_BYTES.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int c = buffer.get(offset + i);
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if (c != MANIFEST_NAME_BYTES[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Move the remaining content to the start of the buffer, and fill it
+     *
+     * @return the position in the file after the buffered content
+     */
+    private static long fill(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+        buffer.compact();
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            final int rc = channel.read(buffer, pos);
+            if (rc < 0) {
+                break;
+            }
+            pos += rc;
+        }
+        buffer.flip();
+        return pos;
+    }
+
+    /**
+     * Read a number of bytes at a position
+     *
+     * @return the bytes, in little endian order, or {@code null} if the file
+     *         ends before
+     */
+    private static ByteBuffer read(final FileChannel channel, final long position, final int length)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            final int rc = channel.read(buffer, pos);
+            if (rc < 0) {
+                return null;
+            }
+            pos += rc;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8 * 1024];
+        int rc;
+        while ((rc = in.read(buffer)) > 0) {
+            out.write(buffer, 0, rc);
+            if (out.size() > MAX_SIZE) {
+                throw new ZipException(format("Manifest too large: more than %s bytes", MAX_SIZE));
+            }
+        }
+        return out.toByteArray();
+    }
+}
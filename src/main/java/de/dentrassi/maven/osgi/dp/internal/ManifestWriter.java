@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * Write manifests in a stable order
+ * <p>
+ * {@link Manifest#write(java.io.OutputStream)} writes sections, and depending
+ * on the JRE also attributes, in the order of a hash map. This writer puts the
+ * sections in the provided order, followed by all other sections sorted by
+ * name, and always sorts attributes by name. The manifest version, or the
+ * signature version of a signature file, is always the first attribute of the
+ * main section.
+ * </p>
+ */
+public final class ManifestWriter {
+
+    private static final int MAX_LINE = 72;
+
+    private ManifestWriter() {
+    }
+
+    /**
+     * Serialize a manifest
+     *
+     * @param manifest
+     *            the manifest to write
+     * @param order
+     *            the preferred order of the sections, may be empty
+     * @return the serialized manifest
+     */
+    public static byte[] write(final Manifest manifest, final Collection<String> order) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final Attributes main = manifest.getMainAttributes();
+        final Attributes.Name first = main.containsKey(Attributes.Name.MANIFEST_VERSION)
+                ? Attributes.Name.MANIFEST_VERSION : Attributes.Name.SIGNATURE_VERSION;
+        final Object version = main.get(first);
+        if (version != null) {
+            writeAttribute(out, first.toString(), version.toString());
+        }
+        writeAttributes(out, main, first);
+        newLine(out);
+
+        final Set<String> names = new LinkedHashSet<>();
+        for (final String name : order) {
+            if (manifest.getEntries().containsKey(name)) {
+                names.add(name);
+            }
+        }
+        names.addAll(new TreeSet<>(manifest.getEntries().keySet()));
+
+        for (final String name : names) {
+            writeAttribute(out, "Name", name);
+            writeAttributes(out, manifest.getEntries().get(name), null);
+            newLine(out);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static void writeAttributes(final ByteArrayOutputStream out, final Attributes attributes,
+            final Attributes.Name skip) {
+        final List<Map.Entry<Object, Object>> entries = new ArrayList<>(attributes.entrySet());
+        entries.sort((a, b) -> a.getKey().toString().compareTo(b.getKey().toString()));
+
+        for (final Map.Entry<Object, Object> entry : entries) {
+            if (entry.getKey().equals(skip)) {
+                continue;
+            }
+            writeAttribute(out, entry.getKey().toString(), String.valueOf(entry.getValue()));
+        }
+    }
+
+    private static void writeAttribute(final ByteArrayOutputStream out, final String name, final String value) {
+        final byte[] line = (name + ": " + value).getBytes(StandardCharsets.UTF_8);
+
+        int offset = 0;
+        int max = MAX_LINE;
+        while (line.length - offset > max) {
+            int end = offset + max;
+            // don't split multi-byte characters
+            while (end > offset + 1 && (line[end] & 0xC0) == 0x80) {
+                end--;
+            }
+            out.write(line, offset, end - offset);
+            newLine(out);
+            out.write(' ');
+            offset = end;
+            max = MAX_LINE - 1;
+        }
+        out.write(line, offset, line.length - offset);
+        newLine(out);
+    }
+
+    private static void newLine(final ByteArrayOutputStream out) {
+        out.write('\r');
+        out.write('\n');
+    }
+}
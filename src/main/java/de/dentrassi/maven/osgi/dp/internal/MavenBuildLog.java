@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import org.apache.maven.plugin.logging.Log;
+
+import de.dentrassi.maven.osgi.dp.builder.BuildLog;
+
+/**
+ * Pass the log messages of the DP builder on to the Maven log
+ */
+public class MavenBuildLog implements BuildLog {
+
+    private final Log log;
+
+    public MavenBuildLog(final Log log) {
+        this.log = log;
+    }
+
+    @Override
+    public void debug(final String message) {
+        this.log.debug(message);
+    }
+
+    @Override
+    public void debug(final String message, final Throwable error) {
+        this.log.debug(message, error);
+    }
+
+    @Override
+    public void info(final String message) {
+        this.log.info(message);
+    }
+
+    @Override
+    public void warn(final String message) {
+        this.log.warn(message);
+    }
+
+    @Override
+    public void warn(final String message, final Throwable error) {
+        this.log.warn(message, error);
+    }
+}
@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.dentrassi.maven.osgi.dp.builder.BuildLog;
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+
+/**
+ * A persistent cache of bundle metadata
+ * <p>
+ * Each bundle is stored in a file of its own, named after its canonical path.
+ * An entry is only valid as long as size and last modification timestamp of
+ * the bundle file are unchanged. Optionally the content digest of the bundle
+ * file gets verified as well.
+ * </p>
+ * <p>
+ * Scanning a bundle only reads its manifest, so new entries don't have the
+ * digest and CRC of the bundle. Once these got calculated, e.g. for writing
+ * the DP, they can be added using {@link #update(Collection)}.
+ * </p>
+ * <p>
+ * Entries are written using {@link CacheFiles}, so that multiple processes
+ * may share the same cache directory. Entries which cannot be read are
+ * discarded and treated as a cache miss.
+ * </p>
+ */
+public class MetadataCache {
+
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Load the bundle metadata
+         *
+         * @param location
+         *            the location of the bundle
+         * @return the metadata, or {@code null} if the location is not a
+         *         bundle
+         */
+        public BundleInfo load(Path location) throws IOException;
+    }
+
+    private static final String FORMAT = "5";
+
+    private static final String HEADER_PREFIX = "header.";
+
+    private final Path directory;
+
+    private final boolean verifyContent;
+
+    private final BuildLog logger;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private final AtomicInteger corrupt = new AtomicInteger();
+
+    /**
+     * Entries stored without digest and CRC, by the location of the bundle
+     */
+    private final Map<Path, Entry> incomplete = new ConcurrentHashMap<>();
+
+    private static class Entry {
+        private final Path file;
+
+        private final Path canonical;
+
+        private final long size;
+
+        private final long lastModified;
+
+        Entry(final Path file, final Path canonical, final long size, final long lastModified) {
+            this.file = file;
+            this.canonical = canonical;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    public MetadataCache(final Path directory, final boolean verifyContent, final BuildLog logger) {
+        this.directory = directory;
+        this.verifyContent = verifyContent;
+        this.logger = logger;
+    }
+
+    public int getHits() {
+        return this.hits.get();
+    }
+
+    public int getMisses() {
+        return this.misses.get();
+    }
+
+    public int getCorrupt() {
+        return this.corrupt.get();
+    }
+
+    /**
+     * Get the metadata of a bundle
+     * <p>
+     * If the cache does not contain a valid entry for the location, the
+     * loader will be called and the result will be stored in the cache.
+     * </p>
+     *
+     * @param location
+     *            the location of the bundle
+     * @param loader
+     *            the loader for the case of a cache miss
+     * @return the metadata, or {@code null} if the location is not a bundle
+     * @throws IOException
+     *             if the loader fails
+     */
+    public BundleInfo get(final Path location, final Loader loader) throws IOException {
+        final Path canonical = location.toRealPath();
+        final long size = Files.size(canonical);
+        final long lastModified = Files.getLastModifiedTime(canonical).toMillis();
+
+        final Path file = this.directory.resolve(Digests.hex(canonical.toString()) + ".properties");
+
+        final Entry entry = new Entry(file, canonical, size, lastModified);
+
+        final Properties p = readEntry(file);
+        if (p != null && isValid(p, entry)) {
+            if (!this.verifyContent) {
+                this.hits.incrementAndGet();
+                return toInfo(p, entry, location, null);
+            }
+
+            // reading the content anyway, so keep its checksums
+            final Digests.Checksums checksums = Digests.checksums(canonical);
+            if (checksums.getDigest().equals(p.getProperty("digest"))) {
+                this.hits.incrementAndGet();
+                return toInfo(p, entry, location, checksums);
+            }
+            this.logger.debug(format("Content of '%s' changed", canonical));
+        }
+
+        this.misses.incrementAndGet();
+
+        final BundleInfo result = loader.load(location);
+
+        if (Files.getLastModifiedTime(canonical).toMillis() == lastModified && Files.size(canonical) == size) {
+            writeEntry(entry, result);
+            if (result != null && !result.hasChecksums()) {
+                this.incomplete.put(location, entry);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Add the digest and CRC of bundles to their entries
+     * <p>
+     * Only entries which were stored without them, and bundles which have
+     * them by now, are updated. Bundles which changed since storing their
+     * entry are skipped.
+     * </p>
+     *
+     * @param bundles
+     *            the bundles to update
+     */
+    public void update(final Collection<BundleInfo> bundles) {
+        for (final BundleInfo bundle : bundles) {
+            if (!bundle.hasChecksums()) {
+                continue;
+            }
+            final Entry entry = this.incomplete.remove(bundle.getLocation());
+            if (entry == null) {
+                continue;
+            }
+            try {
+                if (Files.getLastModifiedTime(entry.canonical).toMillis() == entry.lastModified
+                        && Files.size(entry.canonical) == entry.size) {
+                    writeEntry(entry, bundle);
+                }
+            } catch (final IOException e) {
+                this.logger.debug(format("Failed to check: %s", entry.canonical), e);
+            }
+        }
+    }
+
+    private static boolean isValid(final Properties p, final Entry entry) {
+        return entry.canonical.toString().equals(p.getProperty("path"))
+                && Long.toString(entry.size).equals(p.getProperty("size"))
+                && Long.toString(entry.lastModified).equals(p.getProperty("lastModified"));
+    }
+
+    private BundleInfo toInfo(final Properties p, final Entry entry, final Path location,
+            final Digests.Checksums checksums) {
+        final String bsn = p.getProperty("bsn");
+        if (bsn == null) {
+            // cached negative result
+            return null;
+        }
+        final Map<String, String> headers = new LinkedHashMap<>();
+        for (final String header : BundleInfo.HEADERS) {
+            final String value = p.getProperty(HEADER_PREFIX + header);
+            if (value != null) {
+                headers.put(header, value);
+            }
+        }
+
+        if (checksums != null) {
+            return new BundleInfo(location, bsn, p.getProperty("version"), entry.size, checksums.getDigest(),
+                    checksums.getCrc(), headers);
+        }
+        if (p.getProperty("digest") != null) {
+            return new BundleInfo(location, bsn, p.getProperty("version"), entry.size, p.getProperty("digest"),
+                    Long.parseLong(p.getProperty("crc")), headers);
+        }
+
+        this.incomplete.put(location, entry);
+        return new BundleInfo(location, bsn, p.getProperty("version"), entry.size, headers);
+    }
+
+    private Properties readEntry(final Path file) {
+        final Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            p.load(in);
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IOException | IllegalArgumentException e) {
+            discard(file, e);
+            return null;
+        }
+
+        if (!FORMAT.equals(p.getProperty("format")) || p.getProperty("path") == null
+                || p.getProperty("digest") != null && !isNumber(p.getProperty("crc"))) {
+            discard(file, null);
+            return null;
+        }
+
+        return p;
+    }
+
+    private static boolean isNumber(final String value) {
+        if (value == null) {
+            return false;
+        }
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void discard(final Path file, final Exception e) {
+        this.corrupt.incrementAndGet();
+        this.logger.debug(format("Discarding corrupt cache entry: %s", file), e);
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException e1) {
+            this.logger.debug("Failed to delete cache entry", e1);
+        }
+    }
+
+    private void writeEntry(final Entry entry, final BundleInfo info) {
+        final Path file = entry.file;
+        final Path canonical = entry.canonical;
+
+        try {
+            final Properties p = new Properties();
+            p.setProperty("format", FORMAT);
+            p.setProperty("path", canonical.toString());
+            p.setProperty("size", Long.toString(entry.size));
+            p.setProperty("lastModified", Long.toString(entry.lastModified));
+            if (info != null) {
+                p.setProperty("bsn", info.getSymbolicName());
+                if (info.getVersion() != null) {
+                    p.setProperty("version", info.getVersion());
+                }
+                if (info.hasChecksums()) {
+                    p.setProperty("digest", info.getDigest());
+                    p.setProperty("crc", Long.toString(info.getCrc()));
+                }
+                for (final Map.Entry<String, String> header : info.getHeaders().entrySet()) {
+                    p.setProperty(HEADER_PREFIX + header.getKey(), header.getValue());
+                }
+            }
+
+            Files.createDirectories(this.directory);
+            CacheFiles.store(file, p);
+        } catch (final IOException e) {
+            // failing to update the cache must not fail the build
+            this.logger.warn(format("Failed to write cache entry for: %s", canonical), e);
+        }
+    }
+}
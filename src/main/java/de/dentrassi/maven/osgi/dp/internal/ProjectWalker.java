@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Jens Reimann.
+ * Copyright (c) 2016, 2026 Jens Reimann and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     Jens Reimann <jreimann@redhat.com> - initial API and implementation
+ *     agent <agent@local>
  *******************************************************************************/
 package de.dentrassi.maven.osgi.dp.internal;
 
@@ -15,6 +16,8 @@ import java.io.IOException;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.project.MavenProject;
 
+import de.dentrassi.maven.osgi.dp.builder.ArtifactWalker;
+
 public class ProjectWalker implements ArtifactWalker {
 
     private final MavenProject project;
@@ -33,7 +36,7 @@ public class ProjectWalker implements ArtifactWalker {
 
         if (art.getFile().getName().toLowerCase().endsWith(".jar")) {
             try {
-                consumer.accept(new Entry(art.getFile().toPath()));
+                consumer.accept(new Entry(art.getFile().toPath(), art.getGroupId()));
             } catch (final IOException e) {
                 throw new RuntimeException(e);
             }
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.osgi.framework.Version;
+
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+
+/**
+ * Write an OSGi repository index, as defined by the OSGi R5 repository
+ * service specification
+ * <p>
+ * The index is created from the captured metadata of the bundles only, the
+ * bundle files are not read again. Each bundle is described by its identity,
+ * its content, and the capabilities and requirements of its package, bundle
+ * and host wiring and of its generic capability headers.
+ * </p>
+ */
+public class RepositoryIndex {
+
+    private static final String NAMESPACE = "http://www.osgi.org/xmlns/repository/v1.0.0";
+
+    private static final String MIME_TYPE = "application/vnd.osgi.bundle";
+
+    private final Writer writer;
+
+    public RepositoryIndex(final Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Write the index
+     * <p>
+     * The writer is flushed, but not closed.
+     * </p>
+     *
+     * @param name
+     *            the name of the repository
+     * @param increment
+     *            the increment of the repository
+     * @param bundles
+     *            the bundles, by the entry name in the DP, which is used as
+     *            the URL of the content
+     */
+    public void write(final String name, final long increment, final Map<String, BundleInfo> bundles)
+            throws IOException {
+        this.writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        this.writer.write(String.format("<repository xmlns=\"%s\" name=\"%s\" increment=\"%s\">\n", NAMESPACE,
+                escape(name), increment));
+
+        for (final Map.Entry<String, BundleInfo> entry : bundles.entrySet()) {
+            resource(entry.getKey(), entry.getValue());
+        }
+
+        this.writer.write("</repository>\n");
+        this.writer.flush();
+    }
+
+    private void resource(final String url, final BundleInfo bundle) throws IOException {
+        final String version = version(bundle.getVersion());
+        final boolean fragment = bundle.getHeader("Fragment-Host") != null;
+
+        this.writer.write("  <resource>\n");
+
+        // identity and content
+
+        Map<String, Typed> attributes = new LinkedHashMap<>();
+        attributes.put("osgi.identity", new Typed(bundle.getSymbolicName()));
+        attributes.put("type", new Typed(fragment ? "osgi.fragment" : "osgi.bundle"));
+        attributes.put("version", new Typed("Version", version));
+        element("capability", "osgi.identity", attributes, null);
+
+        attributes = new LinkedHashMap<>();
+        attributes.put("osgi.content", new Typed(Digests.hex(Base64.getDecoder().decode(bundle.getDigest()))));
+        attributes.put("url", new Typed(url));
+        attributes.put("size", new Typed("Long", Long.toString(bundle.getSize())));
+        attributes.put("mime", new Typed(MIME_TYPE));
+        element("capability", "osgi.content", attributes, null);
+
+        // bundle and host wiring, fragments can neither be required nor host other fragments
+
+        if (!fragment) {
+            for (final String namespace : new String[] { "osgi.wiring.bundle", "osgi.wiring.host" }) {
+                attributes = new LinkedHashMap<>();
+                attributes.put(namespace, new Typed(bundle.getSymbolicName()));
+                attributes.put("bundle-version", new Typed("Version", version));
+                element("capability", namespace, attributes, null);
+            }
+        }
+
+        // package wiring
+
+        for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Export-Package"))) {
+            attributes = new LinkedHashMap<>();
+            attributes.put("osgi.wiring.package", new Typed(clause.getName()));
+            attributes.put("version", new Typed("Version", version(clause.getAttribute("version"))));
+            attributes.put("bundle-symbolic-name", new Typed(bundle.getSymbolicName()));
+            attributes.put("bundle-version", new Typed("Version", version));
+            for (final Map.Entry<String, String> attribute : clause.getAttributes().entrySet()) {
+                final String key = attribute.getKey();
+                if (!attributes.containsKey(key) && !"specification-version".equals(key)) {
+                    attributes.put(key, new Typed(clause.getAttributeType(key), attribute.getValue()));
+                }
+            }
+            element("capability", "osgi.wiring.package", attributes, clause.getDirectives());
+        }
+
+        for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Import-Package"))) {
+            final StringBuilder filter = new StringBuilder();
+            filter.append("(osgi.wiring.package=").append(escapeFilter(clause.getName())).append(')');
+            range(filter, "version", clause.getAttribute("version"));
+            if (clause.getAttribute("bundle-symbolic-name") != null) {
+                filter.append("(bundle-symbolic-name=")
+                        .append(escapeFilter(clause.getAttribute("bundle-symbolic-name"))).append(')');
+            }
+            range(filter, "bundle-version", clause.getAttribute("bundle-version"));
+            requirement("osgi.wiring.package", filter, clause);
+        }
+
+        for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Require-Bundle"))) {
+            final StringBuilder filter = new StringBuilder();
+            filter.append("(osgi.wiring.bundle=").append(escapeFilter(clause.getName())).append(')');
+            range(filter, "bundle-version", clause.getAttribute("bundle-version"));
+            requirement("osgi.wiring.bundle", filter, clause);
+        }
+
+        for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Fragment-Host"))) {
+            final StringBuilder filter = new StringBuilder();
+            filter.append("(osgi.wiring.host=").append(escapeFilter(clause.getName())).append(')');
+            range(filter, "bundle-version", clause.getAttribute("bundle-version"));
+            requirement("osgi.wiring.host", filter, clause);
+        }
+
+        // generic capabilities and requirements
+
+        for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Provide-Capability"))) {
+            attributes = new LinkedHashMap<>();
+            for (final Map.Entry<String, String> attribute : clause.getAttributes().entrySet()) {
+                attributes.put(attribute.getKey(),
+                        new Typed(clause.getAttributeType(attribute.getKey()), attribute.getValue()));
+            }
+            element("capability", clause.getName(), attributes, clause.getDirectives());
+        }
+
+        for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Require-Capability"))) {
+            attributes = new LinkedHashMap<>();
+            for (final Map.Entry<String, String> attribute : clause.getAttributes().entrySet()) {
+                attributes.put(attribute.getKey(),
+                        new Typed(clause.getAttributeType(attribute.getKey()), attribute.getValue()));
+            }
+            element("requirement", clause.getName(), attributes, clause.getDirectives());
+        }
+
+        this.writer.write("  </resource>\n");
+    }
+
+    private void requirement(final String namespace, final StringBuilder filter, final HeaderClause clause)
+            throws IOException {
+        final Map<String, String> directives = new LinkedHashMap<>();
+        directives.put("filter", filter.indexOf(")(") < 0 ? filter.toString() : "(&" + filter + ")");
+        if ("optional".equals(clause.getDirective("resolution"))) {
+            directives.put("resolution", "optional");
+        }
+        element("requirement", namespace, null, directives);
+    }
+
+    private void element(final String element, final String namespace, final Map<String, Typed> attributes,
+            final Map<String, String> directives) throws IOException {
+        this.writer.write(String.format("    <%s namespace=\"%s\">\n", element, escape(namespace)));
+
+        if (attributes != null) {
+            for (final Map.Entry<String, Typed> attribute : attributes.entrySet()) {
+                final Typed value = attribute.getValue();
+                if (value.type == null || "String".equals(value.type)) {
+                    this.writer.write(String.format("      <attribute name=\"%s\" value=\"%s\"/>\n",
+                            escape(attribute.getKey()), escape(value.value)));
+                } else {
+                    this.writer.write(String.format("      <attribute name=\"%s\" type=\"%s\" value=\"%s\"/>\n",
+                            escape(attribute.getKey()), escape(value.type), escape(value.value)));
+                }
+            }
+        }
+
+        if (directives != null) {
+            for (final Map.Entry<String, String> directive : directives.entrySet()) {
+                this.writer.write(String.format("      <directive name=\"%s\" value=\"%s\"/>\n",
+                        escape(directive.getKey()), escape(directive.getValue())));
+            }
+        }
+
+        this.writer.write(String.format("    </%s>\n", element));
+    }
+
+    /**
+     * Append the filter for a version range, as used in manifest headers
+     */
+    private static void range(final StringBuilder filter, final String attribute, final String range) {
+        if (range == null || range.trim().isEmpty()) {
+            return;
+        }
+
+        try {
+            VersionRange.parse(range).appendFilter(filter, attribute);
+        } catch (final IllegalArgumentException e) {
+            // not a valid range, fall back to the raw value
+            filter.append('(').append(attribute).append('=').append(escapeFilter(range.trim())).append(')');
+        }
+    }
+
+    /**
+     * Normalize a version, keeping invalid versions as they are
+     */
+    private static String version(final String version) {
+        if (version == null) {
+            return Version.emptyVersion.toString();
+        }
+        try {
+            return Version.parseVersion(version).toString();
+        } catch (final IllegalArgumentException e) {
+            return version.trim();
+        }
+    }
+
+    private static String escapeFilter(final String value) {
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' || c == '*' || c == '(' || c == ')') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static String escape(final String value) {
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '&':
+                sb.append("&amp;");
+                break;
+            case '<':
+                sb.append("&lt;");
+                break;
+            case '>':
+                sb.append("&gt;");
+                break;
+            case '"':
+                sb.append("&quot;");
+                break;
+            default:
+                if (c < 0x20) {
+                    sb.append("&#").append((int) c).append(';');
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * An attribute value, with an optional type
+     */
+    private static class Typed {
+        private final String type;
+
+        private final String value;
+
+        Typed(final String value) {
+            this(null, value);
+        }
+
+        Typed(final String type, final String value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+}
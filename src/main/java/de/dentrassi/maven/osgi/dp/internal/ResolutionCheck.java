@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.osgi.framework.Version;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+
+/**
+ * Check that the bundles of a DP can be resolved
+ * <p>
+ * The check indexes the exported packages and the symbolic names of all
+ * bundles of the DP, and of an optional target platform. Each mandatory
+ * {@code Import-Package}, {@code Require-Bundle} and {@code Fragment-Host}
+ * requirement is then looked up by name, and matched against the versions of
+ * its few providers only, so the check scales linearly with the number of
+ * requirements.
+ * </p>
+ * <p>
+ * This is not a full resolver. Uses constraints, singletons and generic
+ * capabilities are not considered.
+ * </p>
+ */
+public class ResolutionCheck {
+
+    /**
+     * What to do with unresolved requirements
+     */
+    public static enum Mode {
+        /**
+         * Don't check
+         */
+        SKIP,
+        /**
+         * Log a warning
+         */
+        WARN,
+        /**
+         * Fail the build
+         */
+        FAIL;
+    }
+
+    /**
+     * A requirement which cannot be satisfied
+     */
+    public static class Problem {
+        private final String bundle;
+
+        private final String header;
+
+        private final String name;
+
+        private final VersionRange range;
+
+        public Problem(final String bundle, final String header, final String name, final VersionRange range) {
+            this.bundle = bundle;
+            this.header = header;
+            this.name = name;
+            this.range = range;
+        }
+
+        /**
+         * @return the symbolic name and version of the requiring bundle
+         */
+        public String getBundle() {
+            return this.bundle;
+        }
+
+        /**
+         * @return the manifest header of the requirement
+         */
+        public String getHeader() {
+            return this.header;
+        }
+
+        /**
+         * @return the name of the required package or bundle
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        public VersionRange getRange() {
+            return this.range;
+        }
+
+        @Override
+        public String toString() {
+            return format("%s: %s %s %s", this.bundle, this.header, this.name, this.range);
+        }
+    }
+
+    private final Map<String, List<Version>> packages = new HashMap<>();
+
+    private final Map<String, List<Version>> bundles = new HashMap<>();
+
+    /**
+     * Package prefixes of wildcard exports, like {@code javax.*}
+     */
+    private final List<String> wildcards = new ArrayList<>();
+
+    private int providers;
+
+    private int requirements;
+
+    /**
+     * Add the exports of a bundle
+     *
+     * @param symbolicName
+     *            the symbolic name of the bundle
+     * @param version
+     *            the version of the bundle
+     * @param exports
+     *            the value of the {@code Export-Package} header, may be
+     *            {@code null}
+     * @param fragment
+     *            whether the bundle is a fragment, which cannot be required
+     *            by other bundles
+     */
+    public void addBundle(final String symbolicName, final String version, final String exports,
+            final boolean fragment) {
+        if (!fragment) {
+            this.bundles.computeIfAbsent(symbolicName, k -> new ArrayList<>()).add(version(version));
+        }
+        addPackages(exports);
+        this.providers++;
+    }
+
+    /**
+     * Add exported packages which are not provided by a bundle, like the
+     * packages of the system bundle
+     *
+     * @param exports
+     *            the exported packages, in the syntax of the
+     *            {@code Export-Package} header. A package name ending with
+     *            {@code .*} matches all packages starting with the prefix, in
+     *            any version.
+     */
+    public void addPackages(final String exports) {
+        for (final HeaderClause clause : HeaderClause.parse(exports)) {
+            if (clause.getName().endsWith(".*")) {
+                this.wildcards.add(clause.getName().substring(0, clause.getName().length() - 1));
+            } else {
+                this.packages.computeIfAbsent(clause.getName(), k -> new ArrayList<>())
+                        .add(version(clause.getAttribute("version")));
+            }
+        }
+    }
+
+    /**
+     * Add the bundles of a target platform
+     *
+     * @param location
+     *            a bundle, a directory of bundles, or an OSGi repository index
+     *            ({@code .xml} or {@code .xml.gz})
+     * @throws IOException
+     *             if reading the location fails
+     */
+    public void addTarget(final Path location) throws IOException {
+        if (Files.isDirectory(location)) {
+            final List<Path> files;
+            try (Stream<Path> stream = Files.walk(location)) {
+                files = stream.filter(p -> p.getFileName().toString().endsWith(".jar") && Files.isRegularFile(p))
+                        .sorted().collect(Collectors.toList());
+            }
+            for (final Path file : files) {
+                addJar(file);
+            }
+            return;
+        }
+
+        final String name = location.getFileName().toString();
+        if (name.endsWith(".xml") || name.endsWith(".xml.gz")) {
+            addIndex(location, name.endsWith(".gz"));
+        } else {
+            addJar(location);
+        }
+    }
+
+    private void addJar(final Path file) throws IOException {
+        final BundleManifest mf = ManifestReader.read(file);
+        if (mf == null) {
+            return;
+        }
+
+        final String bsn = mf.getValue("Bundle-SymbolicName");
+        if (bsn == null) {
+            return;
+        }
+
+        addBundle(bsn.split(";", 2)[0].trim(), mf.getValue("Bundle-Version"), mf.getValue("Export-Package"),
+                mf.getValue("Fragment-Host") != null);
+    }
+
+    private void addIndex(final Path file, final boolean compressed) throws IOException {
+        final Element repository;
+        try (InputStream in = compressed ? new GZIPInputStream(Files.newInputStream(file))
+                : Files.newInputStream(file)) {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            repository = factory.newDocumentBuilder().parse(in).getDocumentElement();
+        } catch (final ParserConfigurationException | SAXException e) {
+            throw new IOException(format("Failed to parse repository index: %s", file), e);
+        }
+
+        for (final Element resource : children(repository, "resource")) {
+            boolean found = false;
+            for (final Element capability : children(resource, "capability")) {
+                final String namespace = capability.getAttribute("namespace");
+                final Map<String, String> attributes = attributes(capability);
+
+                if ("osgi.wiring.package".equals(namespace)) {
+                    this.packages.computeIfAbsent(attributes.get(namespace), k -> new ArrayList<>())
+                            .add(version(attributes.get("version")));
+                    found = true;
+                } else if ("osgi.wiring.bundle".equals(namespace)) {
+                    this.bundles.computeIfAbsent(attributes.get(namespace), k -> new ArrayList<>())
+                            .add(version(attributes.get("bundle-version")));
+                    found = true;
+                } else if ("osgi.identity".equals(namespace)) {
+                    found = true;
+                }
+            }
+            if (found) {
+                this.providers++;
+            }
+        }
+    }
+
+    private static List<Element> children(final Element parent, final String name) {
+        final List<Element> result = new ArrayList<>();
+        final NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            final Node node = nodes.item(i);
+            if (node instanceof Element && name.equals(node.getLocalName())) {
+                result.add((Element) node);
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, String> attributes(final Element capability) {
+        final Map<String, String> result = new HashMap<>();
+        for (final Element attribute : children(capability, "attribute")) {
+            result.put(attribute.getAttribute("name"), attribute.getAttribute("value"));
+        }
+        return result;
+    }
+
+    /**
+     * Check the requirements of the bundles
+     * <p>
+     * The bundles themselves must be added as providers before.
+     * </p>
+     *
+     * @param bundles
+     *            the bundles to check
+     * @return the unresolved requirements, never {@code null}
+     */
+    public List<Problem> check(final Collection<BundleInfo> bundles) {
+        final List<Problem> result = new ArrayList<>();
+
+        for (final BundleInfo bundle : bundles) {
+            for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader("Import-Package"))) {
+                this.requirements++;
+                if (isOptional(clause)) {
+                    continue;
+                }
+                final VersionRange range = range(clause.getAttribute("version"));
+                if (!matches(this.packages.get(clause.getName()), range) && !isWildcard(clause.getName())) {
+                    result.add(new Problem(bundle.toString(), "Import-Package", clause.getName(), range));
+                }
+            }
+
+            checkBundle(result, bundle, "Require-Bundle");
+            checkBundle(result, bundle, "Fragment-Host");
+        }
+
+        return result;
+    }
+
+    private void checkBundle(final List<Problem> result, final BundleInfo bundle, final String header) {
+        for (final HeaderClause clause : HeaderClause.parse(bundle.getHeader(header))) {
+            this.requirements++;
+            if (isOptional(clause)) {
+                continue;
+            }
+            final VersionRange range = range(clause.getAttribute("bundle-version"));
+            if (!matches(this.bundles.get(clause.getName()), range)
+                    && !"system.bundle".equals(clause.getName())) {
+                result.add(new Problem(bundle.toString(), header, clause.getName(), range));
+            }
+        }
+    }
+
+    private static boolean isOptional(final HeaderClause clause) {
+        return "optional".equals(clause.getDirective("resolution"));
+    }
+
+    private boolean isWildcard(final String packageName) {
+        for (final String prefix : this.wildcards) {
+            if (packageName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(final List<Version> versions, final VersionRange range) {
+        if (versions != null) {
+            for (final Version version : versions) {
+                if (range.includes(version)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static VersionRange range(final String value) {
+        try {
+            return VersionRange.parse(value);
+        } catch (final IllegalArgumentException e) {
+            // an invalid range would already fail to install
+            return VersionRange.ANY;
+        }
+    }
+
+    private static Version version(final String version) {
+        try {
+            return Version.parseVersion(version);
+        } catch (final IllegalArgumentException e) {
+            return Version.emptyVersion;
+        }
+    }
+
+    /**
+     * @return the number of bundles and index resources providing packages
+     *         or bundles
+     */
+    public int getProviders() {
+        return this.providers;
+    }
+
+    /**
+     * @return the number of requirements checked, including optional ones
+     */
+    public int getRequirements() {
+        return this.requirements;
+    }
+
+    /**
+     * @return the number of distinct exported packages
+     */
+    public int getPackages() {
+        return this.packages.size();
+    }
+}
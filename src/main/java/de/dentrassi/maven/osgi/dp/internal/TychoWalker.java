@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Jens Reimann.
+ * Copyright (c) 2016, 2026 Jens Reimann and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     Jens Reimann <jreimann@redhat.com> - initial API and implementation
+ *     agent <agent@local>
  *******************************************************************************/
 package de.dentrassi.maven.osgi.dp.internal;
 
@@ -14,65 +15,268 @@ import static java.lang.String.format;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.tycho.ArtifactDescriptor;
+import org.eclipse.tycho.ArtifactKey;
 import org.eclipse.tycho.ReactorProject;
+import org.eclipse.tycho.artifacts.DependencyArtifacts;
 import org.eclipse.tycho.core.ArtifactDependencyVisitor;
 import org.eclipse.tycho.core.ArtifactDependencyWalker;
 import org.eclipse.tycho.core.FeatureDescription;
 import org.eclipse.tycho.core.PluginDescription;
+import org.eclipse.tycho.core.TargetPlatformConfiguration;
+import org.eclipse.tycho.core.shared.TargetEnvironment;
+import org.eclipse.tycho.core.utils.TychoProjectUtils;
 
+import de.dentrassi.maven.osgi.dp.builder.ArtifactWalker;
+
+/**
+ * Walk the plugins of a Tycho feature
+ * <p>
+ * Each bundle location is only reported once, even if it is included by
+ * several features. If a feature cache is provided, the bundle locations of
+ * included features are stored in the cache, and are reused instead of
+ * traversing the same feature again. Cached features are keyed by the target
+ * platform of the project as well, see {@link #platformKey(MavenProject)}.
+ * </p>
+ */
 public class TychoWalker implements ArtifactWalker {
 
+    private static final String SESSION_CACHE_KEY = TychoWalker.class.getName() + ".features";
+
     private final ArtifactDependencyWalker walker;
+    private final Map<String, List<Path>> featureCache;
+    private final String platformKey;
     private final Log logger;
 
+    private final Set<String> inProgress = new HashSet<>();
+
+    private int reusedFeatures;
+    private int savedVisits;
+
     public TychoWalker(final ArtifactDependencyWalker walker, final Log logger) {
+        this(walker, null, null, logger);
+    }
+
+    /**
+     * Create a new walker
+     *
+     * @param walker
+     *            the Tycho walker of the project
+     * @param featureCache
+     *            the cache for the bundle locations of included features, may
+     *            be {@code null}
+     * @param platformKey
+     *            the identity of the target platform of the project, required
+     *            if a feature cache is provided
+     * @param logger
+     *            the logger to use
+     */
+    public TychoWalker(final ArtifactDependencyWalker walker, final Map<String, List<Path>> featureCache,
+            final String platformKey, final Log logger) {
+        if (featureCache != null && platformKey == null) {
+            throw new IllegalArgumentException("A feature cache requires a target platform key");
+        }
+
         this.walker = walker;
+        this.featureCache = featureCache;
+        this.platformKey = platformKey;
         this.logger = logger;
     }
 
+    /**
+     * Get the identity of the target platform of a project
+     * <p>
+     * The bundles of a feature depend on the target environments and on the
+     * resolved target platform of the project. The key covers both, so
+     * features are only shared between projects which resolve them the same
+     * way. The project itself is not part of the key.
+     * </p>
+     *
+     * @param project
+     *            the project
+     * @return the key, or {@code null} if the target platform of the project
+     *         is not resolved
+     */
+    public static String platformKey(final MavenProject project) {
+        final TargetPlatformConfiguration configuration;
+        final DependencyArtifacts artifacts;
+        try {
+            configuration = TychoProjectUtils.getTargetPlatformConfiguration(project);
+            artifacts = TychoProjectUtils.getDependencyArtifacts(project);
+        } catch (final IllegalStateException e) {
+            return null;
+        }
+
+        final List<String> entries = new ArrayList<>();
+        for (final ArtifactDescriptor descriptor : artifacts.getArtifacts()) {
+            final ReactorProject reactorProject = descriptor.getMavenProject();
+            if (reactorProject != null && project.getBasedir().equals(reactorProject.getBasedir())) {
+                continue;
+            }
+            final ArtifactKey key = descriptor.getKey();
+            entries.add(format("%s:%s:%s:%s@%s", key.getType(), key.getId(), key.getVersion(),
+                    descriptor.getClassifier(), descriptor.getLocation()));
+        }
+        Collections.sort(entries);
+
+        final StringBuilder sb = new StringBuilder();
+        for (final TargetEnvironment environment : configuration.getEnvironments()) {
+            sb.append(environment.toConfigSpec()).append('\n');
+        }
+        for (final String entry : entries) {
+            sb.append(entry).append('\n');
+        }
+
+        return Digests.hex(sb.toString());
+    }
+
+    /**
+     * Get the feature cache of a build session
+     * <p>
+     * The cache is shared by all executions in the same build, including
+     * executions in parallel builds.
+     * </p>
+     *
+     * @param session
+     *            the repository session of the build
+     * @return the feature cache, never {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, List<Path>> sessionCache(final RepositorySystemSession session) {
+        final SessionData data = session.getData();
+
+        Object cache = data.get(SESSION_CACHE_KEY);
+        if (cache == null) {
+            data.set(SESSION_CACHE_KEY, null, new ConcurrentHashMap<String, List<Path>>());
+            cache = data.get(SESSION_CACHE_KEY);
+        }
+
+        return (Map<String, List<Path>>) cache;
+    }
+
     @Override
     public void walk(final ArtifactConsumer consumer) {
-        this.walker.walk(new ArtifactDependencyVisitor() {
-            @Override
-            public boolean visitFeature(final FeatureDescription feature) {
+        final Set<Path> seen = new HashSet<>();
+        final int[] duplicates = new int[1];
+
+        this.walker.walk(new Visitor(location -> {
+            if (!seen.add(location)) {
+                duplicates[0]++;
+                return;
+            }
+            try {
+                consumer.accept(new Entry(location));
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+
+        this.logger.info(format("Feature walk: %s bundles, %s included features reused, %s plugin visits saved",
+                seen.size(), this.reusedFeatures, this.savedVisits + duplicates[0]));
+    }
+
+    private List<Path> resolve(final FeatureDescription feature) {
+        final String key = makeKey(feature);
+
+        final List<Path> cached = this.featureCache.get(key);
+        if (cached != null) {
+            this.logger.debug(format("Reusing feature: %s", key));
+            this.reusedFeatures++;
+            this.savedVisits += cached.size();
+            return cached;
+        }
+
+        if (!this.inProgress.add(key)) {
+            // a cycle, which Tycho itself rejects
+            return Collections.emptyList();
+        }
+
+        try {
+            final Set<Path> result = new LinkedHashSet<>();
+            this.walker.traverseFeature(feature.getLocation(), feature.getFeature(), new Visitor(result::add));
+
+            final List<Path> locations = Collections.unmodifiableList(new ArrayList<>(result));
+            final List<Path> existing = this.featureCache.putIfAbsent(key, locations);
+            return existing != null ? existing : locations;
+        } finally {
+            this.inProgress.remove(key);
+        }
+    }
+
+    private String makeKey(final FeatureDescription feature) {
+        final ArtifactKey key = feature.getKey();
+        return format("%s:%s:%s@%s#%s", key.getType(), key.getId(), key.getVersion(),
+                feature.getLocation().getAbsolutePath(), this.platformKey);
+    }
+
+    private class Visitor extends ArtifactDependencyVisitor {
+
+        private final Consumer<Path> sink;
+
+        /**
+         * The first feature is the one being traversed, all others are
+         * included features
+         */
+        private boolean root = true;
+
+        public Visitor(final Consumer<Path> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public boolean visitFeature(final FeatureDescription feature) {
+            if (this.root || TychoWalker.this.featureCache == null) {
+                this.root = false;
                 return true;
             }
 
-            @Override
-            public void visitPlugin(final PluginDescription plugin) {
-                try {
-                    TychoWalker.this.logger.debug(format("Considering artifact: %s", plugin));
-
-                    if (!"eclipse-plugin".equalsIgnoreCase(plugin.getKey().getType())) {
-                        TychoWalker.this.logger.debug(format("Not a JAR file -> %s", plugin.getKey().getType()));
-                        return;
-                    }
-
-                    final File location;
-                    final ReactorProject p = plugin.getMavenProject();
-                    if (p != null) {
-                        location = p.getArtifact();
-                    } else {
-                        location = plugin.getLocation();
-                    }
-
-                    if (location == null) {
-                        TychoWalker.this.logger.warn(format("Unable to locate artifact: %s", plugin));
-                    }
-
-                    if (!location.isFile()) {
-                        TychoWalker.this.logger.warn(format("Location '%s' is not a file", location));
-                        return;
-                    }
-
-                    consumer.accept(new Entry(location.toPath()));
-                } catch (final IOException e) {
-                    throw new RuntimeException(e);
-                }
+            resolve(feature).forEach(this.sink);
+            return false;
+        }
+
+        @Override
+        public void visitPlugin(final PluginDescription plugin) {
+            TychoWalker.this.logger.debug(format("Considering artifact: %s", plugin));
+
+            if (!"eclipse-plugin".equalsIgnoreCase(plugin.getKey().getType())) {
+                TychoWalker.this.logger.debug(format("Not a JAR file -> %s", plugin.getKey().getType()));
+                return;
+            }
+
+            final File location;
+            final ReactorProject p = plugin.getMavenProject();
+            if (p != null) {
+                location = p.getArtifact();
+            } else {
+                location = plugin.getLocation();
             }
-        });
+
+            if (location == null) {
+                TychoWalker.this.logger.warn(format("Unable to locate artifact: %s", plugin));
+            }
+
+            if (!location.isFile()) {
+                TychoWalker.this.logger.warn(format("Location '%s' is not a file", location));
+                return;
+            }
+
+            this.sink.accept(location.toPath());
+        }
     }
 
 }
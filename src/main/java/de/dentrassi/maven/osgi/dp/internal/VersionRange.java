@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import org.osgi.framework.Version;
+
+/**
+ * A version range, as used in OSGi manifest headers
+ * <p>
+ * A single version, like {@code 1.2}, is a range without an upper limit.
+ * </p>
+ */
+public class VersionRange {
+
+    /**
+     * The range matching all versions
+     */
+    public static final VersionRange ANY = new VersionRange(Version.emptyVersion, true, null, false);
+
+    private final Version floor;
+
+    private final boolean floorInclusive;
+
+    private final Version ceiling;
+
+    private final boolean ceilingInclusive;
+
+    public VersionRange(final Version floor, final boolean floorInclusive, final Version ceiling,
+            final boolean ceilingInclusive) {
+        this.floor = floor;
+        this.floorInclusive = floorInclusive;
+        this.ceiling = ceiling;
+        this.ceilingInclusive = ceilingInclusive;
+    }
+
+    /**
+     * Parse a version range
+     *
+     * @param value
+     *            the range, may be {@code null}
+     * @return the range, {@link #ANY} if the value is {@code null} or empty
+     * @throws IllegalArgumentException
+     *             if the value is not a valid range
+     */
+    public static VersionRange parse(final String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return ANY;
+        }
+
+        final String range = value.trim();
+        final char first = range.charAt(0);
+        if (first != '[' && first != '(') {
+            return new VersionRange(Version.parseVersion(range), true, null, false);
+        }
+
+        final int comma = range.indexOf(',');
+        final char last = range.charAt(range.length() - 1);
+        if (comma < 0 || last != ']' && last != ')') {
+            throw new IllegalArgumentException(String.format("Invalid version range: %s", value));
+        }
+
+        return new VersionRange(Version.parseVersion(range.substring(1, comma).trim()), first == '[',
+                Version.parseVersion(range.substring(comma + 1, range.length() - 1).trim()), last == ']');
+    }
+
+    /**
+     * Check if a version is in the range
+     *
+     * @param version
+     *            the version to check
+     * @return {@code true} if the range includes the version
+     */
+    public boolean includes(final Version version) {
+        final int f = this.floor.compareTo(version);
+        if (f > 0 || f == 0 && !this.floorInclusive) {
+            return false;
+        }
+        if (this.ceiling == null) {
+            return true;
+        }
+        final int c = this.ceiling.compareTo(version);
+        return c > 0 || c == 0 && this.ceilingInclusive;
+    }
+
+    /**
+     * Append the LDAP filter expression of the range
+     *
+     * @param filter
+     *            the filter to append to
+     * @param attribute
+     *            the name of the version attribute
+     */
+    public void appendFilter(final StringBuilder filter, final String attribute) {
+        if (this.floorInclusive) {
+            filter.append('(').append(attribute).append(">=").append(this.floor).append(')');
+        } else {
+            filter.append("(!(").append(attribute).append("<=").append(this.floor).append("))");
+        }
+
+        if (this.ceiling == null) {
+            return;
+        }
+
+        if (this.ceilingInclusive) {
+            filter.append('(').append(attribute).append("<=").append(this.ceiling).append(')');
+        } else {
+            filter.append("(!(").append(attribute).append(">=").append(this.ceiling).append("))");
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (this.ceiling == null) {
+            return this.floor.toString();
+        }
+        return String.format("%s%s,%s%s", this.floorInclusive ? '[' : '(', this.floor, this.ceiling,
+                this.ceilingInclusive ? ']' : ')');
+    }
+}
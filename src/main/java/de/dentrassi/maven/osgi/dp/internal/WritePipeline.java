@@ -0,0 +1,360 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.dentrassi.maven.osgi.dp.builder.EntryCompression;
+
+/**
+ * Write file entries to a {@link JarWriter}, preparing upcoming entries in
+ * parallel
+ * <p>
+ * While the writer thread writes an entry, worker threads already evaluate
+ * the compression method of the following entries, read and deflate them
+ * into memory, and check or calculate their CRC. The entries are still
+ * written in the order of the list, and the result is the same as writing
+ * all entries sequentially.
+ * </p>
+ * <p>
+ * The memory used for prepared entries is limited by a budget. Entries which
+ * are larger than the budget are streamed by the writer thread itself, as are
+ * stored entries, which don't benefit from being buffered. Entries copied
+ * from a previous ZIP file are never prepared.
+ * </p>
+ */
+public class WritePipeline {
+
+    /**
+     * A file to write
+     */
+    public static class Source {
+        private final String name;
+
+        private final Path file;
+
+        private final long size;
+
+        private final long crc;
+
+        private final long time;
+
+        private final ZipIndex.Entry previous;
+
+        public Source(final String name, final Path file, final long size, final long crc, final long time) {
+            this(name, file, size, crc, time, null);
+        }
+
+        /**
+         * Create a source, which may be copied from a previous ZIP file
+         *
+         * @param crc
+         *            the CRC-32 of the file, or -1 if it is not known yet
+         * @param previous
+         *            the unchanged entry of a previous ZIP file, which gets
+         *            copied instead of reading the file, may be {@code null}
+         */
+        public Source(final String name, final Path file, final long size, final long crc, final long time,
+                final ZipIndex.Entry previous) {
+            this.name = name;
+            this.file = file;
+            this.size = size;
+            this.crc = crc;
+            this.time = time;
+            this.previous = previous;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+    }
+
+    /**
+     * Notified for every entry written
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param source
+         *            the source which got written
+         * @param bytes
+         *            the number of bytes written to the JAR, including headers
+         * @param method
+         *            the ZIP method used
+         * @param nanos
+         *            the time spent preparing and writing the entry
+         */
+        void written(Source source, long bytes, int method, long nanos);
+    }
+
+    private static class Prepared {
+        private final Source source;
+
+        private final int method;
+
+        /**
+         * The deflated content, {@code null} if the writer has to stream the
+         * entry itself
+         */
+        private final byte[] data;
+
+        private final int length;
+
+        private final long crc;
+
+        private final long reserved;
+
+        private final long nanos;
+
+        Prepared(final Source source, final int method, final byte[] data, final int length, final long crc,
+                final long reserved, final long nanos) {
+            this.source = source;
+            this.method = method;
+            this.data = data;
+            this.length = length;
+            this.crc = crc;
+            this.reserved = reserved;
+            this.nanos = nanos;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int threads;
+
+    private final long budget;
+
+    private final EntryCompression compression;
+
+    private final int level;
+
+    /**
+     * Create a new pipeline
+     *
+     * @param threads
+     *            the number of worker threads, zero or less means the number
+     *            of available processors, one disables the pipeline
+     * @param budget
+     *            the maximum number of bytes used for prepared entries
+     * @param compression
+     *            the compression of the entries
+     * @param level
+     *            the deflate level, must match the level of the writer
+     */
+    public WritePipeline(final int threads, final long budget, final EntryCompression compression, final int level) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.budget = budget;
+        this.compression = compression;
+        this.level = level;
+    }
+
+    /**
+     * Write all sources, in order
+     *
+     * @param jar
+     *            the writer to write to
+     * @param sources
+     *            the sources to write
+     * @param listener
+     *            the listener, may be {@code null}
+     * @throws IOException
+     *             if reading or writing fails
+     */
+    public void write(final JarWriter jar, final List<Source> sources, final Listener listener) throws IOException {
+        if (this.threads <= 1 || this.budget <= 0 || sources.size() <= 1) {
+            for (final Source source : sources) {
+                final long start = System.nanoTime();
+                final int method = method(source);
+                writeDirect(jar, source, method, start, 0, listener);
+            }
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(this.threads,
+                new ThreadFactoryBuilder().setNameFormat("osgi-dp-writer-%d").setDaemon(true).build());
+
+        try {
+            run(executor, jar, sources, listener);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the DP", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Failed to write the DP", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void run(final ExecutorService executor, final JarWriter jar, final List<Source> sources,
+            final Listener listener) throws IOException, InterruptedException, ExecutionException {
+
+        final AtomicLong used = new AtomicLong();
+        final Deque<Future<Prepared>> pending = new ArrayDeque<>();
+        final int maxPending = this.threads * 2;
+
+        int next = 0;
+        while (next < sources.size() || !pending.isEmpty()) {
+
+            // schedule upcoming entries, as long as the budget permits
+
+            while (next < sources.size() && pending.size() < maxPending) {
+                final Source source = sources.get(next);
+                final long reserve = reservation(source);
+                if (!pending.isEmpty() && used.get() + reserve > this.budget) {
+                    break;
+                }
+                used.addAndGet(reserve);
+                pending.add(executor.submit(() -> prepare(source, reserve, used)));
+                next++;
+            }
+
+            // write the next entry
+
+            final Prepared prepared = pending.poll().get();
+            final long start = System.nanoTime();
+            if (prepared.data != null) {
+                final long position = jar.getPosition();
+                jar.addDeflated(prepared.source.name, prepared.data, prepared.length, prepared.source.size,
+                        prepared.crc, prepared.source.time);
+                if (listener != null) {
+                    listener.written(prepared.source, jar.getPosition() - position, prepared.method,
+                            prepared.nanos + System.nanoTime() - start);
+                }
+            } else {
+                writeDirect(jar, prepared.source, prepared.method, start, prepared.nanos, listener);
+            }
+            used.addAndGet(-prepared.reserved);
+        }
+    }
+
+    /**
+     * Get the number of bytes to reserve for preparing an entry
+     *
+     * @return the number of bytes, or zero if the entry will not be buffered
+     */
+    private long reservation(final Source source) {
+        if (this.compression == EntryCompression.STORED || source.previous != null) {
+            return 0;
+        }
+
+        // the worst case size of raw deflated data, as calculated by zlib
+        final long size = source.size;
+        final long bound = size + (size >> 12) + (size >> 14) + (size >> 25) + 13;
+
+        if (bound > this.budget || bound > Integer.MAX_VALUE - 8) {
+            return 0;
+        }
+        return bound;
+    }
+
+    private Prepared prepare(final Source source, final long reserved, final AtomicLong used) throws IOException {
+        final long start = System.nanoTime();
+
+        final int method = method(source);
+
+        if (method == ZipEntry.STORED || reserved <= 0) {
+            used.addAndGet(-reserved);
+            return new Prepared(source, method, null, 0, source.crc, 0, System.nanoTime() - start);
+        }
+
+        final CRC32 crc = new CRC32();
+        final Deflater deflater = new Deflater(this.level, true);
+        byte[] output = new byte[(int) reserved];
+        int length = 0;
+        long size = 0;
+
+        try (FileChannel in = FileChannel.open(source.file, StandardOpenOption.READ)) {
+            final byte[] input = new byte[BUFFER_SIZE];
+            final ByteBuffer inputBuffer = ByteBuffer.wrap(input);
+
+            boolean eof = false;
+            while (!deflater.finished()) {
+                if (!eof && deflater.needsInput()) {
+                    inputBuffer.clear();
+                    final int rc = in.read(inputBuffer);
+                    if (rc < 0) {
+                        eof = true;
+                        deflater.finish();
+                    } else {
+                        crc.update(input, 0, rc);
+                        size += rc;
+                        deflater.setInput(input, 0, rc);
+                    }
+                }
+                if (length == output.length) {
+                    // should not happen, as the reservation is the worst case
+                    output = Arrays.copyOf(output, output.length + BUFFER_SIZE);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        if (size != source.size) {
+            throw new IOException(format("Size of '%s' changed while building the DP", source.file));
+        }
+        if (source.crc >= 0 && crc.getValue() != source.crc) {
+            throw new IOException(format("Content of '%s' changed while building the DP", source.file));
+        }
+
+        // give back what was not needed
+        used.addAndGet(length - reserved);
+
+        return new Prepared(source, method, output, length, crc.getValue(), length, System.nanoTime() - start);
+    }
+
+    private int method(final Source source) throws IOException {
+        if (source.previous != null) {
+            return source.previous.getMethod();
+        }
+        return this.compression.method(source.file, source.size);
+    }
+
+    private void writeDirect(final JarWriter jar, final Source source, final int method, final long start,
+            final long nanos, final Listener listener) throws IOException {
+        final long position = jar.getPosition();
+        if (source.previous != null) {
+            jar.addRaw(source.name, source.previous, source.time);
+        } else {
+            jar.addFile(source.name, source.file, source.size, source.crc, method, source.time);
+        }
+        if (listener != null) {
+            listener.written(source, jar.getPosition() - position, method, nanos + System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.internal;
+
+import static java.lang.String.format;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The central directory of an existing ZIP file
+ * <p>
+ * Unlike the {@link java.util.zip.ZipFile}, this provides the location of the
+ * raw, still compressed, data of each entry, so that it can be copied into
+ * another ZIP file without inflating and deflating it again. Only the central
+ * directory is read when opening the file. ZIP64 is not supported.
+ * </p>
+ */
+public class ZipIndex implements Closeable {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+
+    private static final int CENTRAL_HEADER = 0x02014b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    private static final int FLAG_ENCRYPTED = 0x01;
+
+    /**
+     * An entry of the ZIP file
+     */
+    public static class Entry {
+        private final FileChannel channel;
+
+        private final String name;
+
+        private final int method;
+
+        private final int flags;
+
+        private final long crc;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long offset;
+
+        Entry(final FileChannel channel, final String name, final int method, final int flags, final long crc,
+                final long compressedSize, final long size, final long offset) {
+            this.channel = channel;
+            this.name = name;
+            this.method = method;
+            this.flags = flags;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public int getMethod() {
+            return this.method;
+        }
+
+        public boolean isEncrypted() {
+            return (this.flags & FLAG_ENCRYPTED) != 0;
+        }
+
+        public long getCrc() {
+            return this.crc;
+        }
+
+        public long getCompressedSize() {
+            return this.compressedSize;
+        }
+
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * @return the channel of the ZIP file, which must not be closed
+         */
+        public FileChannel getChannel() {
+            return this.channel;
+        }
+
+        /**
+         * Get the position of the raw data of the entry
+         * <p>
+         * This reads the local header of the entry, as its extra field may
+         * differ from the one in the central directory.
+         * </p>
+         *
+         * @return the position of the data in the ZIP file
+         * @throws IOException
+         *             if reading the local header fails
+         */
+        public long getDataOffset() throws IOException {
+            final ByteBuffer header = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(this.channel, header, this.offset);
+
+            if (header.getInt(0) != LOCAL_HEADER) {
+                throw new IOException(format("Invalid local header of entry '%s'", this.name));
+            }
+
+            final long result = this.offset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+            if (result + this.compressedSize > this.channel.size()) {
+                throw new IOException(format("Data of entry '%s' exceeds the ZIP file", this.name));
+            }
+            return result;
+        }
+    }
+
+    private final FileChannel channel;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private ZipIndex(final FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Read the central directory of a ZIP file
+     *
+     * @param file
+     *            the ZIP file
+     * @return the index, which must be closed by the caller
+     * @throws IOException
+     *             if reading the file fails, or it is not a valid ZIP file
+     */
+    public static ZipIndex open(final Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final ZipIndex result = new ZipIndex(channel);
+            result.read();
+            return result;
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void read() throws IOException {
+        final long size = this.channel.size();
+        if (size < END_OF_CENTRAL_DIRECTORY_SIZE) {
+            throw new IOException("Not a ZIP file");
+        }
+
+        // the end record is followed by a comment of at most 64k
+
+        final int tail = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + 0xFFFF);
+        final ByteBuffer buffer = ByteBuffer.allocate(tail).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(this.channel, buffer, size - tail);
+
+        int end = tail - END_OF_CENTRAL_DIRECTORY_SIZE;
+        while (end >= 0 && buffer.getInt(end) != END_OF_CENTRAL_DIRECTORY) {
+            end--;
+        }
+        if (end < 0) {
+            throw new IOException("Not a ZIP file, no end of central directory found");
+        }
+
+        final int count = buffer.getShort(end + 10) & 0xFFFF;
+        final long directorySize = buffer.getInt(end + 12) & 0xFFFFFFFFL;
+        final long directoryOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+
+        if (count == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            throw new IOException("ZIP64 is not supported");
+        }
+        if (directoryOffset + directorySize > size - tail + end || directorySize > Integer.MAX_VALUE) {
+            throw new IOException("Invalid central directory");
+        }
+
+        final ByteBuffer directory = ByteBuffer.allocate((int) directorySize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(this.channel, directory, directoryOffset);
+
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            if (pos + 46 > directory.limit() || directory.getInt(pos) != CENTRAL_HEADER) {
+                throw new IOException("Invalid central directory");
+            }
+
+            final int flags = directory.getShort(pos + 8) & 0xFFFF;
+            final int method = directory.getShort(pos + 10) & 0xFFFF;
+            final long crc = directory.getInt(pos + 16) & 0xFFFFFFFFL;
+            final long compressedSize = directory.getInt(pos + 20) & 0xFFFFFFFFL;
+            final long entrySize = directory.getInt(pos + 24) & 0xFFFFFFFFL;
+            final int nameLength = directory.getShort(pos + 28) & 0xFFFF;
+            final int extraLength = directory.getShort(pos + 30) & 0xFFFF;
+            final int commentLength = directory.getShort(pos + 32) & 0xFFFF;
+            final long offset = directory.getInt(pos + 42) & 0xFFFFFFFFL;
+
+            if (pos + 46 + nameLength > directory.limit()) {
+                throw new IOException("Invalid central directory");
+            }
+
+            final String name = new String(directory.array(), pos + 46, nameLength, StandardCharsets.UTF_8);
+            this.entries.put(name,
+                    new Entry(this.channel, name, method, flags, crc, compressedSize, entrySize, offset));
+
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+    }
+
+    /**
+     * @return the entry, or {@code null} if the ZIP file has no such entry
+     */
+    public Entry getEntry(final String name) {
+        return this.entries.get(name);
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            final int rc = channel.read(buffer, position);
+            if (rc < 0) {
+                throw new IOException("Unexpected end of ZIP file");
+            }
+            position += rc;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.server;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.osgi.framework.Version;
+
+import de.dentrassi.maven.osgi.dp.builder.BuildLog;
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+import de.dentrassi.maven.osgi.dp.internal.BundleScanner;
+
+/**
+ * A directory of bundles, with the metadata of all bundles kept in memory
+ * <p>
+ * The directory is scanned again when the metadata is older than the refresh
+ * interval. Only files which are new, or changed their size or modification
+ * timestamp, are read again.
+ * </p>
+ */
+public class BundleRepository {
+
+    private static class Entry {
+        private final long size;
+
+        private final long lastModified;
+
+        private final BundleInfo bundle;
+
+        Entry(final long size, final long lastModified, final BundleInfo bundle) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.bundle = bundle;
+        }
+    }
+
+    private final Path directory;
+
+    private final long refreshInterval;
+
+    private final BuildLog log;
+
+    private final int scanThreads;
+
+    private Map<Path, Entry> entries = Collections.emptyMap();
+
+    /**
+     * All bundles, by symbolic name and version
+     */
+    private volatile Map<String, TreeMap<Version, BundleInfo>> bundles = Collections.emptyMap();
+
+    private volatile long lastRefresh;
+
+    /**
+     * Create a new repository
+     *
+     * @param directory
+     *            the directory, which is searched recursively for JAR files
+     * @param refreshInterval
+     *            the maximum age of the metadata, in milliseconds
+     * @param scanThreads
+     *            the number of threads reading bundles, zero or less for the
+     *            number of available processors
+     * @param log
+     *            the log
+     */
+    public BundleRepository(final Path directory, final long refreshInterval, final int scanThreads,
+            final BuildLog log) {
+        this.directory = directory;
+        this.refreshInterval = refreshInterval;
+        this.scanThreads = scanThreads;
+        this.log = log;
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Find a bundle
+     *
+     * @param symbolicName
+     *            the symbolic name of the bundle
+     * @param version
+     *            the exact version, or {@code null} for the highest version
+     * @return the bundle, or {@code null} if the repository has no such bundle
+     * @throws IOException
+     *             if refreshing the repository fails
+     */
+    public BundleInfo find(final String symbolicName, final Version version) throws IOException {
+        final TreeMap<Version, BundleInfo> versions = getBundles().get(symbolicName);
+        if (versions == null) {
+            return null;
+        }
+        if (version == null) {
+            return versions.lastEntry().getValue();
+        }
+        return versions.get(version);
+    }
+
+    /**
+     * @return the number of bundles in the repository
+     */
+    public int size() throws IOException {
+        int result = 0;
+        for (final TreeMap<Version, BundleInfo> versions : getBundles().values()) {
+            result += versions.size();
+        }
+        return result;
+    }
+
+    private Map<String, TreeMap<Version, BundleInfo>> getBundles() throws IOException {
+        if (System.currentTimeMillis() - this.lastRefresh >= this.refreshInterval) {
+            refresh(false);
+        }
+        return this.bundles;
+    }
+
+    /**
+     * Scan the directory for changes
+     *
+     * @param force
+     *            whether to scan even if the metadata is not older than the
+     *            refresh interval
+     */
+    public synchronized void refresh(final boolean force) throws IOException {
+        final long now = System.currentTimeMillis();
+        if (!force && now - this.lastRefresh < this.refreshInterval) {
+            // refreshed by another thread in the meantime
+            return;
+        }
+
+        final List<Path> files;
+        try (Stream<Path> s = Files.walk(this.directory)) {
+            files = s.filter(p -> p.getFileName().toString().endsWith(".jar")).filter(Files::isRegularFile)
+                    .sorted().collect(Collectors.toList());
+        }
+
+        final Map<Path, Entry> entries = new HashMap<>(files.size());
+        final List<Path> changed = new ArrayList<>();
+
+        for (final Path file : files) {
+            final long size = Files.size(file);
+            final long lastModified = Files.getLastModifiedTime(file).toMillis();
+            final Entry entry = this.entries.get(file);
+            if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+                entries.put(file, entry);
+            } else {
+                entries.put(file, new Entry(size, lastModified, null));
+                changed.add(file);
+            }
+        }
+
+        for (final BundleInfo bundle : new BundleScanner(this.scanThreads, null, this.log).scan(changed)) {
+            final Entry entry = entries.get(bundle.getLocation());
+            entries.put(bundle.getLocation(), new Entry(entry.size, entry.lastModified, bundle));
+        }
+
+        final Map<String, TreeMap<Version, BundleInfo>> bundles = new HashMap<>();
+        for (final Entry entry : entries.values()) {
+            if (entry.bundle == null) {
+                continue;
+            }
+            final Version version;
+            try {
+                version = Version.parseVersion(entry.bundle.getVersion());
+            } catch (final IllegalArgumentException e) {
+                this.log.warn(format("Invalid bundle version: %s", entry.bundle));
+                continue;
+            }
+            bundles.computeIfAbsent(entry.bundle.getSymbolicName(), k -> new TreeMap<>()).put(version, entry.bundle);
+        }
+
+        if (!changed.isEmpty() || entries.size() != this.entries.size()) {
+            this.log.info(format("Repository %s: %s files, %s read", this.directory, entries.size(), changed.size()));
+        }
+
+        this.entries = entries;
+        this.bundles = bundles;
+        this.lastRefresh = now;
+    }
+}
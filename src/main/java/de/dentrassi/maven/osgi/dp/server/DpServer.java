@@ -0,0 +1,383 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Jens Reimann and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent <agent@local> - initial API and implementation
+ *******************************************************************************/
+package de.dentrassi.maven.osgi.dp.server;
+
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
+import java.util.zip.Deflater;
+
+import org.osgi.framework.Version;
+
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.dentrassi.maven.osgi.dp.builder.BuildLog;
+import de.dentrassi.maven.osgi.dp.builder.BundleInfo;
+import de.dentrassi.maven.osgi.dp.builder.DpBuilder;
+import de.dentrassi.maven.osgi.dp.builder.EntryCompression;
+import de.dentrassi.maven.osgi.dp.builder.PreparedDp;
+
+/**
+ * An HTTP server assembling DPs on demand
+ * <p>
+ * A DP is requested using
+ * {@code GET /dp/<symbolicName>?version=<version>&bundle=<bsn>[:<version>]&…}.
+ * Bundles without a version resolve to the highest version in the
+ * repository. The DP is streamed to the client while it gets assembled,
+ * using chunked transfer encoding, without writing it to disk.
+ * </p>
+ * <p>
+ * Sending the same request using {@code POST}, with a baseline DP or its
+ * manifest as body, results in a fix-pack for this baseline. The DPs
+ * served contain the digests of all bundles, so that bundles of a baseline
+ * served before can be compared by content.
+ * </p>
+ */
+public class DpServer implements Closeable {
+
+    public static final String CONTENT_TYPE = "application/vnd.osgi.dp";
+
+    private static final String CONTEXT = "/dp/";
+
+    private static class RequestException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        RequestException(final int status, final String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final BundleRepository repository;
+
+    private final InetSocketAddress address;
+
+    private BuildLog log = new BuildLog() {
+    };
+
+    private int threads;
+
+    private EntryCompression compression = EntryCompression.DEFLATED;
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    /**
+     * Create a new server
+     *
+     * @param repository
+     *            the repository providing the bundles
+     * @param address
+     *            the address to bind to, the port may be zero for any free
+     *            port
+     */
+    public DpServer(final BundleRepository repository, final InetSocketAddress address) {
+        this.repository = Objects.requireNonNull(repository);
+        this.address = Objects.requireNonNull(address);
+    }
+
+    public DpServer log(final BuildLog log) {
+        this.log = Objects.requireNonNull(log);
+        return this;
+    }
+
+    /**
+     * Set the number of requests processed in parallel
+     * <p>
+     * A value of zero or less uses the number of available processors.
+     * </p>
+     */
+    public DpServer threads(final int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public DpServer compression(final EntryCompression compression) {
+        this.compression = Objects.requireNonNull(compression);
+        return this;
+    }
+
+    public DpServer compressionLevel(final int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Start serving requests
+     */
+    public void start() throws IOException {
+        if (this.server != null) {
+            throw new IllegalStateException("Server is already started");
+        }
+
+        this.repository.refresh(true);
+
+        final int threads = this.threads > 0 ? this.threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("osgi-dp-server-%d").setDaemon(true).build());
+
+        this.server = HttpServer.create(this.address, 0);
+        this.server.createContext(CONTEXT, this::handle);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+    }
+
+    /**
+     * @return the address the server is bound to
+     */
+    public InetSocketAddress getAddress() {
+        return this.server != null ? this.server.getAddress() : this.address;
+    }
+
+    @Override
+    public void close() {
+        if (this.server == null) {
+            return;
+        }
+
+        this.server.stop(0);
+        this.executor.shutdownNow();
+        try {
+            this.executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.server = null;
+    }
+
+    private void handle(final HttpExchange exchange) {
+        final long start = System.nanoTime();
+        try {
+            final String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"POST".equals(method)) {
+                throw new RequestException(405, format("Method not allowed: %s", method));
+            }
+
+            final String symbolicName = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+            if (symbolicName.isEmpty() || symbolicName.contains("/")) {
+                throw new RequestException(404, "Not found");
+            }
+
+            String version = null;
+            final List<BundleInfo> bundles = new ArrayList<>();
+
+            for (final String[] param : parseQuery(exchange.getRequestURI().getRawQuery())) {
+                if ("version".equals(param[0])) {
+                    version = parseVersion(param[1]).toString();
+                } else if ("bundle".equals(param[0])) {
+                    bundles.add(findBundle(param[1]));
+                }
+            }
+
+            if (version == null) {
+                throw new RequestException(400, "Missing parameter: version");
+            }
+            if (bundles.isEmpty()) {
+                throw new RequestException(400, "Missing parameter: bundle");
+            }
+
+            final Manifest baseline = "POST".equals(method) ? readBaseline(exchange.getRequestBody()) : null;
+
+            final DpBuilder builder = new DpBuilder(symbolicName)
+                    .log(new BuildLog() {
+                        @Override
+                        public void debug(final String message) {
+                            DpServer.this.log.debug(message);
+                        }
+
+                        @Override
+                        public void debug(final String message, final Throwable error) {
+                            DpServer.this.log.debug(message, error);
+                        }
+
+                        @Override
+                        public void info(final String message) {
+                            // don't log every bundle of every request
+                            DpServer.this.log.debug(message);
+                        }
+
+                        @Override
+                        public void warn(final String message) {
+                            DpServer.this.log.warn(message);
+                        }
+
+                        @Override
+                        public void warn(final String message, final Throwable error) {
+                            DpServer.this.log.warn(message, error);
+                        }
+                    })
+                    .compression(this.compression)
+                    .compressionLevel(this.compressionLevel)
+                    .writeThreads(1)
+                    .includeDigests(true)
+                    .version(version);
+
+            for (final BundleInfo bundle : bundles) {
+                builder.bundle(bundle);
+            }
+
+            try (PreparedDp dp = builder.prepare()) {
+                if (baseline != null) {
+                    try {
+                        dp.applyBaseline(baseline);
+                    } catch (final IOException e) {
+                        throw new RequestException(400, e.getMessage());
+                    }
+                }
+
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.getResponseHeaders().set("Content-Disposition",
+                        format("attachment; filename=\"%s_%s.dp\"", symbolicName, version));
+                // chunked, the size is not known before writing
+                exchange.sendResponseHeaders(200, 0);
+
+                final CountingOutputStream out = new CountingOutputStream(exchange.getResponseBody());
+                dp.write(out);
+                out.close();
+
+                this.log.info(format("Served %s %s (%s bundles%s): %s bytes in %s ms", symbolicName, version,
+                        bundles.size(), baseline != null ? ", fix-pack" : "", out.getCount(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+            }
+
+        } catch (final RequestException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (final IOException | RuntimeException e) {
+            this.log.warn(format("Failed to serve: %s", exchange.getRequestURI()), e);
+            sendError(exchange, 500, "Failed to assemble DP");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private BundleInfo findBundle(final String value) throws RequestException, IOException {
+        final String[] toks = value.split(":", 2);
+        final Version version = toks.length > 1 ? parseVersion(toks[1]) : null;
+
+        final BundleInfo bundle = this.repository.find(toks[0], version);
+        if (bundle == null) {
+            throw new RequestException(404, format("Unknown bundle: %s", value));
+        }
+        return bundle;
+    }
+
+    private static Version parseVersion(final String version) throws RequestException {
+        try {
+            return Version.parseVersion(version);
+        } catch (final IllegalArgumentException e) {
+            throw new RequestException(400, format("Invalid version: %s", version));
+        }
+    }
+
+    /**
+     * Read the baseline from the request body
+     * <p>
+     * The body is either a DP, of which only the manifest is read, or the
+     * manifest itself.
+     * </p>
+     */
+    private static Manifest readBaseline(final InputStream body) throws RequestException, IOException {
+        final BufferedInputStream in = new BufferedInputStream(body);
+
+        in.mark(4);
+        final byte[] magic = new byte[4];
+        int len = 0;
+        int rc;
+        while (len < magic.length && (rc = in.read(magic, len, magic.length - len)) > 0) {
+            len += rc;
+        }
+        in.reset();
+
+        if (len == 0) {
+            throw new RequestException(400, "Missing baseline");
+        }
+
+        final Manifest mf;
+        if (len == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+            mf = new JarInputStream(in).getManifest();
+        } else {
+            mf = new Manifest(in);
+        }
+
+        final byte[] buffer = new byte[8 * 1024];
+        while (in.read(buffer) >= 0) {
+            // skip the bundles of the baseline, closing a connection with unread data resets it
+        }
+
+        if (mf == null) {
+            throw new RequestException(400, "Baseline has no manifest");
+        }
+        return mf;
+    }
+
+    private static List<String[]> parseQuery(final String query) throws RequestException {
+        final List<String[]> result = new ArrayList<>();
+        if (query == null || query.isEmpty()) {
+            return result;
+        }
+
+        for (final String param : query.split("&")) {
+            if (param.isEmpty()) {
+                continue;
+            }
+            final String[] toks = param.split("=", 2);
+            try {
+                result.add(new String[] { URLDecoder.decode(toks[0], StandardCharsets.UTF_8.name()),
+                        toks.length > 1 ? URLDecoder.decode(toks[1], StandardCharsets.UTF_8.name()) : "" });
+            } catch (final UnsupportedEncodingException | IllegalArgumentException e) {
+                throw new RequestException(400, format("Invalid parameter: %s", param));
+            }
+        }
+        return result;
+    }
+
+    private static void sendError(final HttpExchange exchange, final int status, final String message) {
+        if (exchange.getResponseCode() > 0) {
+            // the response was already started, the client will notice the incomplete stream
+            return;
+        }
+
+        final byte[] data = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(status, data.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(data);
+            }
+        } catch (final IOException e) {
+            // the client is gone
+        }
+    }
+}